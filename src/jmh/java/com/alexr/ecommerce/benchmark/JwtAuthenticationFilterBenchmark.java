@@ -0,0 +1,91 @@
+package com.alexr.ecommerce.benchmark;
+
+import com.alexr.ecommerce.config.JwtAuthenticationFilter;
+import com.alexr.ecommerce.model.Rol;
+import com.alexr.ecommerce.model.Usuario;
+import com.alexr.ecommerce.repository.UsuarioRepository;
+import com.alexr.ecommerce.service.CustomUserDetailsService;
+import com.alexr.ecommerce.service.JwtService;
+import com.alexr.ecommerce.service.RevocacionTokenService;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Flujo completo de doFilterInternal con un repositorio de usuarios en memoria (sin BD)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final FilterChain CADENA_VACIA = (request, response) -> { };
+
+    private JwtAuthenticationFilter filtro;
+    private MockHttpServletRequest peticionConClaims;
+    private MockHttpServletRequest peticionTokenAntiguo;
+    private MockHttpServletResponse respuesta;
+
+    @Setup
+    public void setUp() {
+        Usuario usuario = new Usuario("usuario1", "hash", Rol.ROLE_USUARIO);
+        usuario.setId(1L);
+
+        UsuarioRepository repo = (UsuarioRepository) Proxy.newProxyInstance(
+                UsuarioRepository.class.getClassLoader(),
+                new Class<?>[]{UsuarioRepository.class},
+                (proxy, method, args) -> method.getName().equals("findByNombre") ? Optional.of(usuario) : null);
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        JwtService jwtService = new JwtService(JwtBenchmark.SECRET, 86_400_000, 10_000, registry);
+        CustomUserDetailsService userDetailsService = new CustomUserDetailsService(repo, Duration.ofMinutes(10), 10_000, registry);
+        // Sin cargar() la lista de revocados esta vacia y no toca los repositorios
+        RevocacionTokenService revocacion = new RevocacionTokenService(null, repo, jwtService, 86_400_000);
+        filtro = new JwtAuthenticationFilter(jwtService, userDetailsService, revocacion);
+
+        // Token emitido antes de incluir id/rol: obliga a pasar por el servicio de usuarios
+        String tokenAntiguo = Jwts.builder()
+                .subject(usuario.getUsername())
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + 86_400_000))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(JwtBenchmark.SECRET)))
+                .compact();
+
+        peticionConClaims = peticion(jwtService.generateToken(usuario));
+        peticionTokenAntiguo = peticion(tokenAntiguo);
+        respuesta = new MockHttpServletResponse();
+    }
+
+    private static MockHttpServletRequest peticion(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/productos");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+
+    // El contexto se limpia dentro de la medida (solo quita un ThreadLocal): con @TearDown(Level.Invocation)
+    // JMH tendria que tomar tiempos en cada llamada, lo que en microsegundos distorsiona el resultado
+    @Benchmark
+    public void filtrarTokenConClaims() throws Exception {
+        filtro.doFilter(peticionConClaims, respuesta, CADENA_VACIA);
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public void filtrarTokenAntiguo() throws Exception {
+        filtro.doFilter(peticionTokenAntiguo, respuesta, CADENA_VACIA);
+        SecurityContextHolder.clearContext();
+    }
+}
@@ -0,0 +1,67 @@
+package com.alexr.ecommerce.benchmark;
+
+import com.alexr.ecommerce.model.Rol;
+import com.alexr.ecommerce.model.Usuario;
+import com.alexr.ecommerce.service.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    static final String SECRET = "dGVzdC1zZWNyZXQtcGFyYS1qd3QtZGUtMzItYnl0ZXMtbWluaW1v";
+
+    private JwtService conCache;
+    // Lo que hace validarToken cuando el token no esta en cache. Un JwtService con max-size 0 no sirve:
+    // Caffeine desaloja de forma asincrona y puede seguir devolviendo aciertos
+    private JwtParser sinCache;
+    private Usuario usuario;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        conCache = new JwtService(SECRET, 86_400_000, 10_000, new SimpleMeterRegistry());
+        sinCache = Jwts.parser().verifyWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET))).build();
+        usuario = new Usuario("usuario1", "hash", Rol.ROLE_USUARIO);
+        usuario.setId(1L);
+        token = conCache.generateToken(usuario);
+    }
+
+    @Benchmark
+    public String generarToken() {
+        return conCache.generateToken(usuario);
+    }
+
+    @Benchmark
+    public Claims validarTokenEnCache() {
+        return conCache.validarToken(token);
+    }
+
+    @Benchmark
+    public Claims validarTokenSinCache() {
+        return sinCache.parseSignedClaims(token).getPayload();
+    }
+
+    // Lo que anaden sobre validarToken, con el token ya en cache como en el filtro
+    @Benchmark
+    public String extractUsername() {
+        return conCache.extractUsername(token);
+    }
+
+    @Benchmark
+    public boolean isTokenValid() {
+        return conCache.isTokenValid(token, usuario);
+    }
+}
@@ -0,0 +1,105 @@
+package com.alexr.ecommerce.config;
+
+import com.alexr.ecommerce.service.RespuestaCacheService;
+import com.alexr.ecommerce.service.RespuestaCacheService.RespuestaCacheada;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+// Sirve GET /api/productos y GET /api/productos/{id} desde RespuestaCacheService sin pasar por el controlador
+// ni por Jackson. Se registra como filtro del contenedor, despues de Spring Security: solo ve peticiones ya
+// autenticadas, y como el catalogo es igual para todos los usuarios la clave no incluye al usuario.
+@Component
+public class CacheRespuestasFilter extends OncePerRequestFilter {
+
+    private static final String LISTADO = "/api/productos";
+    private static final Pattern DETALLE = Pattern.compile("/api/productos/\\d+");
+
+    private final RespuestaCacheService cache;
+
+    public CacheRespuestasFilter(RespuestaCacheService cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!"GET".equals(request.getMethod())) return true;
+        // Multi-get (?ids=): cada combinacion de ids es distinta, no merece la pena cachearla
+        if (request.getParameter("ids") != null) return true;
+        String ruta = request.getRequestURI();
+        return !ruta.equals(LISTADO) && !DETALLE.matcher(ruta).matches();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        String clave = clave(request);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        RespuestaCacheada cacheada = cache.buscar(clave);
+        if (cacheada != null) {
+            escribir(cacheada, request, response);
+            return;
+        }
+
+        long generacion = cache.generacion();
+        ContentCachingResponseWrapper envoltorio = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, envoltorio);
+
+        String tipo = envoltorio.getContentType();
+        if (envoltorio.getStatus() == HttpServletResponse.SC_OK && tipo != null
+                && MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(tipo))) {
+            cache.guardar(clave, envoltorio.getContentAsByteArray(), envoltorio.getHeader(HttpHeaders.ETAG), generacion);
+        }
+        envoltorio.copyBodyToResponse();
+    }
+
+    // Solo cuentan los parametros que usa el controlador (Pageable y fields); el resto no cambia la respuesta
+    static String clave(HttpServletRequest request) {
+        String ruta = request.getRequestURI();
+        String fields = request.getParameter("fields");
+        if (!ruta.equals(LISTADO)) return fields == null ? ruta : ruta + "?fields=" + campos(fields);
+
+        String[] sort = request.getParameterValues("sort");
+        return RespuestaCacheService.PREFIJO_LISTADO
+                + "page=" + valor(request.getParameter("page"), "0")
+                + "&size=" + valor(request.getParameter("size"), "20")
+                + "&sort=" + (sort != null ? String.join("|", sort) : "")
+                + (fields == null ? "" : "&fields=" + campos(fields));
+    }
+
+    // fields=nombre,id y fields=id,nombre dan la misma respuesta
+    private static String campos(String fields) {
+        return String.join(",", Arrays.stream(fields.split(",")).map(String::trim).filter(c -> !c.isEmpty()).sorted().toList());
+    }
+
+    private static String valor(String parametro, String porDefecto) {
+        return parametro == null || parametro.isBlank() ? porDefecto : parametro.trim();
+    }
+
+    private static void escribir(RespuestaCacheada cacheada, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (cacheada.getEtag() != null && new ServletWebRequest(request, response).checkNotModified(cacheada.getEtag()))
+            return;
+
+        boolean gzip = CodificacionAceptada.gzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        byte[] cuerpo = gzip ? cacheada.getGzip() : cacheada.getJson();
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        if (gzip) response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        response.setContentLength(cuerpo.length);
+        response.getOutputStream().write(cuerpo);
+    }
+}
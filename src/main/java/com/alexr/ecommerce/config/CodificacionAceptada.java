@@ -0,0 +1,38 @@
+package com.alexr.ecommerce.config;
+
+import java.util.Locale;
+
+// Lectura de la cabecera Accept-Encoding (RFC 9110): lista de codificaciones, cada una con un peso q opcional.
+// q=0 significa que el cliente no la acepta, y * vale para cualquiera que no aparezca por su nombre
+public final class CodificacionAceptada {
+
+    private CodificacionAceptada() {
+    }
+
+    public static boolean gzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        Boolean comodin = null;
+        for (String elemento : acceptEncoding.split(",")) {
+            String[] partes = elemento.split(";");
+            String nombre = partes[0].trim().toLowerCase(Locale.ROOT);
+            boolean aceptada = peso(partes) > 0;
+            if (nombre.equals("gzip") || nombre.equals("x-gzip")) return aceptada;
+            if (nombre.equals("*")) comodin = aceptada;
+        }
+        return Boolean.TRUE.equals(comodin);
+    }
+
+    // Sin q el peso es 1. Un q mal formado cuenta como 0: mejor no comprimir que enviar algo que no se pidio
+    private static double peso(String[] partes) {
+        for (int i = 1; i < partes.length; i++) {
+            String parametro = partes[i].trim();
+            if (!parametro.regionMatches(true, 0, "q=", 0, 2)) continue;
+            try {
+                return Double.parseDouble(parametro.substring(2).trim());
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+        return 1;
+    }
+}
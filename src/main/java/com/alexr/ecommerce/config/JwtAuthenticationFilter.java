@@ -2,6 +2,8 @@ package com.alexr.ecommerce.config;
 
 import com.alexr.ecommerce.service.CustomUserDetailsService;
 import com.alexr.ecommerce.service.JwtService;
+import com.alexr.ecommerce.service.RevocacionTokenService;
+import io.jsonwebtoken.Claims;
 import java.io.IOException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -19,10 +21,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final CustomUserDetailsService userDetailsService;
+    private final RevocacionTokenService revocacionTokenService;
 
-    public JwtAuthenticationFilter(JwtService jwtService, CustomUserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtService jwtService, CustomUserDetailsService userDetailsService,
+                                   RevocacionTokenService revocacionTokenService) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
+        this.revocacionTokenService = revocacionTokenService;
     }
 
     @Override
@@ -38,27 +43,28 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         // 3. Extraer el token (quitar "Bearer ")
         final String token = authHeader.substring(7);
-        // 4. Extraer username del token
-        final String username = jwtService.extractUsername(token);
+        // 4. Verificar firma y caducidad una sola vez (o recuperar el token ya verificado)
+        Claims claims = jwtService.validarToken(token);
+        // 5. Descartar tokens revocados (logout o revocacion de todos los tokens del usuario)
+        if (claims != null && revocacionTokenService.estaRevocado(claims)) claims = null;
+        final String username = claims != null ? claims.getSubject() : null;
 
-        // 5. Verificar que hay username y que no esté ya autenticado
+        // 6. Verificar que hay username y que no esté ya autenticado
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
 
-            // 6. Cargar el usuario de la BD
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
-            // 7. Validar el token
-            if (jwtService.isTokenValid(token, userDetails)) {
-
-                // 8. Autenticar al usuario en Spring Security
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails,
-                        null,
-                        userDetails.getAuthorities()
-                );
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
+            // 7. Construir el principal desde los claims (tokens antiguos sin claims: cargar de la BD)
+            UsernamePasswordAuthenticationToken authToken;
+            UsuarioPrincipal principal = UsuarioPrincipal.desdeClaims(claims);
+            if (principal != null) {
+                authToken = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+            } else {
+                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                authToken = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
             }
+
+            // 8. Autenticar al usuario en Spring Security
+            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authToken);
         }
         // 9. Continuar con la cadena de filtros
         filterChain.doFilter(request, response);
@@ -0,0 +1,36 @@
+package com.alexr.ecommerce.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// Producto, Categoria y ErrorImportacion pasaron de IDENTITY a secuencia. MySQL no tiene secuencias y Hibernate
+// las emula con una tabla <secuencia>(next_val) que empieza en 1: en una base de datos con filas anteriores los
+// ids chocarian con los existentes. Al arrancar se adelanta cada secuencia por encima del id maximo de su tabla.
+// Recibe el EntityManagerFactory para ejecutarse despues de que Hibernate cree o actualice las tablas
+@Component
+public class SecuenciasIniciales {
+
+    // allocationSize de los @SequenceGenerator: el optimizador pooled reparte ids por debajo del valor leido
+    private static final int RESERVA = 50;
+
+    private static final Map<String, String> TABLAS = Map.of(
+            "producto_seq", "producto",
+            "categoria_seq", "categoria",
+            "importacion_error_seq", "importacion_error");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SecuenciasIniciales(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void ajustar() {
+        TABLAS.forEach((secuencia, tabla) -> jdbcTemplate.update("update " + secuencia
+                + " set next_val = greatest(next_val, (select coalesce(max(id), 0) + " + (RESERVA + 1) + " from " + tabla + "))"));
+    }
+}
@@ -0,0 +1,68 @@
+package com.alexr.ecommerce.config;
+
+import com.alexr.ecommerce.model.Rol;
+import io.jsonwebtoken.Claims;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.security.Principal;
+import java.util.Collection;
+import java.util.List;
+
+// Usuario autenticado construido solo a partir de los claims de un token ya verificado
+public final class UsuarioPrincipal implements Principal {
+
+    public static final String CLAIM_ID = "id";
+    public static final String CLAIM_ROL = "rol";
+
+    private final Long id;
+    private final String nombre;
+    private final Rol rol;
+    private final List<GrantedAuthority> authorities;
+
+    public UsuarioPrincipal(Long id, String nombre, Rol rol) {
+        this.id = id;
+        this.nombre = nombre;
+        this.rol = rol;
+        this.authorities = List.of(new SimpleGrantedAuthority(rol.name()));
+    }
+
+    // Devuelve null si el token es anterior a los claims id/rol
+    public static UsuarioPrincipal desdeClaims(Claims claims) {
+        Long id = claims.get(CLAIM_ID, Long.class);
+        String rol = claims.get(CLAIM_ROL, String.class);
+        if (id == null || rol == null || claims.getSubject() == null) return null;
+
+        try {
+            return new UsuarioPrincipal(id, claims.getSubject(), Rol.valueOf(rol));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public Rol getRol() {
+        return rol;
+    }
+
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getName() {
+        return nombre;
+    }
+
+    @Override
+    public String toString() {
+        return nombre;
+    }
+}
@@ -0,0 +1,29 @@
+package com.alexr.ecommerce.controller;
+
+import com.alexr.ecommerce.dto.EstadisticasCacheDTO;
+import com.alexr.ecommerce.service.CacheEstadisticasService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("api/admin/cache")
+@CrossOrigin(origins = "*")
+public class AdminCacheController {
+
+    private final CacheEstadisticasService service;
+
+    public AdminCacheController(CacheEstadisticasService service) {
+        this.service = service;
+    }
+
+    @GetMapping("/estadisticas")
+    public ResponseEntity<EstadisticasCacheDTO> estadisticas(){
+        return ResponseEntity.ok(service.estadisticas());
+    }
+
+    @DeleteMapping
+    public ResponseEntity<Void> vaciar(){
+        service.vaciar();
+        return ResponseEntity.noContent().build();
+    }
+}
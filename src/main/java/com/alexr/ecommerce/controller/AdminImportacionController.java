@@ -0,0 +1,48 @@
+package com.alexr.ecommerce.controller;
+
+import com.alexr.ecommerce.dto.ErrorImportacionDTO;
+import com.alexr.ecommerce.dto.ImportacionDTO;
+import com.alexr.ecommerce.service.ImportacionService;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.net.URI;
+
+@RestController
+@RequestMapping("api/admin/importaciones")
+@CrossOrigin(origins = "*")
+public class AdminImportacionController {
+
+    private final ImportacionService service;
+
+    public AdminImportacionController(ImportacionService service) {
+        this.service = service;
+    }
+
+    // 202: el job se ejecuta en segundo plano; su estado se consulta en la URL de Location
+    @PostMapping(consumes = "multipart/form-data")
+    public ResponseEntity<ImportacionDTO> importar(@RequestParam("fichero") MultipartFile fichero,
+                                                   @RequestParam(required = false) String formato){
+        ImportacionDTO job = service.crear(fichero, formato);
+        return ResponseEntity.accepted().location(URI.create("/api/admin/importaciones/" + job.getId())).body(job);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ImportacionDTO> findById(@PathVariable Long id){
+        return ResponseEntity.ok(service.findById(id));
+    }
+
+    @GetMapping("/{id}/errores")
+    public ResponseEntity<Page<ErrorImportacionDTO>> findErrores(@PathVariable Long id, Pageable pageable){
+        return ResponseEntity.ok(service.findErrores(id, pageable));
+    }
+
+    // Continua una importacion fallida despues del ultimo bloque confirmado
+    @PostMapping("/{id}/reanudar")
+    public ResponseEntity<ImportacionDTO> reanudar(@PathVariable Long id){
+        return ResponseEntity.accepted().body(service.reanudar(id));
+    }
+}
@@ -0,0 +1,68 @@
+package com.alexr.ecommerce.controller;
+
+import com.alexr.ecommerce.config.CodificacionAceptada;
+import com.alexr.ecommerce.model.FormatoCatalogo;
+import com.alexr.ecommerce.service.ExportacionService;
+import com.alexr.ecommerce.service.StockCalienteService;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("api/admin/productos")
+@CrossOrigin(origins = "*")
+public class AdminProductoController {
+
+    private final ExportacionService exportacionService;
+    private final StockCalienteService stockCaliente;
+
+    public AdminProductoController(ExportacionService exportacionService, StockCalienteService stockCaliente) {
+        this.exportacionService = exportacionService;
+        this.stockCaliente = stockCaliente;
+    }
+
+    // Catalogo completo en NDJSON o CSV, escrito a medida que se lee. desdeId reanuda una exportacion cortada
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportar(@RequestParam(defaultValue = "ndjson") String formato,
+                                                          @RequestParam(required = false) Long desdeId,
+                                                          @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String aceptadas){
+        FormatoCatalogo f = FormatoCatalogo.de(formato);
+        boolean gzip = CodificacionAceptada.gzip(aceptadas);
+
+        StreamingResponseBody cuerpo = salida -> {
+            if (!gzip) {
+                exportacionService.exportar(f, desdeId, salida);
+                return;
+            }
+            GZIPOutputStream comprimida = new GZIPOutputStream(salida, 64 * 1024);
+            exportacionService.exportar(f, desdeId, comprimida);
+            comprimida.finish();
+        };
+
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(f.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("productos." + f.getExtension()).build().toString());
+        if (gzip) respuesta.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return respuesta.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING).body(cuerpo);
+    }
+
+    // Modo caliente para ofertas flash: las compras del producto se reservan en memoria en vez de en su fila
+    @PutMapping("/{id}/caliente")
+    public ResponseEntity<Void> activarCaliente(@PathVariable Long id){
+        stockCaliente.activar(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    // Devuelve a la fila el stock que quedaba en memoria
+    @DeleteMapping("/{id}/caliente")
+    public ResponseEntity<Void> desactivarCaliente(@PathVariable Long id){
+        stockCaliente.desactivar(id);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,35 @@
+package com.alexr.ecommerce.controller;
+
+import com.alexr.ecommerce.dto.AuthRequestDTO;
+import com.alexr.ecommerce.dto.ResultadoLoteDTO;
+import com.alexr.ecommerce.service.RegistroMasivoService;
+import com.alexr.ecommerce.service.RevocacionTokenService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("api/admin/usuarios")
+@CrossOrigin(origins = "*")
+public class AdminUsuarioController {
+
+    private final RegistroMasivoService registroMasivoService;
+    private final RevocacionTokenService revocacionTokenService;
+
+    public AdminUsuarioController(RegistroMasivoService registroMasivoService, RevocacionTokenService revocacionTokenService) {
+        this.registroMasivoService = registroMasivoService;
+        this.revocacionTokenService = revocacionTokenService;
+    }
+
+    @PostMapping("/lote")
+    public ResponseEntity<List<ResultadoLoteDTO>> registrarLote(@RequestBody List<AuthRequestDTO> usuarios){
+        return ResponseEntity.ok(registroMasivoService.registrar(usuarios));
+    }
+
+    @PostMapping("/{id}/revocar-tokens")
+    public ResponseEntity<Void> revocarTokens(@PathVariable Long id){
+        revocacionTokenService.revocarTokensUsuario(id);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -3,8 +3,10 @@ package com.alexr.ecommerce.controller;
 
 import com.alexr.ecommerce.dto.AuthRequestDTO;
 import com.alexr.ecommerce.dto.AuthResponseDTO;
+import com.alexr.ecommerce.service.RevocacionTokenService;
 import com.alexr.ecommerce.service.UsuarioService;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -15,10 +17,12 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
 
     private UsuarioService usuarioService;
+    private RevocacionTokenService revocacionTokenService;
 
 
-    public AuthController(UsuarioService usuarioService) {
+    public AuthController(UsuarioService usuarioService, RevocacionTokenService revocacionTokenService) {
         this.usuarioService = usuarioService;
+        this.revocacionTokenService = revocacionTokenService;
     }
 
     @PostMapping("/register")
@@ -33,5 +37,13 @@ public class AuthController {
         return ResponseEntity.ok(authResponseDTO);
     }
 
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authHeader){
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            revocacionTokenService.revocarToken(authHeader.substring(7));
+        }
+        return ResponseEntity.noContent().build();
+    }
+
 
 }
@@ -2,13 +2,19 @@ package com.alexr.ecommerce.controller;
 
 import com.alexr.ecommerce.dto.CategoriaRequestDTO;
 import com.alexr.ecommerce.dto.CategoriaResponseDTO;
+import com.alexr.ecommerce.dto.VentanaDTO;
 import com.alexr.ecommerce.service.CategoriaService;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Map;
 
 
 @RestController
@@ -23,13 +29,42 @@ public class CategoriaController {
     }
 
     @GetMapping
-    public ResponseEntity<Page<CategoriaResponseDTO>> findAll(Pageable pageable){
-        return ResponseEntity.ok(service.findAll(pageable));
+    public ResponseEntity<Page<CategoriaResponseDTO>> findAll(Pageable pageable, WebRequest request){
+        Page<CategoriaResponseDTO> pagina = service.findAll(pageable);
+        String etag = ETags.pagina(pagina, ETags::categoria);
+        if (request.checkNotModified(etag)) return null;
+        return ResponseEntity.ok().eTag(etag).body(pagina);
+    }
+
+    // ?fields=id,nombre: solo esos campos, tanto en el JSON como en el select
+    @GetMapping(params = "fields")
+    public ResponseEntity<Page<Map<String, Object>>> findAll(@RequestParam String fields, Pageable pageable){
+        return ResponseEntity.ok(service.findAll(pageable, fields));
+    }
+
+    // Sin total: para scroll infinito, evita el count
+    @GetMapping("/slice")
+    public ResponseEntity<Slice<CategoriaResponseDTO>> findSlice(Pageable pageable){
+        return ResponseEntity.ok(service.findSlice(pageable));
+    }
+
+    @GetMapping("/cursor")
+    public ResponseEntity<VentanaDTO<CategoriaResponseDTO>> findVentana(@RequestParam(defaultValue = "id") String orden,
+                                                                        @RequestParam(required = false) String cursor,
+                                                                        @RequestParam(defaultValue = "20") int size){
+        return ResponseEntity.ok(service.findVentana(orden, cursor, size));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<CategoriaResponseDTO> findById(@PathVariable Long id){
-        return ResponseEntity.ok(service.findById(id));
+    public ResponseEntity<CategoriaResponseDTO> findById(@PathVariable Long id, WebRequest request){
+        if (request.checkNotModified(ETags.categoria(id, service.findVersion(id)))) return null;
+        CategoriaResponseDTO c = service.findById(id);
+        return ResponseEntity.ok().eTag(ETags.categoria(c)).body(c);
+    }
+
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> findById(@PathVariable Long id, @RequestParam String fields){
+        return ResponseEntity.ok(service.findById(id, fields));
     }
 
     @PostMapping
@@ -45,8 +80,16 @@ public class CategoriaController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<CategoriaResponseDTO> update(@PathVariable Long id, @Valid @RequestBody CategoriaRequestDTO categoriaActualizada) {
-        return ResponseEntity.ok(service.update(id, categoriaActualizada));
+    public ResponseEntity<CategoriaResponseDTO> update(@PathVariable Long id, @Valid @RequestBody CategoriaRequestDTO categoriaActualizada,
+                                                       WebRequest request) {
+        Long versionEsperada = null;
+        if (request.getHeader(HttpHeaders.IF_MATCH) != null) {
+            long version = service.findVersion(id);
+            if (request.checkNotModified(ETags.categoria(id, version))) return null;
+            versionEsperada = version;
+        }
+        CategoriaResponseDTO c = service.update(id, categoriaActualizada, versionEsperada);
+        return ResponseEntity.ok().eTag(ETags.categoria(c)).body(c);
     }
 
 }
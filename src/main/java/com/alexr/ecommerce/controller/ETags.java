@@ -0,0 +1,53 @@
+package com.alexr.ecommerce.controller;
+
+import com.alexr.ecommerce.dto.CategoriaResponseDTO;
+import com.alexr.ecommerce.dto.ProductoResponseDTO;
+import com.alexr.ecommerce.repository.VersionProducto;
+import org.springframework.data.domain.Page;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+// ETags fuertes a partir de las versiones (@Version) de las entidades
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String producto(Long id, VersionProducto v) {
+        return producto(id, v.getVersion(), v.getVersionCategoria());
+    }
+
+    static String producto(ProductoResponseDTO p) {
+        return producto(p.getId(), p.getVersion(), p.getCategoria().getVersion());
+    }
+
+    static String categoria(Long id, long version) {
+        return "\"c" + id + "." + version + "\"";
+    }
+
+    static String categoria(CategoriaResponseDTO c) {
+        return categoria(c.getId(), c.getVersion());
+    }
+
+    // Una pagina cambia si cambia cualquiera de sus elementos, su orden, el total o la propia paginacion
+    static <T> String pagina(Page<T> pagina, Function<T, String> etag) {
+        long h = 0xcbf29ce484222325L;
+        h = mezclar(h, pagina.getNumber() + "/" + pagina.getSize() + "/" + pagina.getTotalElements() + "/" + pagina.getSort());
+        for (T elemento : pagina.getContent()) h = mezclar(h, etag.apply(elemento));
+        return "\"l" + Long.toHexString(h) + "\"";
+    }
+
+    private static String producto(Long id, long version, long versionCategoria) {
+        return "\"p" + id + "." + version + "." + versionCategoria + "\"";
+    }
+
+    // FNV-1a de 64 bits
+    private static long mezclar(long h, String valor) {
+        for (byte b : valor.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+}
@@ -0,0 +1,35 @@
+package com.alexr.ecommerce.controller;
+
+import com.alexr.ecommerce.dto.PedidoRequestDTO;
+import com.alexr.ecommerce.dto.PedidoResponseDTO;
+import com.alexr.ecommerce.service.PedidoService;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.security.Principal;
+
+@RestController
+@RequestMapping("api/pedidos")
+@CrossOrigin(origins = "*")
+public class PedidoController {
+
+    private final PedidoService service;
+
+    public PedidoController(PedidoService service) {
+        this.service = service;
+    }
+
+    // Resta el stock de todas las lineas o de ninguna: 409 si alguna no tiene suficiente
+    @PostMapping
+    public ResponseEntity<PedidoResponseDTO> crear(@Valid @RequestBody PedidoRequestDTO pedido, Principal usuario){
+        return ResponseEntity.status(HttpStatus.CREATED).body(service.crear(pedido, usuario.getName()));
+    }
+
+    // Cada usuario solo ve sus pedidos; los de otro responden 404
+    @GetMapping("/{id}")
+    public ResponseEntity<PedidoResponseDTO> findById(@PathVariable Long id, Principal usuario){
+        return ResponseEntity.ok(service.findById(id, usuario.getName()));
+    }
+}
@@ -1,17 +1,33 @@
 package com.alexr.ecommerce.controller;
 
+import com.alexr.ecommerce.dto.FacetasDTO;
+import com.alexr.ecommerce.dto.FiltroProductoDTO;
+import com.alexr.ecommerce.dto.MovimientoStockDTO;
+import com.alexr.ecommerce.dto.ProductoEncontradoDTO;
+import com.alexr.ecommerce.dto.ProductoLoteDTO;
 import com.alexr.ecommerce.dto.ProductoRequestDTO;
 import com.alexr.ecommerce.dto.ProductoResponseDTO;
+import com.alexr.ecommerce.dto.ResultadoLoteDTO;
+import com.alexr.ecommerce.dto.StockRequestDTO;
+import com.alexr.ecommerce.dto.VentanaDTO;
 import com.alexr.ecommerce.model.Producto;
+import com.alexr.ecommerce.repository.VersionProducto;
+import com.alexr.ecommerce.service.FacetaService;
+import com.alexr.ecommerce.service.ProductoLoteService;
 import com.alexr.ecommerce.service.ProductoService;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("api/productos")
@@ -19,19 +35,84 @@ import java.util.List;
 public class ProductoController {
 
     private final ProductoService service;
+    private final FacetaService facetaService;
+    private final ProductoLoteService loteService;
 
-    public ProductoController(ProductoService service) {
+    public ProductoController(ProductoService service, FacetaService facetaService, ProductoLoteService loteService) {
         this.service = service;
+        this.facetaService = facetaService;
+        this.loteService = loteService;
     }
 
     @GetMapping
-    public ResponseEntity<Page<ProductoResponseDTO>> findAll(Pageable pageable){
-        return ResponseEntity.ok(service.findAll(pageable));
+    public ResponseEntity<Page<ProductoResponseDTO>> findAll(Pageable pageable, WebRequest request){
+        Page<ProductoResponseDTO> pagina = service.findAll(pageable);
+        String etag = ETags.pagina(pagina, ETags::producto);
+        // checkNotModified deja la respuesta en 304: no se serializa nada
+        if (request.checkNotModified(etag)) return null;
+        return ResponseEntity.ok().eTag(etag).body(pagina);
     }
 
+    // ?fields=id,nombre,precio: solo esos campos, tanto en el JSON como en el select
+    @GetMapping(params = {"fields", "!ids"})
+    public ResponseEntity<Page<Map<String, Object>>> findAll(@RequestParam String fields, Pageable pageable){
+        return ResponseEntity.ok(service.findAll(pageable, fields));
+    }
+
+    // Multi-get: ?ids=3,1,2 devuelve esos productos en ese orden; los que no existen van con encontrado=false
+    @GetMapping(params = "ids")
+    public ResponseEntity<List<ProductoEncontradoDTO>> findByIds(@RequestParam List<Long> ids){
+        return ResponseEntity.ok(service.findByIds(ids));
+    }
+
+    // Igual que ?ids= pero con la lista en el cuerpo, para listas que no caben en la URL
+    @PostMapping("/multiget")
+    public ResponseEntity<List<ProductoEncontradoDTO>> multiget(@RequestBody List<Long> ids){
+        return ResponseEntity.ok(service.findByIds(ids));
+    }
+
+    // Sin total: para scroll infinito, evita el count
+    @GetMapping("/slice")
+    public ResponseEntity<Slice<ProductoResponseDTO>> findSlice(Pageable pageable){
+        return ResponseEntity.ok(service.findSlice(pageable));
+    }
+
+    @GetMapping("/cursor")
+    public ResponseEntity<VentanaDTO<ProductoResponseDTO>> findVentana(@RequestParam(defaultValue = "id") String orden,
+                                                                       @RequestParam(required = false) String cursor,
+                                                                       @RequestParam(defaultValue = "20") int size){
+        return ResponseEntity.ok(service.findVentana(orden, cursor, size));
+    }
+
+    @GetMapping("/filtro")
+    public ResponseEntity<Page<ProductoResponseDTO>> filtrar(FiltroProductoDTO filtro, Pageable pageable){
+        return ResponseEntity.ok(service.filtrar(filtro, pageable));
+    }
+
+    @GetMapping("/facetas")
+    public ResponseEntity<FacetasDTO> facetas(FiltroProductoDTO filtro,
+                                              @RequestParam(defaultValue = "50") BigDecimal ancho){
+        return ResponseEntity.ok(facetaService.calcular(filtro, ancho));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<VentanaDTO<ProductoResponseDTO>> buscar(@RequestParam String q,
+                                                                  @RequestParam(required = false) String cursor,
+                                                                  @RequestParam(defaultValue = "20") int size){
+        return ResponseEntity.ok(service.buscar(q, cursor, size));
+    }
+
+    // El If-None-Match se resuelve solo con las versiones, antes de cargar el producto
     @GetMapping("/{id}")
-    public ResponseEntity<ProductoResponseDTO> findById(@PathVariable Long id){
-        return ResponseEntity.ok(service.findById(id));
+    public ResponseEntity<ProductoResponseDTO> findById(@PathVariable Long id, WebRequest request){
+        if (request.checkNotModified(ETags.producto(id, service.findVersion(id)))) return null;
+        ProductoResponseDTO p = service.findById(id);
+        return ResponseEntity.ok().eTag(ETags.producto(p)).body(p);
+    }
+
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> findById(@PathVariable Long id, @RequestParam String fields){
+        return ResponseEntity.ok(service.findById(id, fields));
     }
 
     @PostMapping
@@ -46,8 +127,45 @@ public class ProductoController {
         return ResponseEntity.noContent().build();
     }
 
+    // Con If-Match, un ETag que ya no coincide responde 412 (checkNotModified) sin tocar el producto
     @PutMapping("/{id}")
-    public ResponseEntity<ProductoResponseDTO> update(@PathVariable Long id,@Valid @RequestBody ProductoRequestDTO productoActualizado) {
-        return ResponseEntity.ok(service.update(id, productoActualizado));
+    public ResponseEntity<ProductoResponseDTO> update(@PathVariable Long id,@Valid @RequestBody ProductoRequestDTO productoActualizado,
+                                                      WebRequest request) {
+        Long versionEsperada = null;
+        if (request.getHeader(HttpHeaders.IF_MATCH) != null) {
+            VersionProducto v = service.findVersion(id);
+            if (request.checkNotModified(ETags.producto(id, v))) return null;
+            versionEsperada = v.getVersion();
+        }
+        ProductoResponseDTO p = service.update(id, productoActualizado, versionEsperada);
+        return ResponseEntity.ok().eTag(ETags.producto(p)).body(p);
+    }
+
+    // Sin stock suficiente responde 409 con el stock que queda; no hay excepcion de por medio
+    @PostMapping("/{id}/stock/decrement")
+    public ResponseEntity<MovimientoStockDTO> decrementarStock(@PathVariable Long id, @Valid @RequestBody StockRequestDTO stock){
+        MovimientoStockDTO m = service.decrementarStock(id, stock.getCantidad());
+        return ResponseEntity.status(m.isRealizado() ? HttpStatus.OK : HttpStatus.CONFLICT).body(m);
+    }
+
+    @PostMapping("/{id}/stock/increment")
+    public ResponseEntity<MovimientoStockDTO> incrementarStock(@PathVariable Long id, @Valid @RequestBody StockRequestDTO stock){
+        return ResponseEntity.ok(service.incrementarStock(id, stock.getCantidad()));
+    }
+
+    // Operaciones en lote: un resultado por elemento, en el mismo orden, con estado ERROR en los que fallan
+    @PostMapping("/batch")
+    public ResponseEntity<List<ResultadoLoteDTO>> crearLote(@RequestBody List<ProductoRequestDTO> productos){
+        return ResponseEntity.ok(loteService.crear(productos));
+    }
+
+    @PutMapping("/batch")
+    public ResponseEntity<List<ResultadoLoteDTO>> actualizarLote(@RequestBody List<ProductoLoteDTO> productos){
+        return ResponseEntity.ok(loteService.actualizar(productos));
+    }
+
+    @DeleteMapping("/batch")
+    public ResponseEntity<List<ResultadoLoteDTO>> eliminarLote(@RequestBody List<Long> ids){
+        return ResponseEntity.ok(loteService.eliminar(ids));
     }
 }
@@ -3,12 +3,18 @@ package com.alexr.ecommerce.dto;
 public class CategoriaResponseDTO {
     private Long id;
     private String nombre;
+    private long version;
 
     public CategoriaResponseDTO(Long id, String nombre) {
         this.id = id;
         this.nombre = nombre;
     }
 
+    public CategoriaResponseDTO(Long id, String nombre, long version) {
+        this(id, nombre);
+        this.version = version;
+    }
+
     public CategoriaResponseDTO() {
     }
 
@@ -27,4 +33,12 @@ public class CategoriaResponseDTO {
     public void setNombre(String nombre) {
         this.nombre = nombre;
     }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
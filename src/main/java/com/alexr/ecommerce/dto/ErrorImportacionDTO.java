@@ -0,0 +1,23 @@
+package com.alexr.ecommerce.dto;
+
+public class ErrorImportacionDTO {
+
+    private long fila;
+    private String mensaje;
+
+    public ErrorImportacionDTO(long fila, String mensaje) {
+        this.fila = fila;
+        this.mensaje = mensaje;
+    }
+
+    public ErrorImportacionDTO() {
+    }
+
+    public long getFila() {
+        return fila;
+    }
+
+    public String getMensaje() {
+        return mensaje;
+    }
+}
@@ -0,0 +1,50 @@
+package com.alexr.ecommerce.dto;
+
+import java.util.List;
+
+public class EstadisticasCacheDTO {
+
+    private boolean activa;
+    private long aciertos;
+    private long fallos;
+    private long aciertosConsultas;
+    private long fallosConsultas;
+    private List<RegionCacheDTO> regiones;
+
+    public EstadisticasCacheDTO(boolean activa, long aciertos, long fallos, long aciertosConsultas, long fallosConsultas,
+                                List<RegionCacheDTO> regiones) {
+        this.activa = activa;
+        this.aciertos = aciertos;
+        this.fallos = fallos;
+        this.aciertosConsultas = aciertosConsultas;
+        this.fallosConsultas = fallosConsultas;
+        this.regiones = regiones;
+    }
+
+    public EstadisticasCacheDTO() {
+    }
+
+    public boolean isActiva() {
+        return activa;
+    }
+
+    public long getAciertos() {
+        return aciertos;
+    }
+
+    public long getFallos() {
+        return fallos;
+    }
+
+    public long getAciertosConsultas() {
+        return aciertosConsultas;
+    }
+
+    public long getFallosConsultas() {
+        return fallosConsultas;
+    }
+
+    public List<RegionCacheDTO> getRegiones() {
+        return regiones;
+    }
+}
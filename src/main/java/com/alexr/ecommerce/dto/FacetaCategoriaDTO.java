@@ -0,0 +1,29 @@
+package com.alexr.ecommerce.dto;
+
+public class FacetaCategoriaDTO {
+
+    private Long id;
+    private String nombre;
+    private long total;
+
+    public FacetaCategoriaDTO(Long id, String nombre, long total) {
+        this.id = id;
+        this.nombre = nombre;
+        this.total = total;
+    }
+
+    public FacetaCategoriaDTO() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+}
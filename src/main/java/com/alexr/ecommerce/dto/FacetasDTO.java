@@ -0,0 +1,44 @@
+package com.alexr.ecommerce.dto;
+
+import java.util.List;
+
+public class FacetasDTO {
+
+    private long total;
+    private List<FacetaCategoriaDTO> categorias;
+    private long disponibles;
+    private long noDisponibles;
+    private List<TramoPrecioDTO> precios;
+
+    public FacetasDTO(long total, List<FacetaCategoriaDTO> categorias, long disponibles, long noDisponibles,
+                      List<TramoPrecioDTO> precios) {
+        this.total = total;
+        this.categorias = categorias;
+        this.disponibles = disponibles;
+        this.noDisponibles = noDisponibles;
+        this.precios = precios;
+    }
+
+    public FacetasDTO() {
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public List<FacetaCategoriaDTO> getCategorias() {
+        return categorias;
+    }
+
+    public long getDisponibles() {
+        return disponibles;
+    }
+
+    public long getNoDisponibles() {
+        return noDisponibles;
+    }
+
+    public List<TramoPrecioDTO> getPrecios() {
+        return precios;
+    }
+}
@@ -0,0 +1,62 @@
+package com.alexr.ecommerce.dto;
+
+import java.math.BigDecimal;
+
+// Parametros opcionales del listado filtrado; los que llegan a null no filtran
+public class FiltroProductoDTO {
+
+    private Long categoria;
+    private BigDecimal precioMin;
+    private BigDecimal precioMax;
+    private Boolean disponible;
+
+    public FiltroProductoDTO(Long categoria, BigDecimal precioMin, BigDecimal precioMax, Boolean disponible) {
+        this.categoria = categoria;
+        this.precioMin = precioMin;
+        this.precioMax = precioMax;
+        this.disponible = disponible;
+    }
+
+    public FiltroProductoDTO() {
+    }
+
+    // Representacion canonica del filtro, para usarlo como clave de cache (10 y 10.00 dan la misma clave)
+    public String clave() {
+        return "categoria=" + (categoria != null ? categoria : "")
+                + "&precioMin=" + (precioMin != null ? precioMin.stripTrailingZeros().toPlainString() : "")
+                + "&precioMax=" + (precioMax != null ? precioMax.stripTrailingZeros().toPlainString() : "")
+                + "&disponible=" + (disponible != null ? disponible : "");
+    }
+
+    public Long getCategoria() {
+        return categoria;
+    }
+
+    public void setCategoria(Long categoria) {
+        this.categoria = categoria;
+    }
+
+    public BigDecimal getPrecioMin() {
+        return precioMin;
+    }
+
+    public void setPrecioMin(BigDecimal precioMin) {
+        this.precioMin = precioMin;
+    }
+
+    public BigDecimal getPrecioMax() {
+        return precioMax;
+    }
+
+    public void setPrecioMax(BigDecimal precioMax) {
+        this.precioMax = precioMax;
+    }
+
+    public Boolean getDisponible() {
+        return disponible;
+    }
+
+    public void setDisponible(Boolean disponible) {
+        this.disponible = disponible;
+    }
+}
@@ -0,0 +1,90 @@
+package com.alexr.ecommerce.dto;
+
+import com.alexr.ecommerce.model.EstadoImportacion;
+import com.alexr.ecommerce.model.FormatoCatalogo;
+import com.alexr.ecommerce.model.ImportacionJob;
+
+import java.time.Duration;
+import java.time.Instant;
+
+public class ImportacionDTO {
+
+    private Long id;
+    private EstadoImportacion estado;
+    private FormatoCatalogo formato;
+    private String fichero;
+    private long filasProcesadas;
+    private long filasImportadas;
+    private long filasConError;
+    private double filasPorSegundo;
+    private Instant inicio;
+    private Instant fin;
+    private String mensajeError;
+
+    public ImportacionDTO() {
+    }
+
+    // El ritmo es el de la ejecucion actual (o la ultima), no el de toda la importacion si se ha reanudado
+    public static ImportacionDTO de(ImportacionJob job) {
+        ImportacionDTO dto = new ImportacionDTO();
+        dto.id = job.getId();
+        dto.estado = job.getEstado();
+        dto.formato = job.getFormato();
+        dto.fichero = job.getNombreOriginal();
+        dto.filasProcesadas = job.getFilasProcesadas();
+        dto.filasImportadas = job.getFilasImportadas();
+        dto.filasConError = job.getFilasConError();
+        dto.inicio = job.getInicio();
+        dto.fin = job.getFin();
+        dto.mensajeError = job.getMensajeError();
+        if (job.getInicio() != null) {
+            long ms = Duration.between(job.getInicio(), job.getFin() != null ? job.getFin() : Instant.now()).toMillis();
+            if (ms > 0) dto.filasPorSegundo = (job.getFilasProcesadas() - job.getFilasAlIniciar()) * 1000.0 / ms;
+        }
+        return dto;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public EstadoImportacion getEstado() {
+        return estado;
+    }
+
+    public FormatoCatalogo getFormato() {
+        return formato;
+    }
+
+    public String getFichero() {
+        return fichero;
+    }
+
+    public long getFilasProcesadas() {
+        return filasProcesadas;
+    }
+
+    public long getFilasImportadas() {
+        return filasImportadas;
+    }
+
+    public long getFilasConError() {
+        return filasConError;
+    }
+
+    public double getFilasPorSegundo() {
+        return filasPorSegundo;
+    }
+
+    public Instant getInicio() {
+        return inicio;
+    }
+
+    public Instant getFin() {
+        return fin;
+    }
+
+    public String getMensajeError() {
+        return mensajeError;
+    }
+}
@@ -0,0 +1,38 @@
+package com.alexr.ecommerce.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public class LineaPedidoRequestDTO {
+
+    @NotNull(message = "Debes indicar el producto")
+    private Long idProducto;
+
+    @NotNull(message = "La cantidad es obligatoria")
+    @Min(value = 1, message = "La cantidad debe ser mayor que 0")
+    private Integer cantidad;
+
+    public LineaPedidoRequestDTO(Long idProducto, Integer cantidad) {
+        this.idProducto = idProducto;
+        this.cantidad = cantidad;
+    }
+
+    public LineaPedidoRequestDTO() {
+    }
+
+    public Long getIdProducto() {
+        return idProducto;
+    }
+
+    public void setIdProducto(Long idProducto) {
+        this.idProducto = idProducto;
+    }
+
+    public Integer getCantidad() {
+        return cantidad;
+    }
+
+    public void setCantidad(Integer cantidad) {
+        this.cantidad = cantidad;
+    }
+}
@@ -0,0 +1,47 @@
+package com.alexr.ecommerce.dto;
+
+import com.alexr.ecommerce.model.LineaPedido;
+
+import java.math.BigDecimal;
+
+public class LineaPedidoResponseDTO {
+
+    private Long idProducto;
+    private String nombre;
+    private int cantidad;
+    private BigDecimal precioUnitario;
+    private BigDecimal subtotal;
+
+    public LineaPedidoResponseDTO() {
+    }
+
+    public static LineaPedidoResponseDTO de(LineaPedido linea) {
+        LineaPedidoResponseDTO dto = new LineaPedidoResponseDTO();
+        dto.idProducto = linea.getProductoId();
+        dto.nombre = linea.getNombre();
+        dto.cantidad = linea.getCantidad();
+        dto.precioUnitario = linea.getPrecioUnitario();
+        dto.subtotal = linea.getSubtotal();
+        return dto;
+    }
+
+    public Long getIdProducto() {
+        return idProducto;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public int getCantidad() {
+        return cantidad;
+    }
+
+    public BigDecimal getPrecioUnitario() {
+        return precioUnitario;
+    }
+
+    public BigDecimal getSubtotal() {
+        return subtotal;
+    }
+}
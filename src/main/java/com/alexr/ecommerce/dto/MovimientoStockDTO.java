@@ -0,0 +1,48 @@
+package com.alexr.ecommerce.dto;
+
+// Resultado de sumar o restar stock. Si no habia suficiente, realizado es false y stock es el que queda
+public class MovimientoStockDTO {
+
+    private Long id;
+    private int cantidad;
+    private boolean realizado;
+    private int stock;
+    private boolean disponible;
+    private long version;
+
+    public MovimientoStockDTO(Long id, int cantidad, boolean realizado, int stock, boolean disponible, long version) {
+        this.id = id;
+        this.cantidad = cantidad;
+        this.realizado = realizado;
+        this.stock = stock;
+        this.disponible = disponible;
+        this.version = version;
+    }
+
+    public MovimientoStockDTO() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public int getCantidad() {
+        return cantidad;
+    }
+
+    public boolean isRealizado() {
+        return realizado;
+    }
+
+    public int getStock() {
+        return stock;
+    }
+
+    public boolean isDisponible() {
+        return disponible;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
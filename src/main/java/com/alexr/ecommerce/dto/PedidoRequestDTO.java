@@ -0,0 +1,28 @@
+package com.alexr.ecommerce.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+public class PedidoRequestDTO {
+
+    @NotEmpty(message = "El pedido no tiene lineas")
+    private List<@NotNull(message = "El pedido tiene una linea vacia") @Valid LineaPedidoRequestDTO> lineas;
+
+    public PedidoRequestDTO(List<LineaPedidoRequestDTO> lineas) {
+        this.lineas = lineas;
+    }
+
+    public PedidoRequestDTO() {
+    }
+
+    public List<LineaPedidoRequestDTO> getLineas() {
+        return lineas;
+    }
+
+    public void setLineas(List<LineaPedidoRequestDTO> lineas) {
+        this.lineas = lineas;
+    }
+}
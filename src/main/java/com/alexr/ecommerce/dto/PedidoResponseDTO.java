@@ -0,0 +1,49 @@
+package com.alexr.ecommerce.dto;
+
+import com.alexr.ecommerce.model.Pedido;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+public class PedidoResponseDTO {
+
+    private Long id;
+    private String usuario;
+    private BigDecimal total;
+    private Instant creado;
+    private List<LineaPedidoResponseDTO> lineas;
+
+    public PedidoResponseDTO() {
+    }
+
+    public static PedidoResponseDTO de(Pedido pedido) {
+        PedidoResponseDTO dto = new PedidoResponseDTO();
+        dto.id = pedido.getId();
+        dto.usuario = pedido.getUsuario();
+        dto.total = pedido.getTotal();
+        dto.creado = pedido.getCreado();
+        dto.lineas = pedido.getLineas().stream().map(LineaPedidoResponseDTO::de).toList();
+        return dto;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getUsuario() {
+        return usuario;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public Instant getCreado() {
+        return creado;
+    }
+
+    public List<LineaPedidoResponseDTO> getLineas() {
+        return lineas;
+    }
+}
@@ -0,0 +1,30 @@
+package com.alexr.ecommerce.dto;
+
+// Un elemento de la respuesta de multi-get: el id pedido y el producto, o encontrado=false si no existe
+public class ProductoEncontradoDTO {
+
+    private Long id;
+    private boolean encontrado;
+    private ProductoResponseDTO producto;
+
+    public ProductoEncontradoDTO(Long id, ProductoResponseDTO producto) {
+        this.id = id;
+        this.encontrado = producto != null;
+        this.producto = producto;
+    }
+
+    public ProductoEncontradoDTO() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public boolean isEncontrado() {
+        return encontrado;
+    }
+
+    public ProductoResponseDTO getProducto() {
+        return producto;
+    }
+}
@@ -0,0 +1,40 @@
+package com.alexr.ecommerce.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.math.BigDecimal;
+
+// Elemento de PUT /api/productos/batch: el producto a actualizar, sus nuevos datos y, opcionalmente, la version
+// que espera el cliente (como el If-Match del PUT individual)
+public class ProductoLoteDTO extends ProductoRequestDTO {
+
+    @NotNull(message = "El id es obligatorio")
+    private Long id;
+
+    private Long version;
+
+    public ProductoLoteDTO(Long id, String nombre, int stock, BigDecimal precio, String descripcion, Long idCategoria, Long version) {
+        super(nombre, stock, precio, descripcion, idCategoria);
+        this.id = id;
+        this.version = version;
+    }
+
+    public ProductoLoteDTO() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
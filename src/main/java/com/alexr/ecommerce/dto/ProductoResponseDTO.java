@@ -11,6 +11,7 @@ public class ProductoResponseDTO {
     private String descripcion;
     private boolean disponible;
     private CategoriaResponseDTO categoria;
+    private long version;
 
     public ProductoResponseDTO(Long id, String nombre, int stock, BigDecimal precio, String descripcion, boolean disponible, CategoriaResponseDTO categoria) {
         this.id = id;
@@ -22,6 +23,17 @@ public class ProductoResponseDTO {
         this.categoria = categoria;
     }
 
+    public ProductoResponseDTO(Long id, String nombre, int stock, BigDecimal precio, String descripcion, boolean disponible, Long idCategoria, String nombreCategoria) {
+        this(id, nombre, stock, precio, descripcion, disponible, new CategoriaResponseDTO(idCategoria, nombreCategoria));
+    }
+
+    // Constructor para las consultas JPQL con "select new"
+    public ProductoResponseDTO(Long id, String nombre, int stock, BigDecimal precio, String descripcion, boolean disponible,
+                               Long idCategoria, String nombreCategoria, long version, long versionCategoria) {
+        this(id, nombre, stock, precio, descripcion, disponible, new CategoriaResponseDTO(idCategoria, nombreCategoria, versionCategoria));
+        this.version = version;
+    }
+
     public ProductoResponseDTO() {
     }
 
@@ -81,4 +93,12 @@ public class ProductoResponseDTO {
     public void setDisponible(boolean disponible) {
         this.disponible = disponible;
     }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
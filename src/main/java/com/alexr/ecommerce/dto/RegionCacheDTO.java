@@ -0,0 +1,41 @@
+package com.alexr.ecommerce.dto;
+
+public class RegionCacheDTO {
+
+    private String region;
+    private long aciertos;
+    private long fallos;
+    private long inserciones;
+    private long elementosEnMemoria;
+
+    public RegionCacheDTO(String region, long aciertos, long fallos, long inserciones, long elementosEnMemoria) {
+        this.region = region;
+        this.aciertos = aciertos;
+        this.fallos = fallos;
+        this.inserciones = inserciones;
+        this.elementosEnMemoria = elementosEnMemoria;
+    }
+
+    public RegionCacheDTO() {
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public long getAciertos() {
+        return aciertos;
+    }
+
+    public long getFallos() {
+        return fallos;
+    }
+
+    public long getInserciones() {
+        return inserciones;
+    }
+
+    public long getElementosEnMemoria() {
+        return elementosEnMemoria;
+    }
+}
@@ -0,0 +1,41 @@
+package com.alexr.ecommerce.dto;
+
+public class ResultadoLoteDTO {
+
+    public enum Estado { CREADO, ACTUALIZADO, ELIMINADO, ERROR }
+
+    private int indice;
+    private Long id;
+    private Estado estado;
+    private String mensaje;
+
+    public ResultadoLoteDTO(int indice, Long id, Estado estado, String mensaje) {
+        this.indice = indice;
+        this.id = id;
+        this.estado = estado;
+        this.mensaje = mensaje;
+    }
+
+    public ResultadoLoteDTO() {
+    }
+
+    public static ResultadoLoteDTO error(int indice, Long id, String mensaje) {
+        return new ResultadoLoteDTO(indice, id, Estado.ERROR, mensaje);
+    }
+
+    public int getIndice() {
+        return indice;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Estado getEstado() {
+        return estado;
+    }
+
+    public String getMensaje() {
+        return mensaje;
+    }
+}
@@ -0,0 +1,26 @@
+package com.alexr.ecommerce.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public class StockRequestDTO {
+
+    @NotNull(message = "La cantidad es obligatoria")
+    @Min(value = 1, message = "La cantidad debe ser mayor que 0")
+    private Integer cantidad;
+
+    public StockRequestDTO(Integer cantidad) {
+        this.cantidad = cantidad;
+    }
+
+    public StockRequestDTO() {
+    }
+
+    public Integer getCantidad() {
+        return cantidad;
+    }
+
+    public void setCantidad(Integer cantidad) {
+        this.cantidad = cantidad;
+    }
+}
@@ -0,0 +1,32 @@
+package com.alexr.ecommerce.dto;
+
+import java.math.BigDecimal;
+
+// Tramo [desde, hasta) del histograma de precios
+public class TramoPrecioDTO {
+
+    private BigDecimal desde;
+    private BigDecimal hasta;
+    private long total;
+
+    public TramoPrecioDTO(BigDecimal desde, BigDecimal hasta, long total) {
+        this.desde = desde;
+        this.hasta = hasta;
+        this.total = total;
+    }
+
+    public TramoPrecioDTO() {
+    }
+
+    public BigDecimal getDesde() {
+        return desde;
+    }
+
+    public BigDecimal getHasta() {
+        return hasta;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+}
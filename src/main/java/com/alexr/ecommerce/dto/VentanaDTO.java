@@ -0,0 +1,41 @@
+package com.alexr.ecommerce.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+// Pagina de un listado por cursor: el cliente pide la siguiente con siguienteCursor
+public class VentanaDTO<T> {
+
+    private List<T> contenido;
+    private String siguienteCursor;
+    private boolean hayMas;
+
+    public VentanaDTO(List<T> contenido, String siguienteCursor, boolean hayMas) {
+        this.contenido = contenido;
+        this.siguienteCursor = siguienteCursor;
+        this.hayMas = hayMas;
+    }
+
+    public VentanaDTO() {
+    }
+
+    // filas trae un elemento de mas para saber si hay otra pagina sin hacer un count
+    public static <T> VentanaDTO<T> de(List<T> filas, int limite, Function<T, String> cursorDe) {
+        boolean hayMas = filas.size() > limite;
+        List<T> contenido = hayMas ? filas.subList(0, limite) : filas;
+        String siguiente = hayMas ? cursorDe.apply(contenido.get(contenido.size() - 1)) : null;
+        return new VentanaDTO<>(contenido, siguiente, hayMas);
+    }
+
+    public List<T> getContenido() {
+        return contenido;
+    }
+
+    public String getSiguienteCursor() {
+        return siguienteCursor;
+    }
+
+    public boolean isHayMas() {
+        return hayMas;
+    }
+}
@@ -0,0 +1,21 @@
+package com.alexr.ecommerce.event;
+
+// Se publica despues de guardar o borrar una categoria
+public class CategoriaModificadaEvent {
+
+    private final Long id;
+    private final TipoCambio tipo;
+
+    public CategoriaModificadaEvent(Long id, TipoCambio tipo) {
+        this.id = id;
+        this.tipo = tipo;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public TipoCambio getTipo() {
+        return tipo;
+    }
+}
@@ -0,0 +1,40 @@
+package com.alexr.ecommerce.event;
+
+import com.alexr.ecommerce.dto.ProductoResponseDTO;
+
+// Se publica despues de guardar o borrar un producto. producto es null cuando se ha eliminado y anterior (el
+// producto antes del cambio) en un alta, o cuando quien lo publica no lo conoce
+public class ProductoModificadoEvent {
+
+    private final Long id;
+    private final ProductoResponseDTO producto;
+    private final ProductoResponseDTO anterior;
+    private final TipoCambio tipo;
+
+    public ProductoModificadoEvent(Long id, ProductoResponseDTO producto, TipoCambio tipo) {
+        this(id, producto, null, tipo);
+    }
+
+    public ProductoModificadoEvent(Long id, ProductoResponseDTO producto, ProductoResponseDTO anterior, TipoCambio tipo) {
+        this.id = id;
+        this.producto = producto;
+        this.anterior = anterior;
+        this.tipo = tipo;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public ProductoResponseDTO getProducto() {
+        return producto;
+    }
+
+    public ProductoResponseDTO getAnterior() {
+        return anterior;
+    }
+
+    public TipoCambio getTipo() {
+        return tipo;
+    }
+}
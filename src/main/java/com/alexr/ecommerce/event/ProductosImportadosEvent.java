@@ -0,0 +1,20 @@
+package com.alexr.ecommerce.event;
+
+import com.alexr.ecommerce.dto.ProductoResponseDTO;
+
+import java.util.List;
+
+// Se publica despues de confirmar cada bloque de una importacion masiva (o un alta en lote): un solo evento por
+// bloque en vez de un ProductoModificadoEvent por producto
+public class ProductosImportadosEvent {
+
+    private final List<ProductoResponseDTO> productos;
+
+    public ProductosImportadosEvent(List<ProductoResponseDTO> productos) {
+        this.productos = productos;
+    }
+
+    public List<ProductoResponseDTO> getProductos() {
+        return productos;
+    }
+}
@@ -0,0 +1,29 @@
+package com.alexr.ecommerce.event;
+
+// Se publica despues de sumar o restar stock con un update condicional. Es mucho mas frecuente que
+// ProductoModificadoEvent y no cambia nombre, precio ni categoria: cambiaDisponible indica si el producto ha
+// pasado de disponible a agotado o al reves, que es lo unico que afecta a conteos y facetas
+public class StockModificadoEvent {
+
+    private final Long id;
+    private final int stock;
+    private final boolean cambiaDisponible;
+
+    public StockModificadoEvent(Long id, int stock, boolean cambiaDisponible) {
+        this.id = id;
+        this.stock = stock;
+        this.cambiaDisponible = cambiaDisponible;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public int getStock() {
+        return stock;
+    }
+
+    public boolean isCambiaDisponible() {
+        return cambiaDisponible;
+    }
+}
@@ -0,0 +1,7 @@
+package com.alexr.ecommerce.event;
+
+public enum TipoCambio {
+    CREADO,
+    ACTUALIZADO,
+    ELIMINADO
+}
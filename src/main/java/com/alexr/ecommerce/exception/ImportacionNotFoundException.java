@@ -0,0 +1,7 @@
+package com.alexr.ecommerce.exception;
+
+public class ImportacionNotFoundException extends ResourceNotFoundException {
+    public ImportacionNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.alexr.ecommerce.exception;
+
+public class LoteDemasiadoGrandeException extends RuntimeException {
+    public LoteDemasiadoGrandeException(String message) {
+        super(message);
+    }
+}
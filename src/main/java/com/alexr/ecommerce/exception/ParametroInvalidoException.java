@@ -0,0 +1,7 @@
+package com.alexr.ecommerce.exception;
+
+public class ParametroInvalidoException extends RuntimeException {
+    public ParametroInvalidoException(String message) {
+        super(message);
+    }
+}
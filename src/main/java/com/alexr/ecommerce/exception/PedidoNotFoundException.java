@@ -0,0 +1,7 @@
+package com.alexr.ecommerce.exception;
+
+public class PedidoNotFoundException extends ResourceNotFoundException {
+    public PedidoNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.alexr.ecommerce.exception;
+
+public class ProductoEnModoCalienteException extends RuntimeException {
+    public ProductoEnModoCalienteException(String message) {
+        super(message);
+    }
+}
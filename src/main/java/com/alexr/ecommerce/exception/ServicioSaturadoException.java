@@ -0,0 +1,7 @@
+package com.alexr.ecommerce.exception;
+
+public class ServicioSaturadoException extends RuntimeException {
+    public ServicioSaturadoException(String message) {
+        super(message);
+    }
+}
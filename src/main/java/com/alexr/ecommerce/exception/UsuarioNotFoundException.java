@@ -0,0 +1,7 @@
+package com.alexr.ecommerce.exception;
+
+public class UsuarioNotFoundException extends ResourceNotFoundException {
+    public UsuarioNotFoundException(String message) {
+        super(message);
+    }
+}
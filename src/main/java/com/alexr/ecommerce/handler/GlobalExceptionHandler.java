@@ -2,6 +2,8 @@ package com.alexr.ecommerce.handler;
 
 import com.alexr.ecommerce.dto.ErrorResponse;
 import com.alexr.ecommerce.exception.*;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -39,6 +41,36 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
     }
 
+    @ExceptionHandler(ImportacionNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleImportacionNotFound(ImportacionNotFoundException e){
+        ErrorResponse error = new ErrorResponse(
+                404,
+                e.getMessage(),
+                "Importacion no encontrada"
+        );
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+    }
+
+    @ExceptionHandler(PedidoNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handlePedidoNotFound(PedidoNotFoundException e){
+        ErrorResponse error = new ErrorResponse(
+                404,
+                e.getMessage(),
+                "Pedido no encontrado"
+        );
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+    }
+
+    @ExceptionHandler(UsuarioNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleUsuarioNotFound(UsuarioNotFoundException e){
+        ErrorResponse error = new ErrorResponse(
+                404,
+                e.getMessage(),
+                "Usuario no encontrado"
+        );
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+    }
+
     @ExceptionHandler(CategoriaConProductosException.class)
     public ResponseEntity<ErrorResponse> handleCategoriaConProductos(CategoriaConProductosException e){
         ErrorResponse error = new ErrorResponse(
@@ -50,6 +82,39 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
 
+    @ExceptionHandler(LoteDemasiadoGrandeException.class)
+    public ResponseEntity<ErrorResponse> handleLoteDemasiadoGrande(LoteDemasiadoGrandeException e){
+        ErrorResponse error = new ErrorResponse(
+                400,
+                e.getMessage(),
+                "Lote demasiado grande"
+        );
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    @ExceptionHandler(ParametroInvalidoException.class)
+    public ResponseEntity<ErrorResponse> handleParametroInvalido(ParametroInvalidoException e){
+        ErrorResponse error = new ErrorResponse(
+                400,
+                e.getMessage(),
+                "Parametro invalido"
+        );
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    @ExceptionHandler(PrecondicionFallidaException.class)
+    public ResponseEntity<ErrorResponse> handlePrecondicionFallida(PrecondicionFallidaException e){
+        ErrorResponse error = new ErrorResponse(
+                412,
+                e.getMessage(),
+                "Precondicion fallida"
+        );
+
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(error);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponse> handleValidation(MethodArgumentNotValidException ex) {
         Map<String, String> errores = new HashMap<>();
@@ -93,6 +158,40 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
     }
 
+    // Otra peticion ha modificado la misma fila entre la lectura y el guardado (@Version)
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLockingFailureException(OptimisticLockingFailureException e){
+        ErrorResponse error = new ErrorResponse(
+                409,
+                "El recurso ha sido modificado por otra petición; vuelve a cargarlo e inténtalo de nuevo",
+                "Conflicto de version"
+        );
+
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
+    @ExceptionHandler(StockInsuficienteException.class)
+    public ResponseEntity<ErrorResponse> handleStockInsuficienteException(StockInsuficienteException e){
+        ErrorResponse error = new ErrorResponse(
+                409,
+                e.getMessage(),
+                "Stock insuficiente"
+        );
+
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
+    @ExceptionHandler(ProductoEnModoCalienteException.class)
+    public ResponseEntity<ErrorResponse> handleProductoEnModoCalienteException(ProductoEnModoCalienteException e){
+        ErrorResponse error = new ErrorResponse(
+                409,
+                e.getMessage(),
+                "Producto en modo caliente"
+        );
+
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
     @ExceptionHandler(UsuarioNoRegistradoException.class)
     public ResponseEntity<ErrorResponse> handleUsuarioNoRegistradoException(UsuarioNoRegistradoException e){
         ErrorResponse error = new ErrorResponse(
@@ -114,5 +213,17 @@ public class GlobalExceptionHandler {
 
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
     }
-}
 
+    @ExceptionHandler(ServicioSaturadoException.class)
+    public ResponseEntity<ErrorResponse> handleServicioSaturadoException(ServicioSaturadoException e){
+        ErrorResponse error = new ErrorResponse(
+                503,
+                e.getMessage(),
+                "Servicio saturado"
+        );
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(error);
+    }
+}
@@ -8,7 +8,8 @@ public class CategoriaMapper {
     public static CategoriaResponseDTO toDTO(Categoria c){
         return new CategoriaResponseDTO(
                 c.getId(),
-                c.getNombre()
+                c.getNombre(),
+                c.getVersion()
         );
     }
 
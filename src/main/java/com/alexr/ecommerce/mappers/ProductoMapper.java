@@ -9,7 +9,7 @@ public class ProductoMapper {
 
     public static ProductoResponseDTO toDTO(Producto p){
 
-        return new ProductoResponseDTO(
+        ProductoResponseDTO dto = new ProductoResponseDTO(
             p.getId(),
             p.getNombre(),
             p.getStock(),
@@ -18,6 +18,8 @@ public class ProductoMapper {
             p.isDisponible(),
             CategoriaMapper.toDTO(p.getCategoria())
         );
+        dto.setVersion(p.getVersion());
+        return dto;
     }
 
     public static Producto toEntity(ProductoRequestDTO p, Categoria c){
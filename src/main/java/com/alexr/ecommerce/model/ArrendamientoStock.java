@@ -0,0 +1,67 @@
+package com.alexr.ecommerce.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+// Unidades que un producto en modo caliente ha sacado de producto.stock para venderlas desde memoria.
+// concedidas se resta de la fila del producto en la misma transaccion en que se suma aqui, y vendidas solo
+// cuenta ventas ya confirmadas al cliente, asi que concedidas - vendidas es siempre lo que se puede devolver
+@Entity
+@Table(name = "arrendamiento_stock", indexes = @Index(name = "idx_arrendamiento_stock_abierto", columnList = "abierto"))
+public class ArrendamientoStock {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+
+    @Column(nullable = false)
+    private long concedidas;
+
+    @Column(nullable = false)
+    private long vendidas;
+
+    // Se cierra al devolver lo que no se ha vendido
+    @Column(nullable = false)
+    private boolean abierto;
+
+    @Column(nullable = false)
+    private Instant creado;
+
+    // Constructores
+    public ArrendamientoStock() {}
+
+    public ArrendamientoStock(Long productoId) {
+        this.productoId = productoId;
+        this.abierto = true;
+        this.creado = Instant.now();
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public Long getProductoId() {
+        return productoId;
+    }
+
+    public long getConcedidas() {
+        return concedidas;
+    }
+
+    public long getVendidas() {
+        return vendidas;
+    }
+
+    public boolean isAbierto() {
+        return abierto;
+    }
+
+    public Instant getCreado() {
+        return creado;
+    }
+}
@@ -2,13 +2,19 @@ package com.alexr.ecommerce.model;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "categoria")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "categoria")
 public class Categoria {
 
+    // Igual que Producto: secuencia con reserva de ids para poder insertar en batch
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "categoria_seq")
+    @SequenceGenerator(name = "categoria_seq", sequenceName = "categoria_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -16,6 +22,10 @@ public class Categoria {
     @Size(min = 3, max = 200, message = "El nombre debe tener entre 3 y 200 caracteres")
     private String nombre;
 
+    // Control de concurrencia optimista; tambien sirve de ETag
+    @Version
+    private long version;
+
     // Constructores
     public Categoria() {}
 
@@ -39,4 +49,12 @@ public class Categoria {
     public void setNombre(String nombre) {
         this.nombre = nombre;
     }
-}
\ No newline at end of file
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
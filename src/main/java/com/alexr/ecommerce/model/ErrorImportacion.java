@@ -0,0 +1,51 @@
+package com.alexr.ecommerce.model;
+
+import jakarta.persistence.*;
+
+// Fila de un fichero de importacion que no se ha podido importar
+@Entity
+@Table(name = "importacion_error", indexes = @Index(name = "idx_importacion_error_job_fila", columnList = "job_id, fila"))
+public class ErrorImportacion {
+
+    // Se insertan por bloques con saveAll: secuencia para que vayan en batch
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "importacion_error_seq")
+    @SequenceGenerator(name = "importacion_error_seq", sequenceName = "importacion_error_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "job_id", nullable = false)
+    private Long jobId;
+
+    // Numero de fila de datos en el fichero, empezando en 1 (sin contar la cabecera CSV)
+    @Column(nullable = false)
+    private long fila;
+
+    @Column(nullable = false, length = 1000)
+    private String mensaje;
+
+    // Constructores
+    public ErrorImportacion() {}
+
+    public ErrorImportacion(Long jobId, long fila, String mensaje) {
+        this.jobId = jobId;
+        this.fila = fila;
+        this.mensaje = mensaje.length() > 1000 ? mensaje.substring(0, 1000) : mensaje;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public Long getJobId() {
+        return jobId;
+    }
+
+    public long getFila() {
+        return fila;
+    }
+
+    public String getMensaje() {
+        return mensaje;
+    }
+}
@@ -0,0 +1,5 @@
+package com.alexr.ecommerce.model;
+
+public enum EstadoImportacion {
+    PENDIENTE, EN_CURSO, COMPLETADA, FALLIDA
+}
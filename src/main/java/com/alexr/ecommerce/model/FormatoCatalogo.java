@@ -0,0 +1,30 @@
+package com.alexr.ecommerce.model;
+
+import com.alexr.ecommerce.exception.ParametroInvalidoException;
+
+// Formatos de fichero de la exportacion y la importacion del catalogo
+public enum FormatoCatalogo {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    FormatoCatalogo(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static FormatoCatalogo de(String formato) {
+        for (FormatoCatalogo f : values()) if (f.extension.equalsIgnoreCase(formato)) return f;
+        throw new ParametroInvalidoException("Formato no soportado: " + formato + " (ndjson o csv)");
+    }
+}
@@ -0,0 +1,129 @@
+package com.alexr.ecommerce.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+// Importacion masiva de productos desde un fichero. filasProcesadas solo avanza cuando se confirma un bloque,
+// asi que tambien es el punto desde el que se reanuda una importacion fallida
+@Entity
+@Table(name = "importacion_job")
+public class ImportacionJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private EstadoImportacion estado;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private FormatoCatalogo formato;
+
+    // Copia del fichero subido, en importacion.directorio
+    @Column(nullable = false)
+    private String fichero;
+
+    private String nombreOriginal;
+
+    @Column(nullable = false)
+    private long filasProcesadas;
+
+    @Column(nullable = false)
+    private long filasImportadas;
+
+    @Column(nullable = false)
+    private long filasConError;
+
+    // filasProcesadas al empezar la ejecucion actual, para calcular el ritmo de una importacion reanudada
+    @Column(nullable = false)
+    private long filasAlIniciar;
+
+    private Instant inicio;
+
+    private Instant fin;
+
+    @Column(length = 1000)
+    private String mensajeError;
+
+    // Constructores
+    public ImportacionJob() {}
+
+    public ImportacionJob(FormatoCatalogo formato, String fichero, String nombreOriginal) {
+        this.estado = EstadoImportacion.PENDIENTE;
+        this.formato = formato;
+        this.fichero = fichero;
+        this.nombreOriginal = nombreOriginal;
+    }
+
+    public void iniciar() {
+        estado = EstadoImportacion.EN_CURSO;
+        filasAlIniciar = filasProcesadas;
+        inicio = Instant.now();
+        fin = null;
+        mensajeError = null;
+    }
+
+    public void confirmarBloque(int procesadas, int importadas, int conError) {
+        filasProcesadas += procesadas;
+        filasImportadas += importadas;
+        filasConError += conError;
+    }
+
+    public void terminar(EstadoImportacion estado, String mensajeError) {
+        this.estado = estado;
+        this.fin = Instant.now();
+        this.mensajeError = mensajeError != null && mensajeError.length() > 1000 ? mensajeError.substring(0, 1000) : mensajeError;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public EstadoImportacion getEstado() {
+        return estado;
+    }
+
+    public FormatoCatalogo getFormato() {
+        return formato;
+    }
+
+    public String getFichero() {
+        return fichero;
+    }
+
+    public String getNombreOriginal() {
+        return nombreOriginal;
+    }
+
+    public long getFilasProcesadas() {
+        return filasProcesadas;
+    }
+
+    public long getFilasImportadas() {
+        return filasImportadas;
+    }
+
+    public long getFilasConError() {
+        return filasConError;
+    }
+
+    public long getFilasAlIniciar() {
+        return filasAlIniciar;
+    }
+
+    public Instant getInicio() {
+        return inicio;
+    }
+
+    public Instant getFin() {
+        return fin;
+    }
+
+    public String getMensajeError() {
+        return mensajeError;
+    }
+}
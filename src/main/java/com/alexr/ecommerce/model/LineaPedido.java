@@ -0,0 +1,74 @@
+package com.alexr.ecommerce.model;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+
+// Nombre y precio se copian del producto al comprar. producto_id no lleva clave ajena: la comprobacion de la
+// clave ajena pondria un bloqueo compartido sobre la fila del producto que el pedido ya tiene bloqueada para
+// escribir, y el pedido tiene que seguir existiendo aunque el producto se borre
+@Entity
+@Table(name = "pedido_linea", indexes = @Index(name = "idx_pedido_linea_pedido", columnList = "pedido_id"))
+public class LineaPedido {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pedido_linea_seq")
+    @SequenceGenerator(name = "pedido_linea_seq", sequenceName = "pedido_linea_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "pedido_id", nullable = false)
+    private Pedido pedido;
+
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+
+    @Column(nullable = false)
+    private String nombre;
+
+    @Column(nullable = false)
+    private int cantidad;
+
+    @Column(nullable = false)
+    private BigDecimal precioUnitario;
+
+    // Constructores
+    public LineaPedido() {}
+
+    LineaPedido(Pedido pedido, Long productoId, String nombre, int cantidad, BigDecimal precioUnitario) {
+        this.pedido = pedido;
+        this.productoId = productoId;
+        this.nombre = nombre;
+        this.cantidad = cantidad;
+        this.precioUnitario = precioUnitario;
+    }
+
+    public BigDecimal getSubtotal() {
+        return precioUnitario.multiply(BigDecimal.valueOf(cantidad));
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public Pedido getPedido() {
+        return pedido;
+    }
+
+    public Long getProductoId() {
+        return productoId;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public int getCantidad() {
+        return cantidad;
+    }
+
+    public BigDecimal getPrecioUnitario() {
+        return precioUnitario;
+    }
+}
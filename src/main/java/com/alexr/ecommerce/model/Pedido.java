@@ -0,0 +1,70 @@
+package com.alexr.ecommerce.model;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+// Pedido confirmado: el stock de sus lineas ya se ha restado en la misma transaccion en que se guarda
+@Entity
+@Table(name = "pedido", indexes = @Index(name = "idx_pedido_usuario", columnList = "usuario, id"))
+public class Pedido {
+
+    // Secuencia para que el pedido y sus lineas se inserten en batch
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pedido_seq")
+    @SequenceGenerator(name = "pedido_seq", sequenceName = "pedido_seq", allocationSize = 50)
+    private Long id;
+
+    // Nombre del usuario autenticado que hace el pedido
+    @Column(nullable = false)
+    private String usuario;
+
+    @Column(nullable = false)
+    private BigDecimal total;
+
+    @Column(nullable = false)
+    private Instant creado;
+
+    @OneToMany(mappedBy = "pedido", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("productoId")
+    private List<LineaPedido> lineas = new ArrayList<>();
+
+    // Constructores
+    public Pedido() {}
+
+    public Pedido(String usuario) {
+        this.usuario = usuario;
+        this.total = BigDecimal.ZERO;
+        this.creado = Instant.now();
+    }
+
+    public void anadirLinea(Long productoId, String nombre, int cantidad, BigDecimal precioUnitario) {
+        LineaPedido linea = new LineaPedido(this, productoId, nombre, cantidad, precioUnitario);
+        lineas.add(linea);
+        total = total.add(linea.getSubtotal());
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getUsuario() {
+        return usuario;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public Instant getCreado() {
+        return creado;
+    }
+
+    public List<LineaPedido> getLineas() {
+        return lineas;
+    }
+}
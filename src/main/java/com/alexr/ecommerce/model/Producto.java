@@ -2,14 +2,30 @@ package com.alexr.ecommerce.model;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "producto")
+@Table(name = "producto", indexes = {
+        @Index(name = "idx_producto_nombre", columnList = "nombre, id"),
+        @Index(name = "idx_producto_precio", columnList = "precio, id"),
+        // Listado filtrado: categoria y/o disponible por igualdad, precio por rango u orden
+        @Index(name = "idx_producto_categoria_disponible_precio", columnList = "categoria_id, disponible, precio"),
+        @Index(name = "idx_producto_categoria_precio", columnList = "categoria_id, precio"),
+        @Index(name = "idx_producto_disponible_precio", columnList = "disponible, precio"),
+        // Filtro por categoria (y disponible) con sort=id: sin el id en el indice acaba en un filesort
+        @Index(name = "idx_producto_categoria_id", columnList = "categoria_id, id")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "producto")
 public class Producto {
 
+    // Secuencia con reserva de 50 ids: con IDENTITY Hibernate no puede agrupar los insert en batches JDBC.
+    // En MySQL la secuencia es la tabla producto_seq (ver SecuenciasIniciales)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "producto_seq")
+    @SequenceGenerator(name = "producto_seq", sequenceName = "producto_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -32,11 +48,15 @@ public class Producto {
     @Column(nullable = false)
     private boolean disponible;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "categoria_id", nullable = false)
     @NotNull(message = "La categoría es obligatoria")
     private Categoria categoria;
 
+    // Control de concurrencia optimista; tambien sirve de ETag
+    @Version
+    private long version;
+
     // Constructores
     public Producto() {}
 
@@ -105,4 +125,12 @@ public class Producto {
     public void setCategoria(Categoria categoria) {
         this.categoria = categoria;
     }
-}
\ No newline at end of file
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,42 @@
+package com.alexr.ecommerce.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "token_revocado", indexes = @Index(name = "idx_token_revocado_expiracion", columnList = "expiracion"))
+public class TokenRevocado {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Huella de 64 bits del jti, no el token completo
+    @Column(nullable = false)
+    private long huella;
+
+    @Column(nullable = false)
+    private Instant expiracion;
+
+    // Constructores
+    public TokenRevocado() {}
+
+    public TokenRevocado(long huella, Instant expiracion) {
+        this.huella = huella;
+        this.expiracion = expiracion;
+    }
+
+    // Getters y Setters
+    public Long getId() {
+        return id;
+    }
+
+    public long getHuella() {
+        return huella;
+    }
+
+    public Instant getExpiracion() {
+        return expiracion;
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
 
@@ -34,6 +35,10 @@ public class Usuario implements UserDetails {
     @Enumerated(EnumType.STRING)
     private Rol rol;
 
+    // Los tokens emitidos hasta este instante (incluido) se consideran revocados. Se guarda con milisegundos y se
+    // compara con el claim iatMs del token: un token emitido justo despues en el mismo segundo sigue siendo valido
+    private Instant tokensRevocadosHasta;
+
     public Usuario(){}
 
     public Usuario(String nombre, String password, Rol rol) {
@@ -83,4 +88,12 @@ public class Usuario implements UserDetails {
     public void setRol(Rol rol) {
         this.rol = rol;
     }
+
+    public Instant getTokensRevocadosHasta() {
+        return tokensRevocadosHasta;
+    }
+
+    public void setTokensRevocadosHasta(Instant tokensRevocadosHasta) {
+        this.tokensRevocadosHasta = tokensRevocadosHasta;
+    }
 }
@@ -0,0 +1,33 @@
+package com.alexr.ecommerce.repository;
+
+import com.alexr.ecommerce.model.ArrendamientoStock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface ArrendamientoStockRepository extends JpaRepository<ArrendamientoStock, Long> {
+
+    List<ArrendamientoStock> findByAbiertoTrue();
+
+    @Modifying
+    @Transactional
+    @Query("update ArrendamientoStock a set a.concedidas = a.concedidas + :unidades where a.id = :id and a.abierto = true")
+    int ampliar(@Param("id") Long id, @Param("unidades") long unidades);
+
+    // Un update por tanda de ventas, no por venta
+    @Modifying
+    @Transactional
+    @Query("update ArrendamientoStock a set a.vendidas = a.vendidas + :unidades where a.id = :id")
+    int confirmarVentas(@Param("id") Long id, @Param("unidades") long unidades);
+
+    @Modifying
+    @Transactional
+    @Query("update ArrendamientoStock a set a.abierto = false where a.id = :id and a.abierto = true")
+    int cerrar(@Param("id") Long id);
+}
@@ -1,10 +1,51 @@
 package com.alexr.ecommerce.repository;
 
 
+import com.alexr.ecommerce.dto.CategoriaResponseDTO;
 import com.alexr.ecommerce.model.Categoria;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
-public interface CategoriaRepository extends JpaRepository<Categoria, Long> {
+public interface CategoriaRepository extends JpaRepository<Categoria, Long>, CategoriaRepositoryCustom {
+
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Page<Categoria> findAll(Pageable pageable);
+
+    // Para comprobar categorias en memoria durante una importacion
+    @Query("select c.id from Categoria c")
+    List<Long> findAllIds();
+
+    @Query("select c.version from Categoria c where c.id = :id")
+    Optional<Long> findVersion(@Param("id") Long id);
+
+    // Listado sin count, igual que ProductoRepository.findAllProyectado
+    @Query("select new com.alexr.ecommerce.dto.CategoriaResponseDTO(c.id, c.nombre, c.version) from Categoria c")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Slice<CategoriaResponseDTO> findAllProyectadas(Pageable pageable);
+
+    @Query("select new com.alexr.ecommerce.dto.CategoriaResponseDTO(c.id, c.nombre, c.version) from Categoria c order by c.id")
+    List<CategoriaResponseDTO> findPrimerasPorId(Pageable limite);
+
+    @Query("select new com.alexr.ecommerce.dto.CategoriaResponseDTO(c.id, c.nombre, c.version) from Categoria c where c.id > :id order by c.id")
+    List<CategoriaResponseDTO> findSiguientesPorId(@Param("id") Long id, Pageable limite);
+
+    // nombre es unico, no hace falta desempatar por id
+    @Query("select new com.alexr.ecommerce.dto.CategoriaResponseDTO(c.id, c.nombre, c.version) from Categoria c order by c.nombre")
+    List<CategoriaResponseDTO> findPrimerasPorNombre(Pageable limite);
+
+    @Query("select new com.alexr.ecommerce.dto.CategoriaResponseDTO(c.id, c.nombre, c.version) from Categoria c where c.nombre > :nombre order by c.nombre")
+    List<CategoriaResponseDTO> findSiguientesPorNombre(@Param("nombre") String nombre, Pageable limite);
 }
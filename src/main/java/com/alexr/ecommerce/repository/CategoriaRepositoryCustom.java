@@ -0,0 +1,19 @@
+package com.alexr.ecommerce.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+public interface CategoriaRepositoryCustom {
+
+    // Campos que admite ?fields=, en el orden en que salen en el JSON
+    List<String> CAMPOS = List.of("id", "nombre", "version");
+
+    Slice<Map<String, Object>> findCampos(Set<String> campos, Pageable pageable);
+
+    Optional<Map<String, Object>> findCamposById(Long id, Set<String> campos);
+}
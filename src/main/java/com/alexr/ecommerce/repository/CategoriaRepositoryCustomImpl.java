@@ -0,0 +1,32 @@
+package com.alexr.ecommerce.repository;
+
+import com.alexr.ecommerce.model.Categoria;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+public class CategoriaRepositoryCustomImpl implements CategoriaRepositoryCustom {
+
+    private static final ProyeccionCampos<Categoria> PROYECCION = new ProyeccionCampos<>(Categoria.class)
+            .campo("id")
+            .campo("nombre")
+            .campo("version");
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public Slice<Map<String, Object>> findCampos(Set<String> campos, Pageable pageable) {
+        return PROYECCION.slice(em, campos, pageable);
+    }
+
+    @Override
+    public Optional<Map<String, Object>> findCamposById(Long id, Set<String> campos) {
+        return PROYECCION.porId(em, campos, id);
+    }
+}
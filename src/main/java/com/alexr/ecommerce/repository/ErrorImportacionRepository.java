@@ -0,0 +1,13 @@
+package com.alexr.ecommerce.repository;
+
+import com.alexr.ecommerce.model.ErrorImportacion;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ErrorImportacionRepository extends JpaRepository<ErrorImportacion, Long> {
+
+    Page<ErrorImportacion> findByJobIdOrderByFila(Long jobId, Pageable pageable);
+}
@@ -0,0 +1,11 @@
+package com.alexr.ecommerce.repository;
+
+// Stock de un producto justo despues de moverlo, sin cargar la entidad
+public interface EstadoStock {
+
+    int getStock();
+
+    boolean isDisponible();
+
+    long getVersion();
+}
@@ -0,0 +1,33 @@
+package com.alexr.ecommerce.repository;
+
+// Una fila del GROUP BY de facetas: cuantos productos hay por (categoria, disponible, tramo de precio)
+public class GrupoFaceta {
+
+    private final Long idCategoria;
+    private final boolean disponible;
+    private final long tramo;
+    private final long total;
+
+    public GrupoFaceta(Long idCategoria, Boolean disponible, Number tramo, Long total) {
+        this.idCategoria = idCategoria;
+        this.disponible = disponible;
+        this.tramo = tramo.longValue();
+        this.total = total;
+    }
+
+    public Long getIdCategoria() {
+        return idCategoria;
+    }
+
+    public boolean isDisponible() {
+        return disponible;
+    }
+
+    public long getTramo() {
+        return tramo;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+}
@@ -0,0 +1,31 @@
+package com.alexr.ecommerce.repository;
+
+import com.alexr.ecommerce.model.EstadoImportacion;
+import com.alexr.ecommerce.model.ImportacionJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface ImportacionJobRepository extends JpaRepository<ImportacionJob, Long> {
+
+    // Cambio de estado condicional: si dos peticiones intentan reanudar a la vez, solo una lo consigue
+    @Modifying
+    @Transactional
+    @Query("update ImportacionJob j set j.estado = :nuevo where j.id = :id and j.estado = :actual")
+    int cambiarEstado(@Param("id") Long id, @Param("actual") EstadoImportacion actual, @Param("nuevo") EstadoImportacion nuevo);
+
+    @Query("select j.id from ImportacionJob j where j.estado = :estado order by j.id")
+    List<Long> findIdsByEstado(@Param("estado") EstadoImportacion estado);
+
+    @Modifying
+    @Transactional
+    @Query("update ImportacionJob j set j.estado = :nuevo, j.mensajeError = :mensaje where j.estado = :actual")
+    int cambiarEstadoDeTodas(@Param("actual") EstadoImportacion actual, @Param("nuevo") EstadoImportacion nuevo,
+                             @Param("mensaje") String mensaje);
+}
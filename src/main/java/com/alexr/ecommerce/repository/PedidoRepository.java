@@ -0,0 +1,16 @@
+package com.alexr.ecommerce.repository;
+
+import com.alexr.ecommerce.model.Pedido;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface PedidoRepository extends JpaRepository<Pedido, Long> {
+
+    // Cada usuario solo ve sus pedidos
+    @EntityGraph(attributePaths = "lineas")
+    Optional<Pedido> findByIdAndUsuario(Long id, String usuario);
+}
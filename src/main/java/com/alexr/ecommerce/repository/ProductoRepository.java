@@ -1,13 +1,75 @@
 package com.alexr.ecommerce.repository;
 
+import com.alexr.ecommerce.dto.ProductoResponseDTO;
 import com.alexr.ecommerce.model.Producto;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface ProductoRepository extends JpaRepository<Producto, Long> {
+public interface ProductoRepository extends JpaRepository<Producto, Long>, JpaSpecificationExecutor<Producto>,
+        ProductoRepositoryCustom {
+
+    String SELECT_DTO = "select new com.alexr.ecommerce.dto.ProductoResponseDTO("
+            + "p.id, p.nombre, p.stock, p.precio, p.descripcion, p.disponible, c.id, c.nombre, p.version, c.version) "
+            + "from Producto p join p.categoria c";
+
+    @Override
+    @EntityGraph(attributePaths = "categoria")
+    Optional<Producto> findById(Long id);
+
+    // Listado en una sola consulta, sin cargar entidades ni hacer count: pide size + 1 filas para saber si hay mas
+    @Query(SELECT_DTO)
+    // Region propia con expiracion corta: los cambios de stock van por JDBC (ProductoStockRepository) y no la invalidan
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "producto-listado")})
+    Slice<ProductoResponseDTO> findAllProyectado(Pageable pageable);
+
+    // Paginacion por keyset: la pagina N cuesta lo mismo que la primera. El Pageable solo aporta el limite
+    @Query(SELECT_DTO + " order by p.id")
+    List<ProductoResponseDTO> findPrimerosPorId(Pageable limite);
+
+    @Query(SELECT_DTO + " where p.id > :id order by p.id")
+    List<ProductoResponseDTO> findSiguientesPorId(@Param("id") Long id, Pageable limite);
+
+    @Query(SELECT_DTO + " order by p.nombre, p.id")
+    List<ProductoResponseDTO> findPrimerosPorNombre(Pageable limite);
+
+    @Query(SELECT_DTO + " where p.nombre > :nombre or (p.nombre = :nombre and p.id > :id) order by p.nombre, p.id")
+    List<ProductoResponseDTO> findSiguientesPorNombre(@Param("nombre") String nombre, @Param("id") Long id, Pageable limite);
+
+    @Query(SELECT_DTO + " order by p.precio, p.id")
+    List<ProductoResponseDTO> findPrimerosPorPrecio(Pageable limite);
+
+    @Query(SELECT_DTO + " where p.precio > :precio or (p.precio = :precio and p.id > :id) order by p.precio, p.id")
+    List<ProductoResponseDTO> findSiguientesPorPrecio(@Param("precio") BigDecimal precio, @Param("id") Long id, Pageable limite);
+
+    // Lo justo para comprobar un ETag sin cargar el producto
+    @Query("select p.version as version, c.version as versionCategoria from Producto p join p.categoria c where p.id = :id")
+    Optional<VersionProducto> findVersion(@Param("id") Long id);
+
+    @Query(SELECT_DTO + " where p.id in :ids")
+    List<ProductoResponseDTO> findProyectadosByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Carga del buscador por bloques de id
+    @Query("select p.id as id, p.nombre as nombre, p.descripcion as descripcion from Producto p where p.id > :id order by p.id")
+    List<TextoProducto> findTextos(@Param("id") Long desdeId, Pageable limite);
 
     long countByCategoria_Id(Long id);
+
+    @Query("select p.stock as stock, p.disponible as disponible, p.version as version from Producto p where p.id = :id")
+    Optional<EstadoStock> findEstadoStock(@Param("id") Long id);
 }
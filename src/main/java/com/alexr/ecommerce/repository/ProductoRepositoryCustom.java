@@ -0,0 +1,25 @@
+package com.alexr.ecommerce.repository;
+
+import com.alexr.ecommerce.model.Producto;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+// Consultas que no se pueden expresar con metodos derivados ni @Query
+public interface ProductoRepositoryCustom {
+
+    // Campos que admite ?fields=, en el orden en que salen en el JSON
+    List<String> CAMPOS = List.of("id", "nombre", "stock", "precio", "descripcion", "disponible", "categoria", "version");
+
+    List<GrupoFaceta> contarGrupos(Specification<Producto> spec, BigDecimal anchoTramo);
+
+    Slice<Map<String, Object>> findCampos(Set<String> campos, Pageable pageable);
+
+    Optional<Map<String, Object>> findCamposById(Long id, Set<String> campos);
+}
@@ -0,0 +1,66 @@
+package com.alexr.ecommerce.repository;
+
+import com.alexr.ecommerce.model.Producto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+public class ProductoRepositoryCustomImpl implements ProductoRepositoryCustom {
+
+    // Un campo por cada uno de CAMPOS; categoria es el unico que necesita join
+    private static final ProyeccionCampos<Producto> PROYECCION = new ProyeccionCampos<>(Producto.class)
+            .campo("id")
+            .campo("nombre")
+            .campo("stock")
+            .campo("precio")
+            .campo("descripcion")
+            .campo("disponible")
+            .campo("categoria", "categoria.id", "categoria.nombre")
+            .campo("version");
+
+    @PersistenceContext
+    private EntityManager em;
+
+    // Un solo GROUP BY sobre producto, sin join: categoria_id, disponible y precio estan en el indice
+    // (categoria_id, disponible, precio), asi que la base de datos no necesita leer las filas
+    @Override
+    public List<GrupoFaceta> contarGrupos(Specification<Producto> spec, BigDecimal anchoTramo) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<GrupoFaceta> cq = cb.createQuery(GrupoFaceta.class);
+        Root<Producto> p = cq.from(Producto.class);
+
+        Path<Long> categoria = p.get("categoria").get("id");
+        Path<Boolean> disponible = p.get("disponible");
+        Expression<Number> tramo = cb.floor(cb.quot(p.<BigDecimal>get("precio"), anchoTramo));
+
+        cq.select(cb.construct(GrupoFaceta.class, categoria, disponible, tramo, cb.count(p)));
+        Predicate filtro = spec.toPredicate(p, cq, cb);
+        if (filtro != null) cq.where(filtro);
+        cq.groupBy(categoria, disponible, tramo);
+        return em.createQuery(cq).getResultList();
+    }
+
+    @Override
+    public Slice<Map<String, Object>> findCampos(Set<String> campos, Pageable pageable) {
+        return PROYECCION.slice(em, campos, pageable);
+    }
+
+    @Override
+    public Optional<Map<String, Object>> findCamposById(Long id, Set<String> campos) {
+        return PROYECCION.porId(em, campos, id);
+    }
+}
@@ -0,0 +1,29 @@
+package com.alexr.ecommerce.repository;
+
+import com.alexr.ecommerce.dto.FiltroProductoDTO;
+import com.alexr.ecommerce.model.Producto;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class ProductoSpecifications {
+
+    private ProductoSpecifications() {
+    }
+
+    // categoria.id se resuelve con la columna categoria_id, sin join. Ordenando por precio, los indices de Producto
+    // cubren cualquier combinacion de estos filtros. Ordenando por id, categoria y disponible van por
+    // (categoria_id, id) o por la clave primaria; con precioMin o precioMax se ordenan en memoria las filas del rango
+    public static Specification<Producto> filtro(FiltroProductoDTO f) {
+        return (root, query, cb) -> {
+            List<Predicate> predicados = new ArrayList<>();
+            if (f.getCategoria() != null) predicados.add(cb.equal(root.get("categoria").get("id"), f.getCategoria()));
+            if (f.getDisponible() != null) predicados.add(cb.equal(root.get("disponible"), f.getDisponible()));
+            if (f.getPrecioMin() != null) predicados.add(cb.greaterThanOrEqualTo(root.get("precio"), f.getPrecioMin()));
+            if (f.getPrecioMax() != null) predicados.add(cb.lessThanOrEqualTo(root.get("precio"), f.getPrecioMax()));
+            return cb.and(predicados.toArray(new Predicate[0]));
+        };
+    }
+}
@@ -0,0 +1,100 @@
+package com.alexr.ecommerce.repository;
+
+import com.alexr.ecommerce.model.Producto;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Collections;
+
+// Cambios de stock de una sola fila con SQL nativo por JdbcTemplate. Un update masivo JPQL (@Modifying) hace que
+// Hibernate invalide la region "producto" entera y la cache de consultas en cada compra; por JDBC Hibernate no se
+// entera y solo se quita de la cache de segundo nivel el producto modificado, despues del commit si hay
+// transaccion. Los listados cacheados no se invalidan: su stock puede ir unos segundos por detras (region
+// producto-listado en application.conf). disponible va antes que stock porque MySQL aplica el set de izquierda
+// a derecha y tiene que ver el stock anterior. Todos suben la version para que el ETag del producto cambie.
+// Las bajas por lote tambien pasan por aqui (eliminar)
+@Repository
+public class ProductoStockRepository {
+
+    private static final String DECREMENTAR = "update producto set disponible = stock > ?, stock = stock - ?, "
+            + "version = version + 1 where id = ? and stock >= ?";
+
+    private static final String INCREMENTAR =
+            "update producto set disponible = true, stock = stock + ?, version = version + 1 where id = ?";
+
+    // Modo caliente: las unidades pasan a un ArrendamientoStock. disponible no cambia, porque se siguen vendiendo.
+    // Solo si la fila sigue en la version leida: si no, el que arrienda vuelve a leerla (ReintentoOptimista)
+    private static final String ARRENDAR =
+            "update producto set stock = stock - ?, version = version + 1 where id = ? and version = ? and stock >= ?";
+
+    // Cuando ya no queda stock ni en la fila ni en memoria
+    private static final String MARCAR_AGOTADO = "update producto set disponible = false, version = version + 1 "
+            + "where id = ? and stock = 0 and disponible = true";
+
+    // Region de consultas de ProductoRepository.findAllBy: tras una baja no puede seguir devolviendo ids borrados
+    private static final String REGION_LISTADO = "producto-listado";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SessionFactory sessionFactory;
+
+    public ProductoStockRepository(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    // Resta solo si hay stock suficiente: la comprobacion y el cambio van en el mismo update
+    public int decrementar(Long id, int cantidad) {
+        return desalojar(id, jdbcTemplate.update(DECREMENTAR, cantidad, cantidad, id, cantidad));
+    }
+
+    public int incrementar(Long id, int cantidad) {
+        return desalojar(id, jdbcTemplate.update(INCREMENTAR, cantidad, id));
+    }
+
+    public int arrendar(Long id, long version, int cantidad) {
+        return desalojar(id, jdbcTemplate.update(ARRENDAR, cantidad, id, version, cantidad));
+    }
+
+    public int marcarAgotado(Long id) {
+        return desalojar(id, jdbcTemplate.update(MARCAR_AGOTADO, id));
+    }
+
+    // Un solo delete ... where id in (...). deleteAllByIdInBatch es un delete JPQL y vaciaria la region producto y
+    // la cache de consultas enteras; aqui solo salen los borrados y los listados cacheados, que caducan enseguida
+    public int eliminar(Collection<Long> ids) {
+        if (ids.isEmpty()) return 0;
+        String sql = "delete from producto where id in (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+        int filas = jdbcTemplate.update(sql, ids.toArray());
+        if (filas == 0) return 0;
+        despuesDelCommit(() -> {
+            ids.forEach(id -> sessionFactory.getCache().evictEntityData(Producto.class, id));
+            sessionFactory.getCache().evictQueryRegion(REGION_LISTADO);
+        });
+        return filas;
+    }
+
+    // Dentro de una transaccion se quita al confirmar: antes, otra peticion podria volver a cargar el stock anterior
+    private int desalojar(Long id, int filas) {
+        if (filas == 0) return 0;
+        despuesDelCommit(() -> sessionFactory.getCache().evictEntityData(Producto.class, id));
+        return filas;
+    }
+
+    private static void despuesDelCommit(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.alexr.ecommerce.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+// Select con solo las columnas pedidas en ?fields=. Cada campo de la API se traduce a uno o varios atributos;
+// un atributo "asociacion.atributo" hace join con la asociacion (solo si se pide) y sale anidado en la fila
+final class ProyeccionCampos<T> {
+
+    private final Class<T> entidad;
+    private final Map<String, List<String>> atributos = new HashMap<>();
+
+    ProyeccionCampos(Class<T> entidad) {
+        this.entidad = entidad;
+    }
+
+    ProyeccionCampos<T> campo(String campo, String... rutas) {
+        atributos.put(campo, rutas.length == 0 ? List.of(campo) : List.of(rutas));
+        return this;
+    }
+
+    // Igual que los Slice de @Query: pide size + 1 filas para saber si hay mas, sin count
+    Slice<Map<String, Object>> slice(EntityManager em, Set<String> campos, Pageable pageable) {
+        List<Map<String, Object>> filas = consultar(em, campos, null, pageable);
+        if (pageable.isUnpaged()) return new SliceImpl<>(filas, pageable, false);
+
+        boolean hayMas = filas.size() > pageable.getPageSize();
+        return new SliceImpl<>(hayMas ? filas.subList(0, pageable.getPageSize()) : filas, pageable, hayMas);
+    }
+
+    Optional<Map<String, Object>> porId(EntityManager em, Set<String> campos, Object id) {
+        return consultar(em, campos, id, Pageable.unpaged()).stream().findFirst();
+    }
+
+    private List<Map<String, Object>> consultar(EntityManager em, Set<String> campos, Object id, Pageable pageable) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<T> raiz = cq.from(entidad);
+
+        List<String> rutas = new ArrayList<>();
+        for (String campo : campos) rutas.addAll(atributos.get(campo));
+        Map<String, Join<T, ?>> joins = new HashMap<>();
+        List<Selection<?>> columnas = new ArrayList<>(rutas.size());
+        for (String ruta : rutas) columnas.add(ruta(raiz, joins, ruta));
+
+        cq.multiselect(columnas);
+        if (id != null) cq.where(cb.equal(raiz.get("id"), id));
+        if (pageable.getSort().isSorted()) cq.orderBy(QueryUtils.toOrders(pageable.getSort(), raiz, cb));
+
+        TypedQuery<Tuple> query = em.createQuery(cq);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize() + 1);
+        }
+
+        List<Tuple> tuplas = query.getResultList();
+        List<Map<String, Object>> filas = new ArrayList<>(tuplas.size());
+        for (Tuple t : tuplas) {
+            Map<String, Object> fila = new LinkedHashMap<>();
+            for (int i = 0; i < rutas.size(); i++) poner(fila, rutas.get(i), t.get(i));
+            filas.add(fila);
+        }
+        return filas;
+    }
+
+    private static <T> Path<?> ruta(Root<T> raiz, Map<String, Join<T, ?>> joins, String ruta) {
+        int punto = ruta.indexOf('.');
+        if (punto < 0) return raiz.get(ruta);
+        return joins.computeIfAbsent(ruta.substring(0, punto), raiz::join).get(ruta.substring(punto + 1));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void poner(Map<String, Object> fila, String ruta, Object valor) {
+        int punto = ruta.indexOf('.');
+        if (punto < 0) {
+            fila.put(ruta, valor);
+            return;
+        }
+        Map<String, Object> anidado = (Map<String, Object>) fila.computeIfAbsent(ruta.substring(0, punto),
+                k -> new LinkedHashMap<String, Object>());
+        anidado.put(ruta.substring(punto + 1), valor);
+    }
+}
@@ -0,0 +1,10 @@
+package com.alexr.ecommerce.repository;
+
+import java.time.Instant;
+
+public interface RevocacionUsuario {
+
+    Long getId();
+
+    Instant getTokensRevocadosHasta();
+}
@@ -0,0 +1,11 @@
+package com.alexr.ecommerce.repository;
+
+// Solo los campos que indexa el buscador
+public interface TextoProducto {
+
+    Long getId();
+
+    String getNombre();
+
+    String getDescripcion();
+}
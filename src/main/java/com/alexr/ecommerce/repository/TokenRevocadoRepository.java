@@ -0,0 +1,23 @@
+package com.alexr.ecommerce.repository;
+
+import com.alexr.ecommerce.model.TokenRevocado;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface TokenRevocadoRepository extends JpaRepository<TokenRevocado, Long> {
+
+    List<TokenRevocado> findByExpiracionAfter(Instant instante);
+
+    @Modifying
+    @Transactional
+    @Query("delete from TokenRevocado t where t.expiracion <= :instante")
+    int borrarCaducados(@Param("instante") Instant instante);
+}
@@ -2,12 +2,30 @@ package com.alexr.ecommerce.repository;
 
 import com.alexr.ecommerce.model.Usuario;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
 
     Optional<Usuario> findByNombre(String nombre);
 
     boolean existsByNombre(String nombre);
+
+    @Query("select u.nombre from Usuario u where u.nombre in :nombres")
+    Set<String> findNombresExistentes(@Param("nombres") Collection<String> nombres);
+
+    List<RevocacionUsuario> findByTokensRevocadosHastaAfter(Instant instante);
+
+    @Modifying
+    @Transactional
+    @Query("update Usuario u set u.tokensRevocadosHasta = :hasta where u.id = :id")
+    int revocarTokens(@Param("id") Long id, @Param("hasta") Instant hasta);
 }
@@ -0,0 +1,9 @@
+package com.alexr.ecommerce.repository;
+
+// La respuesta de un producto incluye su categoria, asi que su ETag depende de ambas versiones
+public interface VersionProducto {
+
+    long getVersion();
+
+    long getVersionCategoria();
+}
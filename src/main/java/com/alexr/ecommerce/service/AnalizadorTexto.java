@@ -0,0 +1,54 @@
+package com.alexr.ecommerce.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+// Convierte texto en terminos para el buscador: minusculas, sin tildes, sin palabras vacias y con
+// el plural reducido al singular. Indexacion y consulta deben pasar por aqui para que coincidan.
+final class AnalizadorTexto {
+
+    // Ya sin tildes, que se quitan antes de comprobarlas
+    private static final Set<String> PALABRAS_VACIAS = Set.of(
+            "a", "al", "algo", "ante", "como", "con", "contra", "cual", "de", "del", "desde", "donde", "e", "el",
+            "ella", "ellos", "en", "entre", "es", "esta", "este", "esto", "estos", "ha", "hay", "la", "las", "le",
+            "lo", "los", "mas", "me", "mi", "muy", "ni", "no", "o", "os", "para", "pero", "por", "que", "se", "sin",
+            "sobre", "son", "su", "sus", "te", "tambien", "tu", "u", "un", "una", "unas", "unos", "y", "ya");
+
+    private AnalizadorTexto() {
+    }
+
+    static List<String> terminos(String texto) {
+        List<String> terminos = new ArrayList<>();
+        if (texto == null || texto.isBlank()) return terminos;
+
+        String plano = Normalizer.normalize(texto.toLowerCase(), Normalizer.Form.NFD);
+        StringBuilder actual = new StringBuilder();
+        for (int i = 0; i <= plano.length(); i++) {
+            char ch = i < plano.length() ? plano.charAt(i) : ' ';
+            if (Character.getType(ch) == Character.NON_SPACING_MARK) continue;
+            if (Character.isLetterOrDigit(ch)) {
+                actual.append(ch);
+            } else if (!actual.isEmpty()) {
+                String palabra = actual.toString();
+                if (!PALABRAS_VACIAS.contains(palabra)) terminos.add(singular(palabra));
+                actual.setLength(0);
+            }
+        }
+        return terminos;
+    }
+
+    // Reglas basicas del plural en castellano: luces -> luz, portatiles -> portatil, coches -> coche
+    static String singular(String palabra) {
+        int n = palabra.length();
+        if (n <= 3 || palabra.charAt(n - 1) != 's' || Character.isDigit(palabra.charAt(0))) return palabra;
+        if (n > 4 && palabra.endsWith("ces") && esVocal(palabra.charAt(n - 4))) return palabra.substring(0, n - 3) + "z";
+        if (n > 4 && palabra.endsWith("es") && "lrndjy".indexOf(palabra.charAt(n - 3)) >= 0) return palabra.substring(0, n - 2);
+        return palabra.substring(0, n - 1);
+    }
+
+    private static boolean esVocal(char ch) {
+        return ch == 'a' || ch == 'e' || ch == 'i' || ch == 'o' || ch == 'u';
+    }
+}
@@ -0,0 +1,327 @@
+package com.alexr.ecommerce.service;
+
+import com.alexr.ecommerce.dto.ProductoResponseDTO;
+import com.alexr.ecommerce.event.ProductoModificadoEvent;
+import com.alexr.ecommerce.event.ProductosImportadosEvent;
+import com.alexr.ecommerce.event.TipoCambio;
+import com.alexr.ecommerce.repository.ProductoRepository;
+import com.alexr.ecommerce.repository.TextoProducto;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Indice invertido en memoria sobre nombre y descripcion de los productos, ordenado por BM25.
+// Cada producto ocupa un hueco (slot); las listas de cada termino guardan slots en orden creciente, asi que
+// una consulta recorre las listas de sus terminos a la vez sin ordenar nada. Al modificar un producto su
+// hueco viejo se marca como muerto y se indexa en uno nuevo; cuando hay demasiados muertos se compacta en memoria.
+@Service
+public class BuscadorProductos {
+
+    // Una aparicion en el nombre pesa como tres en la descripcion
+    private static final int PESO_NOMBRE = 3;
+    private static final int PESO_DESCRIPCION = 1;
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int BLOQUE_CARGA = 5000;
+    private static final int MIN_MUERTOS_COMPACTAR = 1024;
+
+    static final Comparator<Resultado> RANKING =
+            Comparator.comparingDouble((Resultado r) -> -r.score).thenComparingLong(r -> r.id);
+
+    private final ProductoRepository repoP;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Todo lo siguiente se protege con lock
+    private final Map<String, Postings> indice = new HashMap<>();
+    private final Map<Long, Integer> slotPorId = new HashMap<>();
+    private long[] idPorSlot = new long[1024];
+    private int[] longitudPorSlot = new int[1024];
+    private BitSet vivos = new BitSet();
+    private int siguienteSlot;
+    private int totalVivos;
+    private long sumaLongitudes;
+
+    // Ids modificados por eventos mientras se hace la carga inicial: la carga no debe pisarlos
+    private Set<Long> tocadosDuranteCarga;
+
+    public BuscadorProductos(ProductoRepository repoP) {
+        this.repoP = repoP;
+    }
+
+    // Se carga con la aplicacion ya levantada; mientras tanto las busquedas devuelven resultados parciales
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        escribir(() -> tocadosDuranteCarga = new HashSet<>());
+        long desde = 0;
+        List<TextoProducto> bloque;
+        do {
+            bloque = repoP.findTextos(desde, PageRequest.of(0, BLOQUE_CARGA));
+            List<TextoProducto> filas = bloque;
+            escribir(() -> {
+                for (TextoProducto t : filas) {
+                    if (!tocadosDuranteCarga.contains(t.getId()) && !slotPorId.containsKey(t.getId()))
+                        anadir(t.getId(), pesos(t.getNombre(), t.getDescripcion()));
+                }
+            });
+            if (!bloque.isEmpty()) desde = bloque.get(bloque.size() - 1).getId();
+        } while (bloque.size() == BLOQUE_CARGA);
+        escribir(() -> tocadosDuranteCarga = null);
+    }
+
+    @EventListener
+    public void alModificarProducto(ProductoModificadoEvent e) {
+        if (e.getTipo() == TipoCambio.ELIMINADO) eliminar(e.getId());
+        else indexar(e.getId(), e.getProducto().getNombre(), e.getProducto().getDescripcion());
+    }
+
+    // Un bloque de importacion: los terminos se calculan fuera del cerrojo y se indexan con una sola escritura
+    @EventListener
+    public void alImportarProductos(ProductosImportadosEvent e) {
+        List<Map<String, Integer>> terminos = new ArrayList<>(e.getProductos().size());
+        for (ProductoResponseDTO p : e.getProductos()) terminos.add(pesos(p.getNombre(), p.getDescripcion()));
+        escribir(() -> {
+            for (int i = 0; i < terminos.size(); i++) {
+                Long id = e.getProductos().get(i).getId();
+                if (tocadosDuranteCarga != null) tocadosDuranteCarga.add(id);
+                quitar(id);
+                anadir(id, terminos.get(i));
+            }
+            compactarSiHaceFalta();
+        });
+    }
+
+    public void indexar(Long id, String nombre, String descripcion) {
+        Map<String, Integer> pesos = pesos(nombre, descripcion);
+        escribir(() -> {
+            if (tocadosDuranteCarga != null) tocadosDuranteCarga.add(id);
+            quitar(id);
+            anadir(id, pesos);
+            compactarSiHaceFalta();
+        });
+    }
+
+    public void eliminar(Long id) {
+        escribir(() -> {
+            if (tocadosDuranteCarga != null) tocadosDuranteCarga.add(id);
+            quitar(id);
+            compactarSiHaceFalta();
+        });
+    }
+
+    // Los mejores limite resultados por (score desc, id asc) que van despues de (scoreDesde, idDesde).
+    // Sin cursor, scoreDesde y idDesde son null
+    public List<Resultado> buscar(List<String> terminos, Float scoreDesde, Long idDesde, int limite) {
+        lock.readLock().lock();
+        try {
+            List<Postings> listas = new ArrayList<>();
+            for (String termino : new LinkedHashSet<>(terminos)) {
+                Postings p = indice.get(termino);
+                if (p != null) listas.add(p);
+            }
+            if (listas.isEmpty() || totalVivos == 0) return List.of();
+
+            // df cuenta tambien huecos muertos hasta la siguiente compactacion; el error es pequeño
+            float[] idfs = new float[listas.size()];
+            for (int t = 0; t < idfs.length; t++) {
+                int df = listas.get(t).tamano;
+                idfs[t] = (float) Math.log(1 + (totalVivos - df + 0.5) / (df + 0.5));
+            }
+
+            Postings[] ps = listas.toArray(new Postings[0]);
+            float longitudMedia = (float) sumaLongitudes / totalVivos;
+            boolean conCursor = scoreDesde != null;
+            float scoreCursor = conCursor ? scoreDesde : 0;
+            long idCursor = conCursor ? idDesde : 0;
+            PriorityQueue<Resultado> mejores = new PriorityQueue<>(limite + 1, RANKING.reversed());
+            // Peor resultado que sigue dentro del top: la mayoria de candidatos se descartan sin crear objetos
+            float scoreCorte = Float.NEGATIVE_INFINITY;
+            long idCorte = Long.MAX_VALUE;
+            int[] pos = new int[ps.length];
+
+            while (true) {
+                int slot = Integer.MAX_VALUE;
+                for (int t = 0; t < ps.length; t++) {
+                    if (pos[t] < ps[t].tamano) slot = Math.min(slot, ps[t].slots[pos[t]]);
+                }
+                if (slot == Integer.MAX_VALUE) break;
+
+                boolean vivo = vivos.get(slot);
+                float score = 0;
+                float norma = K1 * (1 - B + B * longitudPorSlot[slot] / longitudMedia);
+                for (int t = 0; t < ps.length; t++) {
+                    Postings p = ps[t];
+                    if (pos[t] < p.tamano && p.slots[pos[t]] == slot) {
+                        int tf = p.pesos[pos[t]++];
+                        if (vivo) score += idfs[t] * tf * (K1 + 1) / (tf + norma);
+                    }
+                }
+                if (!vivo) continue;
+
+                long id = idPorSlot[slot];
+                if (conCursor && (score > scoreCursor || (score == scoreCursor && id <= idCursor))) continue;
+                if (mejores.size() == limite && (score < scoreCorte || (score == scoreCorte && id > idCorte))) continue;
+
+                mejores.add(new Resultado(id, score));
+                if (mejores.size() > limite) mejores.poll();
+                if (mejores.size() == limite) {
+                    scoreCorte = mejores.peek().score;
+                    idCorte = mejores.peek().id;
+                }
+            }
+
+            List<Resultado> resultado = new ArrayList<>(mejores);
+            resultado.sort(RANKING);
+            return resultado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int tamano() {
+        lock.readLock().lock();
+        try {
+            return totalVivos;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static Map<String, Integer> pesos(String nombre, String descripcion) {
+        Map<String, Integer> pesos = new LinkedHashMap<>();
+        for (String t : AnalizadorTexto.terminos(nombre)) pesos.merge(t, PESO_NOMBRE, Integer::sum);
+        for (String t : AnalizadorTexto.terminos(descripcion)) pesos.merge(t, PESO_DESCRIPCION, Integer::sum);
+        return pesos;
+    }
+
+    private void escribir(Runnable accion) {
+        lock.writeLock().lock();
+        try {
+            accion.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void anadir(Long id, Map<String, Integer> pesos) {
+        if (siguienteSlot == idPorSlot.length) {
+            idPorSlot = Arrays.copyOf(idPorSlot, idPorSlot.length * 2);
+            longitudPorSlot = Arrays.copyOf(longitudPorSlot, longitudPorSlot.length * 2);
+        }
+        int slot = siguienteSlot++;
+        int longitud = 0;
+        for (Map.Entry<String, Integer> e : pesos.entrySet()) {
+            indice.computeIfAbsent(e.getKey(), k -> new Postings()).anadir(slot, e.getValue());
+            longitud += e.getValue();
+        }
+        idPorSlot[slot] = id;
+        longitudPorSlot[slot] = longitud;
+        vivos.set(slot);
+        slotPorId.put(id, slot);
+        totalVivos++;
+        sumaLongitudes += longitud;
+    }
+
+    private void quitar(Long id) {
+        Integer slot = slotPorId.remove(id);
+        if (slot == null) return;
+        vivos.clear(slot);
+        totalVivos--;
+        sumaLongitudes -= longitudPorSlot[slot];
+    }
+
+    // Renumera los huecos vivos y filtra las listas; no vuelve a leer nada de la base de datos
+    private void compactarSiHaceFalta() {
+        int muertos = siguienteSlot - totalVivos;
+        if (muertos < MIN_MUERTOS_COMPACTAR || muertos < totalVivos / 4) return;
+
+        int[] nuevoSlot = new int[siguienteSlot];
+        int n = 0;
+        for (int s = 0; s < siguienteSlot; s++) {
+            if (!vivos.get(s)) {
+                nuevoSlot[s] = -1;
+                continue;
+            }
+            nuevoSlot[s] = n;
+            idPorSlot[n] = idPorSlot[s];
+            longitudPorSlot[n] = longitudPorSlot[s];
+            slotPorId.put(idPorSlot[n], n);
+            n++;
+        }
+
+        Iterator<Postings> it = indice.values().iterator();
+        while (it.hasNext()) {
+            Postings p = it.next();
+            p.renumerar(nuevoSlot);
+            if (p.tamano == 0) it.remove();
+        }
+        vivos = new BitSet(n);
+        vivos.set(0, n);
+        siguienteSlot = n;
+    }
+
+    // Lista de un termino: slots crecientes y su peso (apariciones ponderadas) en cada uno
+    private static final class Postings {
+
+        private int[] slots = new int[4];
+        private int[] pesos = new int[4];
+        private int tamano;
+
+        void anadir(int slot, int peso) {
+            if (tamano == slots.length) {
+                int nueva = tamano + (tamano >> 1);
+                slots = Arrays.copyOf(slots, nueva);
+                pesos = Arrays.copyOf(pesos, nueva);
+            }
+            slots[tamano] = slot;
+            pesos[tamano] = peso;
+            tamano++;
+        }
+
+        void renumerar(int[] nuevoSlot) {
+            int n = 0;
+            for (int i = 0; i < tamano; i++) {
+                int s = nuevoSlot[slots[i]];
+                if (s < 0) continue;
+                slots[n] = s;
+                pesos[n] = pesos[i];
+                n++;
+            }
+            tamano = n;
+        }
+    }
+
+    public static final class Resultado {
+
+        private final long id;
+        private final float score;
+
+        Resultado(long id, float score) {
+            this.id = id;
+            this.score = score;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public float getScore() {
+            return score;
+        }
+    }
+}
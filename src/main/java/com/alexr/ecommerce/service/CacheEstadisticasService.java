@@ -0,0 +1,47 @@
+package com.alexr.ecommerce.service;
+
+import com.alexr.ecommerce.dto.EstadisticasCacheDTO;
+import com.alexr.ecommerce.dto.RegionCacheDTO;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class CacheEstadisticasService {
+
+    private final SessionFactory sessionFactory;
+
+    public CacheEstadisticasService(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    public EstadisticasCacheDTO estadisticas() {
+        Statistics stats = sessionFactory.getStatistics();
+
+        List<RegionCacheDTO> regiones = new ArrayList<>();
+        for (String region : stats.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics r = stats.getCacheRegionStatistics(region);
+            if (r == null) continue;
+            regiones.add(new RegionCacheDTO(region, r.getHitCount(), r.getMissCount(), r.getPutCount(),
+                    r.getElementCountInMemory()));
+        }
+
+        return new EstadisticasCacheDTO(
+                sessionFactory.getSessionFactoryOptions().isSecondLevelCacheEnabled(),
+                stats.getSecondLevelCacheHitCount(),
+                stats.getSecondLevelCacheMissCount(),
+                stats.getQueryCacheHitCount(),
+                stats.getQueryCacheMissCount(),
+                regiones
+        );
+    }
+
+    public void vaciar() {
+        sessionFactory.getCache().evictAllRegions();
+    }
+}
@@ -0,0 +1,32 @@
+package com.alexr.ecommerce.service;
+
+import com.alexr.ecommerce.exception.ParametroInvalidoException;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// Lectura del parametro ?fields=id,nombre,precio
+final class Campos {
+
+    private Campos() {
+    }
+
+    // Devuelve los campos en el orden de disponibles, para que el JSON no dependa del orden de la peticion
+    static Set<String> parsear(String fields, List<String> disponibles) {
+        Set<String> pedidos = new LinkedHashSet<>();
+        for (String campo : fields.split(",")) {
+            String c = campo.trim();
+            if (c.isEmpty()) continue;
+            if (!disponibles.contains(c))
+                throw new ParametroInvalidoException("Campo no soportado: " + c + " (" + String.join(", ", disponibles) + ")");
+            pedidos.add(c);
+        }
+        if (pedidos.isEmpty()) throw new ParametroInvalidoException("fields debe indicar al menos un campo");
+
+        Set<String> campos = new LinkedHashSet<>();
+        for (String c : disponibles) if (pedidos.contains(c)) campos.add(c);
+        return campos;
+    }
+
+}
@@ -2,33 +2,77 @@ package com.alexr.ecommerce.service;
 
 import com.alexr.ecommerce.dto.CategoriaRequestDTO;
 import com.alexr.ecommerce.dto.CategoriaResponseDTO;
+import com.alexr.ecommerce.dto.VentanaDTO;
+import com.alexr.ecommerce.event.CategoriaModificadaEvent;
+import com.alexr.ecommerce.event.TipoCambio;
 import com.alexr.ecommerce.exception.CategoriaConProductosException;
 import com.alexr.ecommerce.exception.CategoriaNotFoundException;
+import com.alexr.ecommerce.exception.ParametroInvalidoException;
+import com.alexr.ecommerce.exception.PrecondicionFallidaException;
 import com.alexr.ecommerce.mappers.CategoriaMapper;
 import com.alexr.ecommerce.model.Categoria;
 import com.alexr.ecommerce.repository.CategoriaRepository;
+import com.alexr.ecommerce.repository.CategoriaRepositoryCustom;
 import com.alexr.ecommerce.repository.ProductoRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 
 @Service
 public class CategoriaService {
 
+    private static final int MAX_VENTANA = 100;
+
     private final CategoriaRepository repoC;
     private final ProductoRepository repoP;
+    private final ConteoService conteos;
+    private final ApplicationEventPublisher eventos;
 
-    public CategoriaService(CategoriaRepository repoC, ProductoRepository repoP) {
+    public CategoriaService(CategoriaRepository repoC, ProductoRepository repoP, ConteoService conteos,
+                            ApplicationEventPublisher eventos) {
         this.repoC = repoC;
         this.repoP = repoP;
+        this.conteos = conteos;
+        this.eventos = eventos;
     }
 
     public Page<CategoriaResponseDTO> findAll(Pageable pageable) {
-        Page<Categoria> categorias = repoC.findAll(pageable);
-        return categorias.map(c -> CategoriaMapper.toDTO(c));
+        Slice<CategoriaResponseDTO> slice = repoC.findAllProyectadas(pageable);
+        return PaginaAproximada.de(slice, () -> conteos.total(ConteoService.CATEGORIAS, repoC::count));
+    }
+
+    public Slice<CategoriaResponseDTO> findSlice(Pageable pageable) {
+        return repoC.findAllProyectadas(pageable);
+    }
+
+    // Igual que ProductoService.findAll(pageable, fields)
+    public Page<Map<String, Object>> findAll(Pageable pageable, String fields) {
+        Set<String> campos = Campos.parsear(fields, CategoriaRepositoryCustom.CAMPOS);
+        Slice<Map<String, Object>> slice = repoC.findCampos(campos, pageable);
+        return PaginaAproximada.de(slice, () -> conteos.total(ConteoService.CATEGORIAS, repoC::count));
+    }
+
+    public VentanaDTO<CategoriaResponseDTO> findVentana(String orden, String cursor, int size) {
+        int limite = Math.min(Math.max(size, 1), MAX_VENTANA);
+        Pageable pl = PageRequest.of(0, limite + 1);
+        Cursor c = cursor != null ? Cursor.decodificar(cursor, orden) : null;
+
+        List<CategoriaResponseDTO> filas = switch (orden) {
+            case "id" -> c == null ? repoC.findPrimerasPorId(pl) : repoC.findSiguientesPorId(c.getId(), pl);
+            case "nombre" -> c == null ? repoC.findPrimerasPorNombre(pl) : repoC.findSiguientesPorNombre(c.getValor(), pl);
+            default -> throw new ParametroInvalidoException("Orden no soportado: " + orden + " (id o nombre)");
+        };
+
+        return VentanaDTO.de(filas, limite,
+                cat -> Cursor.codificar(orden, orden.equals("nombre") ? cat.getNombre() : cat.getId(), cat.getId()));
     }
 
     public CategoriaResponseDTO findById(Long id) {
@@ -38,9 +82,17 @@ public class CategoriaService {
 
     }
 
+    public Map<String, Object> findById(Long id, String fields) {
+        Set<String> campos = Campos.parsear(fields, CategoriaRepositoryCustom.CAMPOS);
+        return repoC.findCamposById(id, campos)
+                .orElseThrow(() -> new CategoriaNotFoundException("Error: La categoria con ID:" + id + " no existe."));
+    }
+
     public CategoriaResponseDTO save(CategoriaRequestDTO categoria) {
         Categoria c = CategoriaMapper.toEntity(categoria);
-        return CategoriaMapper.toDTO(repoC.save(c));
+        CategoriaResponseDTO dto = CategoriaMapper.toDTO(repoC.save(c));
+        eventos.publishEvent(new CategoriaModificadaEvent(dto.getId(), TipoCambio.CREADO));
+        return dto;
     }
 
     public void deleteById(Long id) {
@@ -48,13 +100,28 @@ public class CategoriaService {
         if (repoP.countByCategoria_Id(id) > 0)
             throw new CategoriaConProductosException("Error: La  categoria con ID: " + id + " contiene productos.");
         repoC.deleteById(id);
+        eventos.publishEvent(new CategoriaModificadaEvent(id, TipoCambio.ELIMINADO));
+    }
+
+    public long findVersion(Long id) {
+        return repoC.findVersion(id)
+                .orElseThrow(() -> new CategoriaNotFoundException("Error: La categoria con ID:" + id + " no existe."));
     }
 
     public CategoriaResponseDTO update(Long id, CategoriaRequestDTO categoriaActualizada) {
+        return update(id, categoriaActualizada, null);
+    }
+
+    // Igual que ProductoService.update: versionEsperada viene del If-Match y los conflictos salen como 409
+    public CategoriaResponseDTO update(Long id, CategoriaRequestDTO categoriaActualizada, Long versionEsperada) {
 
         return repoC.findById(id).map(c -> {
+            if (versionEsperada != null && c.getVersion() != versionEsperada)
+                throw new PrecondicionFallidaException("La categoria con ID: " + id + " ha cambiado desde la version " + versionEsperada);
             c.setNombre(categoriaActualizada.getNombre());
-            return CategoriaMapper.toDTO(repoC.save(c));
+            CategoriaResponseDTO dto = CategoriaMapper.toDTO(repoC.save(c));
+            eventos.publishEvent(new CategoriaModificadaEvent(id, TipoCambio.ACTUALIZADO));
+            return dto;
         }).orElseThrow(() -> new CategoriaNotFoundException("Categoria con ID: " + id + " no encontrada."));
     }
 }
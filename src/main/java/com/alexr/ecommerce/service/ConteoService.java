@@ -0,0 +1,107 @@
+package com.alexr.ecommerce.service;
+
+import com.alexr.ecommerce.event.CategoriaModificadaEvent;
+import com.alexr.ecommerce.event.ProductoModificadoEvent;
+import com.alexr.ecommerce.event.ProductosImportadosEvent;
+import com.alexr.ecommerce.event.StockModificadoEvent;
+import com.alexr.ecommerce.event.TipoCambio;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongSupplier;
+
+// Totales aproximados para los listados paginados. El count se cachea por clave (tabla + filtro) y se
+// recalcula en segundo plano: cada refresco periodico o cada alta/baja lanza un count nuevo, pero mientras
+// tanto se sigue sirviendo el valor anterior. Una clave que nadie consulta acaba caducando.
+@Service
+public class ConteoService {
+
+    public static final String PRODUCTOS = "productos";
+    public static final String CATEGORIAS = "categorias";
+    // Prefijo de los totales de ProductoService.filtrar, seguido de FiltroProductoDTO.clave()
+    public static final String PRODUCTOS_FILTRADOS = PRODUCTOS + "?";
+
+    private final LoadingCache<ClaveConteo, Long> conteos;
+
+    @Autowired
+    public ConteoService(@Value("${conteos.cache.refresco:30s}") Duration refresco,
+                         @Value("${conteos.cache.max-size:1000}") long maxConteos,
+                         MeterRegistry meterRegistry) {
+        this(refresco, maxConteos, meterRegistry, ForkJoinPool.commonPool());
+    }
+
+    ConteoService(Duration refresco, long maxConteos, MeterRegistry meterRegistry, Executor executor) {
+        this.conteos = Caffeine.newBuilder()
+                .maximumSize(maxConteos)
+                .refreshAfterWrite(refresco)
+                .expireAfterWrite(refresco.multipliedBy(10))
+                .executor(executor)
+                .recordStats()
+                .build(clave -> clave.contar.getAsLong());
+        CaffeineCacheMetrics.monitor(meterRegistry, conteos, "conteos");
+    }
+
+    // La clave debe empezar por la tabla (PRODUCTOS, CATEGORIAS) para que los cambios la refresquen
+    public long total(String clave, LongSupplier contar) {
+        return conteos.get(new ClaveConteo(clave, contar));
+    }
+
+    public void refrescar(String prefijo) {
+        conteos.asMap().keySet().stream()
+                .filter(c -> c.clave.startsWith(prefijo))
+                .forEach(conteos::refresh);
+    }
+
+    // Una modificacion no cambia el numero total de filas, pero si puede cambiar cuantas cumplen un filtro
+    @EventListener
+    public void alModificarProducto(ProductoModificadoEvent e) {
+        refrescar(e.getTipo() == TipoCambio.ACTUALIZADO ? PRODUCTOS_FILTRADOS : PRODUCTOS);
+    }
+
+    // El total no cambia; los conteos filtrados solo si el producto entra o sale de disponible=true
+    @EventListener
+    public void alModificarStock(StockModificadoEvent e) {
+        if (e.isCambiaDisponible()) refrescar(PRODUCTOS_FILTRADOS);
+    }
+
+    @EventListener
+    public void alImportarProductos(ProductosImportadosEvent e) {
+        refrescar(PRODUCTOS);
+    }
+
+    @EventListener
+    public void alModificarCategoria(CategoriaModificadaEvent e) {
+        if (e.getTipo() != TipoCambio.ACTUALIZADO) refrescar(CATEGORIAS);
+    }
+
+    // Solo la clave cuenta para igualdad; el supplier viaja con ella para poder recalcular en segundo plano
+    private static final class ClaveConteo {
+
+        private final String clave;
+        private final LongSupplier contar;
+
+        ClaveConteo(String clave, LongSupplier contar) {
+            this.clave = clave;
+            this.contar = contar;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ClaveConteo otra && clave.equals(otra.clave);
+        }
+
+        @Override
+        public int hashCode() {
+            return clave.hashCode();
+        }
+    }
+}
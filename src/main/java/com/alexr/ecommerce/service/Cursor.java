@@ -0,0 +1,47 @@
+package com.alexr.ecommerce.service;
+
+import com.alexr.ecommerce.exception.ParametroInvalidoException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Posicion opaca de un listado por keyset: (orden, valor de la clave de orden, id del ultimo elemento)
+public class Cursor {
+
+    private final String orden;
+    private final String valor;
+    private final Long id;
+
+    private Cursor(String orden, String valor, Long id) {
+        this.orden = orden;
+        this.valor = valor;
+        this.id = id;
+    }
+
+    public static String codificar(String orden, Object valor, Long id) {
+        String plano = orden + "\n" + valor + "\n" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plano.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decodificar(String token, String ordenEsperado) {
+        try {
+            String plano = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int primero = plano.indexOf('\n');
+            int ultimo = plano.lastIndexOf('\n');
+            Cursor cursor = new Cursor(plano.substring(0, primero), plano.substring(primero + 1, ultimo),
+                    Long.valueOf(plano.substring(ultimo + 1)));
+            if (primero == ultimo || !cursor.orden.equals(ordenEsperado)) throw new IllegalArgumentException();
+            return cursor;
+        } catch (RuntimeException e) {
+            throw new ParametroInvalidoException("El cursor no es valido para el orden " + ordenEsperado);
+        }
+    }
+
+    public String getValor() {
+        return valor;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
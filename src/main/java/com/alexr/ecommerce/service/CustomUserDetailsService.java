@@ -1,23 +1,53 @@
 package com.alexr.ecommerce.service;
 
+import com.alexr.ecommerce.model.Usuario;
 import com.alexr.ecommerce.repository.UsuarioRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.Optional;
+
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UsuarioRepository repo;
 
-    public CustomUserDetailsService(UsuarioRepository repo) {
+    // Los usuarios que no existen no se guardan: el loader devuelve null
+    private final LoadingCache<String, Usuario> usuarios;
+
+    public CustomUserDetailsService(UsuarioRepository repo,
+                                    @Value("${usuarios.cache.ttl:10m}") Duration ttl,
+                                    @Value("${usuarios.cache.max-size:10000}") long maxUsuariosEnCache,
+                                    MeterRegistry meterRegistry) {
         this.repo = repo;
+        this.usuarios = Caffeine.newBuilder()
+                .maximumSize(maxUsuariosEnCache)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build(nombre -> this.repo.findByNombre(nombre).orElse(null));
+        CaffeineCacheMetrics.monitor(meterRegistry, usuarios, "usuarios");
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) {
-        return repo.findByNombre(username)
+        return buscarPorNombre(username)
                 .orElseThrow(() -> new UsernameNotFoundException("Usuario " + username + " no encontrado"));
 
     }
+
+    public Optional<Usuario> buscarPorNombre(String nombre) {
+        return Optional.ofNullable(usuarios.get(nombre));
+    }
+
+    // Debe llamarse siempre que se cree un usuario o cambie su rol o contraseña
+    public void invalidar(String nombre) {
+        usuarios.invalidate(nombre);
+    }
 }
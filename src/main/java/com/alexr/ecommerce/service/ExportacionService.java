@@ -0,0 +1,105 @@
+package com.alexr.ecommerce.service;
+
+import com.alexr.ecommerce.dto.ProductoResponseDTO;
+import com.alexr.ecommerce.model.FormatoCatalogo;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.ObjectMapper;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+// Exportacion del catalogo completo para sincronizar sistemas externos. Se lee con un ResultSet de solo avance
+// y cada fila se escribe en la salida en cuanto llega: la memoria no depende del tamano del catalogo
+@Service
+public class ExportacionService {
+
+    private static final String SELECT_PRODUCTOS = "select p.id, p.nombre, p.stock, p.precio, p.descripcion, p.disponible, "
+            + "c.id, c.nombre, p.version, c.version from producto p join categoria c on c.id = p.categoria_id "
+            + "where p.id > ? order by p.id";
+
+    private static final String CABECERA_CSV = "id,nombre,stock,precio,descripcion,disponible,idCategoria,nombreCategoria,version\n";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public ExportacionService(DataSource dataSource, ObjectMapper objectMapper) {
+        // JdbcTemplate propio: con MySQL, fetch size Integer.MIN_VALUE hace que el driver entregue las filas una
+        // a una en vez de cargar el resultado entero en memoria
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+        this.objectMapper = objectMapper;
+    }
+
+    // Productos con id > desdeId en orden de id: si la exportacion se corta, se reanuda desde el ultimo id recibido
+    public void exportar(FormatoCatalogo formato, Long desdeId, OutputStream salida) throws IOException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), 64 * 1024);
+        if (formato == FormatoCatalogo.CSV) out.write(CABECERA_CSV);
+
+        RowCallbackHandler escribir = rs -> {
+            try {
+                if (formato == FormatoCatalogo.CSV) escribirCsv(rs, out);
+                else escribirJson(rs, out);
+            } catch (IOException e) {
+                // Normalmente el cliente ha cerrado la conexion: se corta la consulta
+                throw new UncheckedIOException(e);
+            }
+        };
+        try {
+            jdbcTemplate.query(SELECT_PRODUCTOS, escribir, desdeId != null ? desdeId : 0L);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+    }
+
+    private void escribirJson(ResultSet rs, Writer out) throws SQLException, IOException {
+        ProductoResponseDTO p = new ProductoResponseDTO(rs.getLong(1), rs.getString(2), rs.getInt(3), rs.getBigDecimal(4),
+                rs.getString(5), rs.getBoolean(6), rs.getLong(7), rs.getString(8), rs.getLong(9), rs.getLong(10));
+        out.write(objectMapper.writeValueAsString(p));
+        out.write('\n');
+    }
+
+    private static void escribirCsv(ResultSet rs, Writer out) throws SQLException, IOException {
+        BigDecimal precio = rs.getBigDecimal(4);
+        out.write(Long.toString(rs.getLong(1)));
+        out.write(',');
+        out.write(csv(rs.getString(2)));
+        out.write(',');
+        out.write(Integer.toString(rs.getInt(3)));
+        out.write(',');
+        out.write(precio != null ? precio.toPlainString() : "");
+        out.write(',');
+        out.write(csv(rs.getString(5)));
+        out.write(',');
+        out.write(Boolean.toString(rs.getBoolean(6)));
+        out.write(',');
+        out.write(Long.toString(rs.getLong(7)));
+        out.write(',');
+        out.write(csv(rs.getString(8)));
+        out.write(',');
+        out.write(Long.toString(rs.getLong(9)));
+        out.write('\n');
+    }
+
+    // RFC 4180: entre comillas si lleva separador, comillas o saltos de linea; las comillas se duplican
+    static String csv(String valor) {
+        if (valor == null) return "";
+        boolean comillas = false;
+        for (int i = 0; i < valor.length() && !comillas; i++) {
+            char ch = valor.charAt(i);
+            comillas = ch == ',' || ch == '"' || ch == '\n' || ch == '\r';
+        }
+        return comillas ? "\"" + valor.replace("\"", "\"\"") + "\"" : valor;
+    }
+}
@@ -0,0 +1,264 @@
+package com.alexr.ecommerce.service;
+
+import com.alexr.ecommerce.dto.FacetaCategoriaDTO;
+import com.alexr.ecommerce.dto.FacetasDTO;
+import com.alexr.ecommerce.dto.FiltroProductoDTO;
+import com.alexr.ecommerce.dto.ProductoResponseDTO;
+import com.alexr.ecommerce.dto.TramoPrecioDTO;
+import com.alexr.ecommerce.event.CategoriaModificadaEvent;
+import com.alexr.ecommerce.event.ProductoModificadoEvent;
+import com.alexr.ecommerce.event.ProductosImportadosEvent;
+import com.alexr.ecommerce.event.StockModificadoEvent;
+import com.alexr.ecommerce.event.TipoCambio;
+import com.alexr.ecommerce.exception.ParametroInvalidoException;
+import com.alexr.ecommerce.model.Categoria;
+import com.alexr.ecommerce.repository.CategoriaRepository;
+import com.alexr.ecommerce.repository.GrupoFaceta;
+import com.alexr.ecommerce.repository.ProductoRepository;
+import com.alexr.ecommerce.repository.ProductoSpecifications;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Facetas del listado filtrado: productos por categoria, por disponibilidad y por tramo de precio.
+// Salen de un unico GROUP BY (categoria, disponible, tramo) que se agrega aqui y se cachea por filtro. Las
+// escrituras de productos no lo vuelven a lanzar: se resta el producto de antes y se suma el de despues en los
+// grupos de cada faceta cacheada cuyo filtro cumplen. Un GROUP BY que se cruce con una escritura puede incluirla
+// o no, asi que esa faceta puede quedar desviada en una unidad hasta que caduca (facetas.cache.ttl)
+@Service
+public class FacetaService {
+
+    private static final BigDecimal ANCHO_MINIMO = new BigDecimal("0.01");
+
+    private final ProductoRepository repoP;
+    private final CategoriaRepository repoC;
+    private final Cache<String, Agregado> facetas;
+    // Se incrementa en cada escritura: una faceta agregada despues ya la incluye y no se le aplica
+    private final AtomicLong generacion = new AtomicLong();
+
+    public FacetaService(ProductoRepository repoP, CategoriaRepository repoC,
+                         @Value("${facetas.cache.ttl:5m}") Duration ttl,
+                         @Value("${facetas.cache.max-size:1000}") long maxFacetas,
+                         MeterRegistry meterRegistry) {
+        this.repoP = repoP;
+        this.repoC = repoC;
+        this.facetas = Caffeine.newBuilder()
+                .maximumSize(maxFacetas)
+                .expireAfter(new CaducidadDesdeAgregado(ttl))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, facetas, "facetas");
+    }
+
+    public FacetasDTO calcular(FiltroProductoDTO filtro, BigDecimal anchoTramo) {
+        ProductoService.validar(filtro);
+        if (anchoTramo.compareTo(ANCHO_MINIMO) < 0)
+            throw new ParametroInvalidoException("El ancho del tramo de precio debe ser al menos " + ANCHO_MINIMO);
+
+        String clave = filtro.clave() + "&ancho=" + anchoTramo.stripTrailingZeros().toPlainString();
+        return facetas.get(clave, k -> agregar(filtro, anchoTramo)).dto;
+    }
+
+    // Sin el producto de antes no se sabe de que grupos sale: entonces se recalcula todo
+    @EventListener
+    public void alModificarProducto(ProductoModificadoEvent e) {
+        if (e.getTipo() != TipoCambio.CREADO && e.getAnterior() == null) {
+            facetas.invalidateAll();
+            return;
+        }
+        aplicar(e.getAnterior() != null ? List.of(e.getAnterior()) : List.of(),
+                e.getProducto() != null ? List.of(e.getProducto()) : List.of());
+    }
+
+    // Las facetas cuentan disponibles; el stock en si no aparece. El evento no dice la categoria ni el precio
+    @EventListener
+    public void alModificarStock(StockModificadoEvent e) {
+        if (e.isCambiaDisponible()) facetas.invalidateAll();
+    }
+
+    @EventListener
+    public void alImportarProductos(ProductosImportadosEvent e) {
+        aplicar(List.of(), e.getProductos());
+    }
+
+    // Cambia el nombre que se devuelve con la categoria: solo las facetas en las que aparece. Una categoria nueva o
+    // borrada no tiene productos
+    @EventListener
+    public void alModificarCategoria(CategoriaModificadaEvent e) {
+        if (e.getTipo() == TipoCambio.ACTUALIZADO)
+            facetas.asMap().values().removeIf(a -> a.nombres.containsKey(e.getId()));
+    }
+
+    // Sincronizado para que los cambios se apliquen en el orden de su generacion
+    private synchronized void aplicar(List<ProductoResponseDTO> quitados, List<ProductoResponseDTO> anadidos) {
+        long g = generacion.incrementAndGet();
+        for (String clave : facetas.asMap().keySet()) {
+            facetas.asMap().computeIfPresent(clave, (k, a) -> a.inicio >= g ? a : a.con(quitados, anadidos));
+        }
+    }
+
+    private Agregado agregar(FiltroProductoDTO filtro, BigDecimal anchoTramo) {
+        long inicio = generacion.get();
+        Map<Grupo, Long> grupos = new HashMap<>();
+        for (GrupoFaceta g : repoP.contarGrupos(ProductoSpecifications.filtro(filtro), anchoTramo))
+            grupos.merge(new Grupo(g.getIdCategoria(), g.isDisponible(), g.getTramo()), g.getTotal(), Long::sum);
+
+        // Los nombres salen de la cache de segundo nivel de Categoria
+        Map<Long, String> nombres = new HashMap<>();
+        Set<Long> ids = new HashSet<>();
+        grupos.keySet().forEach(g -> ids.add(g.idCategoria));
+        for (Categoria c : repoC.findAllById(ids)) nombres.put(c.getId(), c.getNombre());
+
+        return new Agregado(filtro, anchoTramo, grupos, nombres, inicio);
+    }
+
+    private static boolean cumple(FiltroProductoDTO f, ProductoResponseDTO p) {
+        return (f.getCategoria() == null || f.getCategoria().equals(p.getCategoria().getId()))
+                && (f.getDisponible() == null || f.getDisponible() == p.isDisponible())
+                && (f.getPrecioMin() == null || p.getPrecio().compareTo(f.getPrecioMin()) >= 0)
+                && (f.getPrecioMax() == null || p.getPrecio().compareTo(f.getPrecioMax()) <= 0);
+    }
+
+    // Las facetas de un filtro: los grupos del GROUP BY y lo que se devuelve, calculado a partir de ellos
+    private static final class Agregado {
+
+        private final FiltroProductoDTO filtro;
+        private final BigDecimal anchoTramo;
+        private final Map<Grupo, Long> grupos;
+        private final Map<Long, String> nombres;
+        private final long inicio;
+        private final FacetasDTO dto;
+
+        Agregado(FiltroProductoDTO filtro, BigDecimal anchoTramo, Map<Grupo, Long> grupos, Map<Long, String> nombres,
+                 long inicio) {
+            this.filtro = filtro;
+            this.anchoTramo = anchoTramo;
+            this.grupos = grupos;
+            this.nombres = nombres;
+            this.inicio = inicio;
+            this.dto = facetas();
+        }
+
+        // Copia con los productos quitados y anadidos; la misma si ninguno cumple el filtro
+        Agregado con(List<ProductoResponseDTO> quitados, List<ProductoResponseDTO> anadidos) {
+            Map<Grupo, Long> nuevos = null;
+            Map<Long, String> nuevosNombres = nombres;
+            for (ProductoResponseDTO p : quitados) {
+                if (!cumple(filtro, p)) continue;
+                if (nuevos == null) nuevos = new HashMap<>(grupos);
+                nuevos.computeIfPresent(grupo(p), (g, n) -> n > 1 ? n - 1 : null);
+            }
+            for (ProductoResponseDTO p : anadidos) {
+                if (!cumple(filtro, p)) continue;
+                if (nuevos == null) nuevos = new HashMap<>(grupos);
+                nuevos.merge(grupo(p), 1L, Long::sum);
+                if (!nuevosNombres.containsKey(p.getCategoria().getId())) {
+                    if (nuevosNombres == nombres) nuevosNombres = new HashMap<>(nombres);
+                    nuevosNombres.put(p.getCategoria().getId(), p.getCategoria().getNombre());
+                }
+            }
+            return nuevos == null ? this : new Agregado(filtro, anchoTramo, nuevos, nuevosNombres, inicio);
+        }
+
+        // El mismo tramo que el floor(precio / ancho) del GROUP BY
+        private Grupo grupo(ProductoResponseDTO p) {
+            return new Grupo(p.getCategoria().getId(), p.isDisponible(),
+                    p.getPrecio().divide(anchoTramo, 0, RoundingMode.FLOOR).longValue());
+        }
+
+        private FacetasDTO facetas() {
+            long total = 0;
+            long disponibles = 0;
+            Map<Long, Long> porCategoria = new HashMap<>();
+            TreeMap<Long, Long> porTramo = new TreeMap<>();
+            for (Map.Entry<Grupo, Long> e : grupos.entrySet()) {
+                Grupo g = e.getKey();
+                total += e.getValue();
+                if (g.disponible) disponibles += e.getValue();
+                porCategoria.merge(g.idCategoria, e.getValue(), Long::sum);
+                porTramo.merge(g.tramo, e.getValue(), Long::sum);
+            }
+
+            List<FacetaCategoriaDTO> categorias = new ArrayList<>();
+            porCategoria.forEach((id, n) -> categorias.add(new FacetaCategoriaDTO(id, nombres.get(id), n)));
+            categorias.sort(Comparator.comparingLong(FacetaCategoriaDTO::getTotal).reversed()
+                    .thenComparing(FacetaCategoriaDTO::getId));
+
+            List<TramoPrecioDTO> precios = new ArrayList<>();
+            porTramo.forEach((tramo, n) -> {
+                BigDecimal desde = anchoTramo.multiply(BigDecimal.valueOf(tramo));
+                precios.add(new TramoPrecioDTO(desde, desde.add(anchoTramo), n));
+            });
+
+            return new FacetasDTO(total, categorias, disponibles, total - disponibles, precios);
+        }
+    }
+
+    // Caduca ttl despues del GROUP BY: aplicar un cambio no alarga la vida de la faceta ni la de su posible desvio
+    private static final class CaducidadDesdeAgregado implements Expiry<String, Agregado> {
+
+        private final long ttlNanos;
+
+        CaducidadDesdeAgregado(Duration ttl) {
+            this.ttlNanos = ttl.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(String clave, Agregado a, long currentTime) {
+            return ttlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String clave, Agregado a, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String clave, Agregado a, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    private static final class Grupo {
+
+        private final Long idCategoria;
+        private final boolean disponible;
+        private final long tramo;
+
+        Grupo(Long idCategoria, boolean disponible, long tramo) {
+            this.idCategoria = idCategoria;
+            this.disponible = disponible;
+            this.tramo = tramo;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Grupo g && idCategoria.equals(g.idCategoria) && disponible == g.disponible
+                    && tramo == g.tramo;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(idCategoria, disponible, tramo);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.alexr.ecommerce.service;
+
+import com.alexr.ecommerce.dto.ErrorImportacionDTO;
+import com.alexr.ecommerce.dto.ImportacionDTO;
+import com.alexr.ecommerce.dto.ProductoRequestDTO;
+import com.alexr.ecommerce.dto.ProductoResponseDTO;
+import com.alexr.ecommerce.event.ProductosImportadosEvent;
+import com.alexr.ecommerce.exception.ImportacionNotFoundException;
+import com.alexr.ecommerce.exception.ParametroInvalidoException;
+import com.alexr.ecommerce.mappers.ProductoMapper;
+import com.alexr.ecommerce.model.ErrorImportacion;
+import com.alexr.ecommerce.model.EstadoImportacion;
+import com.alexr.ecommerce.model.FormatoCatalogo;
+import com.alexr.ecommerce.model.ImportacionJob;
+import com.alexr.ecommerce.model.Producto;
+import com.alexr.ecommerce.repository.CategoriaRepository;
+import com.alexr.ecommerce.repository.ErrorImportacionRepository;
+import com.alexr.ecommerce.repository.ImportacionJobRepository;
+import com.alexr.ecommerce.repository.ProductoRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+// Importacion masiva de productos en segundo plano. El fichero se procesa por bloques: las filas de cada bloque
+// se validan en paralelo, las categorias se comprueban contra un mapa en memoria y cada bloque (productos,
+// errores y contadores del job) se guarda en una sola transaccion. Si el job falla, se reanuda despues del
+// ultimo bloque confirmado
+@Service
+public class ImportacionService {
+
+    private final ImportacionJobRepository repoJobs;
+    private final ErrorImportacionRepository repoErrores;
+    private final ProductoRepository repoP;
+    private final CategoriaRepository repoC;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventos;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor;
+    private final Path directorio;
+    private final int tamanoBloque;
+
+    public ImportacionService(ImportacionJobRepository repoJobs, ErrorImportacionRepository repoErrores,
+                              ProductoRepository repoP, CategoriaRepository repoC, Validator validator,
+                              ObjectMapper objectMapper, ApplicationEventPublisher eventos,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${importacion.directorio:${java.io.tmpdir}/importaciones}") Path directorio,
+                              @Value("${importacion.tamano-bloque:1000}") int tamanoBloque,
+                              @Value("${importacion.hilos:2}") int hilos) {
+        this.repoJobs = repoJobs;
+        this.repoErrores = repoErrores;
+        this.repoP = repoP;
+        this.repoC = repoC;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.eventos = eventos;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.directorio = directorio;
+        this.tamanoBloque = tamanoBloque;
+        this.executor = Executors.newFixedThreadPool(hilos, new CustomizableThreadFactory("importacion-"));
+    }
+
+    // Guarda una copia del fichero, comprueba la cabecera y lanza el job. Si no se indica formato, sale de la extension
+    public ImportacionDTO crear(MultipartFile fichero, String formato) {
+        String nombre = fichero.getOriginalFilename();
+        FormatoCatalogo f;
+        if (formato != null) f = FormatoCatalogo.de(formato);
+        else if (nombre != null && nombre.contains(".")) f = FormatoCatalogo.de(nombre.substring(nombre.lastIndexOf('.') + 1));
+        else throw new ParametroInvalidoException("Indica el formato del fichero (ndjson o csv)");
+
+        Path copia;
+        try {
+            Files.createDirectories(directorio);
+            copia = Files.createTempFile(directorio, "importacion-", "." + f.getExtension());
+            fichero.transferTo(copia);
+            try (LectorImportacion ignorado = LectorImportacion.abrir(copia, f, objectMapper)) {
+                // Solo para validar la cabecera CSV antes de aceptar el job
+            } catch (ParametroInvalidoException e) {
+                Files.deleteIfExists(copia);
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se ha podido guardar el fichero de la importacion", e);
+        }
+
+        ImportacionJob job = repoJobs.save(new ImportacionJob(f, copia.toString(), nombre));
+        executor.execute(() -> ejecutar(job.getId()));
+        return ImportacionDTO.de(job);
+    }
+
+    public ImportacionDTO findById(Long id) {
+        return ImportacionDTO.de(buscar(id));
+    }
+
+    public Page<ErrorImportacionDTO> findErrores(Long id, Pageable pageable) {
+        buscar(id);
+        return repoErrores.findByJobIdOrderByFila(id, pageable).map(e -> new ErrorImportacionDTO(e.getFila(), e.getMensaje()));
+    }
+
+    public ImportacionDTO reanudar(Long id) {
+        buscar(id);
+        if (repoJobs.cambiarEstado(id, EstadoImportacion.FALLIDA, EstadoImportacion.PENDIENTE) == 0)
+            throw new ParametroInvalidoException("Solo se puede reanudar una importacion fallida");
+        executor.execute(() -> ejecutar(id));
+        return findById(id);
+    }
+
+    // Al parar la aplicacion se pierde la cola del executor. Un job que estaba en curso queda fallido para poder
+    // reanudarlo; uno que seguia pendiente no habia empezado y se vuelve a encolar
+    @EventListener(ApplicationReadyEvent.class)
+    public void recuperarInterrumpidas() {
+        repoJobs.cambiarEstadoDeTodas(EstadoImportacion.EN_CURSO, EstadoImportacion.FALLIDA,
+                "Importacion interrumpida al reiniciar la aplicacion");
+        repoJobs.findIdsByEstado(EstadoImportacion.PENDIENTE).forEach(id -> executor.execute(() -> ejecutar(id)));
+    }
+
+    void ejecutar(Long id) {
+        ImportacionJob job = buscar(id);
+        job.iniciar();
+        repoJobs.save(job);
+
+        Path fichero = Path.of(job.getFichero());
+        try (LectorImportacion lector = LectorImportacion.abrir(fichero, job.getFormato(), objectMapper)) {
+            // Las filas de los bloques ya confirmados se leen pero no se procesan
+            for (long i = 0; i < job.getFilasProcesadas(); i++) {
+                if (lector.siguiente() == null) break;
+            }
+
+            Map<Long, Boolean> categorias = new ConcurrentHashMap<>();
+            repoC.findAllIds().forEach(c -> categorias.put(c, true));
+
+            List<LectorImportacion.Fila> bloque;
+            while (!(bloque = leerBloque(lector)).isEmpty()) {
+                procesarBloque(id, bloque, categorias);
+            }
+        } catch (Exception e) {
+            terminar(id, EstadoImportacion.FALLIDA, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            return;
+        }
+
+        terminar(id, EstadoImportacion.COMPLETADA, null);
+        try {
+            Files.deleteIfExists(fichero);
+        } catch (IOException ignorada) {
+            // El fichero solo hacia falta para reanudar
+        }
+    }
+
+    private List<LectorImportacion.Fila> leerBloque(LectorImportacion lector) throws IOException {
+        List<LectorImportacion.Fila> bloque = new ArrayList<>(tamanoBloque);
+        LectorImportacion.Fila fila;
+        while (bloque.size() < tamanoBloque && (fila = lector.siguiente()) != null) bloque.add(fila);
+        return bloque;
+    }
+
+    private void procesarBloque(Long id, List<LectorImportacion.Fila> bloque, Map<Long, Boolean> categorias) {
+        // 1. Validacion en paralelo; la categoria se comprueba en memoria (solo las desconocidas van a la base de datos)
+        bloque.parallelStream().filter(f -> f.getError() == null).forEach(f -> {
+            String errores = validar(f.getProducto());
+            if (errores != null) f.setError(errores);
+            else if (!categorias.computeIfAbsent(f.getProducto().getIdCategoria(), repoC::existsById))
+                f.setError("Categoria: " + f.getProducto().getIdCategoria() + " no existe.");
+        });
+
+        // 2. Productos, errores y avance del job en la misma transaccion
+        List<ProductoResponseDTO> importados = transactionTemplate.execute(status -> {
+            List<Producto> productos = new ArrayList<>();
+            List<ErrorImportacion> errores = new ArrayList<>();
+            for (LectorImportacion.Fila f : bloque) {
+                if (f.getError() != null) {
+                    errores.add(new ErrorImportacion(id, f.getNumero(), f.getError()));
+                    continue;
+                }
+                ProductoRequestDTO dto = f.getProducto();
+                Producto p = ProductoMapper.toEntity(dto, repoC.getReferenceById(dto.getIdCategoria()));
+                p.setDisponible(p.getStock() > 0);
+                productos.add(p);
+            }
+            List<ProductoResponseDTO> guardados = repoP.saveAll(productos).stream().map(ProductoMapper::toDTO).toList();
+            repoErrores.saveAll(errores);
+            ImportacionJob job = buscar(id);
+            job.confirmarBloque(bloque.size(), productos.size(), errores.size());
+            return guardados;
+        });
+
+        // 3. Buscador, conteos, facetas y caches de respuestas, despues del commit
+        if (importados != null && !importados.isEmpty()) eventos.publishEvent(new ProductosImportadosEvent(importados));
+    }
+
+    private String validar(ProductoRequestDTO producto) {
+        if (producto == null) return "La fila esta vacia";
+        Set<ConstraintViolation<ProductoRequestDTO>> errores = validator.validate(producto);
+        if (errores.isEmpty()) return null;
+        return errores.stream().map(ConstraintViolation::getMessage).collect(Collectors.joining(", "));
+    }
+
+    private void terminar(Long id, EstadoImportacion estado, String mensajeError) {
+        transactionTemplate.executeWithoutResult(status -> buscar(id).terminar(estado, mensajeError));
+    }
+
+    private ImportacionJob buscar(Long id) {
+        return repoJobs.findById(id)
+                .orElseThrow(() -> new ImportacionNotFoundException("Importacion con ID: " + id + " no encontrada."));
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        executor.shutdown();
+    }
+}
@@ -1,9 +1,18 @@
 package com.alexr.ecommerce.service;
 
+import com.alexr.ecommerce.config.UsuarioPrincipal;
+import com.alexr.ecommerce.model.Usuario;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
@@ -11,48 +20,95 @@ import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class JwtService {
 
-    @Value("${jwt.secret}")
-    private String secretKey;
+    // iat va en segundos; la revocacion por usuario necesita saber si el token es anterior en el mismo segundo
+    public static final String CLAIM_EMITIDO_MS = "iatMs";
 
-    @Value("${jwt.expiration}")
-    private long expirationTime;
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final long expirationTime;
 
-    public String generateToken(UserDetails userDetails) {
+    // Tokens ya verificados: evita repetir el HMAC mientras el token no caduque
+    private final Cache<String, Claims> tokensVerificados;
+
+    public JwtService(@Value("${jwt.secret}") String secretKey,
+                      @Value("${jwt.expiration}") long expirationTime,
+                      @Value("${jwt.cache.max-size:10000}") long maxTokensEnCache,
+                      MeterRegistry meterRegistry) {
+        this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        this.parser = Jwts.parser().verifyWith(signingKey).build();
+        this.expirationTime = expirationTime;
+        this.tokensVerificados = Caffeine.newBuilder()
+                .maximumSize(maxTokensEnCache)
+                .expireAfter(new ExpiracionToken())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, tokensVerificados, "jwt.tokens");
+    }
+
+    public String generateToken(Usuario usuario) {
+        long ahora = System.currentTimeMillis();
         return Jwts.builder()
-                .subject(userDetails.getUsername())
-                .issuedAt(new Date())
-                .expiration(new Date(System.currentTimeMillis() + expirationTime))
-                .signWith(getSigningKey())
+                .id(UUID.randomUUID().toString())
+                .subject(usuario.getUsername())
+                .claim(UsuarioPrincipal.CLAIM_ID, usuario.getId())
+                .claim(UsuarioPrincipal.CLAIM_ROL, usuario.getRol().name())
+                .claim(CLAIM_EMITIDO_MS, ahora)
+                .issuedAt(new Date(ahora))
+                .expiration(new Date(ahora + expirationTime))
+                .signWith(signingKey)
                 .compact();
     }
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
+    /**
+     * Parsea y verifica el token una sola vez. Devuelve null si la firma no es valida,
+     * el token esta mal formado o ha caducado.
+     */
+    public Claims validarToken(String token) {
+        Claims claims = tokensVerificados.getIfPresent(token);
+        if (claims != null) return claims;
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        try {
+            claims = parser.parseSignedClaims(token).getPayload();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+
+        if (claims.getExpiration() != null) tokensVerificados.put(token, claims);
+        return claims;
     }
 
     public String extractUsername(String token) {
-        return extractAllClaims(token).getSubject();
+        Claims claims = validarToken(token);
+        return claims != null ? claims.getSubject() : null;
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
         final String username = extractUsername(token);
-        return username.equals(userDetails.getUsername()) && !isTokenExpired(token);
+        return username != null && username.equals(userDetails.getUsername());
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractAllClaims(token).getExpiration().before(new Date());
+    private static class ExpiracionToken implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String token, Claims claims, long currentTime) {
+            long restante = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, restante));
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String token, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
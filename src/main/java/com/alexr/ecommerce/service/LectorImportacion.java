@@ -0,0 +1,200 @@
+package com.alexr.ecommerce.service;
+
+import com.alexr.ecommerce.dto.ProductoRequestDTO;
+import com.alexr.ecommerce.exception.ParametroInvalidoException;
+import com.alexr.ecommerce.model.FormatoCatalogo;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Lee el fichero de una importacion fila a fila, sin cargarlo entero. Una fila es una linea NDJSON o un registro
+// CSV (que puede ocupar varias lineas si lleva saltos entre comillas). Las lineas en blanco no cuentan como fila
+abstract class LectorImportacion implements Closeable {
+
+    protected final BufferedReader in;
+    private long numero;
+
+    private LectorImportacion(Reader in) {
+        this.in = in instanceof BufferedReader b ? b : new BufferedReader(in, 64 * 1024);
+    }
+
+    static LectorImportacion abrir(Path fichero, FormatoCatalogo formato, ObjectMapper objectMapper) throws IOException {
+        return abrir(Files.newBufferedReader(fichero, StandardCharsets.UTF_8), formato, objectMapper);
+    }
+
+    static LectorImportacion abrir(Reader in, FormatoCatalogo formato, ObjectMapper objectMapper) throws IOException {
+        return formato == FormatoCatalogo.CSV ? new Csv(in) : new Ndjson(in, objectMapper);
+    }
+
+    // null al llegar al final del fichero
+    Fila siguiente() throws IOException {
+        Fila fila = leer(numero + 1);
+        if (fila != null) numero++;
+        return fila;
+    }
+
+    protected abstract Fila leer(long numero) throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // Una fila leida: el producto o, si no se ha podido interpretar o no es valida, el error
+    static final class Fila {
+
+        private final long numero;
+        private final ProductoRequestDTO producto;
+        private String error;
+
+        Fila(long numero, ProductoRequestDTO producto, String error) {
+            this.numero = numero;
+            this.producto = producto;
+            this.error = error;
+        }
+
+        long getNumero() {
+            return numero;
+        }
+
+        ProductoRequestDTO getProducto() {
+            return producto;
+        }
+
+        String getError() {
+            return error;
+        }
+
+        void setError(String error) {
+            this.error = error;
+        }
+    }
+
+    private static final class Ndjson extends LectorImportacion {
+
+        private final ObjectMapper objectMapper;
+
+        Ndjson(Reader in, ObjectMapper objectMapper) {
+            super(in);
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        protected Fila leer(long numero) throws IOException {
+            String linea;
+            do {
+                linea = in.readLine();
+                if (linea == null) return null;
+            } while (linea.isBlank());
+
+            try {
+                return new Fila(numero, objectMapper.readValue(linea, ProductoRequestDTO.class), null);
+            } catch (JacksonException e) {
+                return new Fila(numero, null, "JSON no valido: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    // Columnas por nombre de cabecera: nombre, stock, precio, descripcion e idCategoria. Las demas se ignoran,
+    // asi que el CSV de la exportacion se puede volver a importar tal cual
+    private static final class Csv extends LectorImportacion {
+
+        private final int nombre;
+        private final int stock;
+        private final int precio;
+        private final int descripcion;
+        private final int idCategoria;
+
+        Csv(Reader in) throws IOException {
+            super(in);
+            List<String> cabecera = registro();
+            if (cabecera == null) throw new ParametroInvalidoException("El fichero CSV esta vacio");
+            this.nombre = columna(cabecera, "nombre", true);
+            this.stock = columna(cabecera, "stock", true);
+            this.precio = columna(cabecera, "precio", true);
+            this.descripcion = columna(cabecera, "descripcion", false);
+            this.idCategoria = columna(cabecera, "idCategoria", true);
+        }
+
+        private static int columna(List<String> cabecera, String nombre, boolean obligatoria) {
+            for (int i = 0; i < cabecera.size(); i++) if (cabecera.get(i).trim().equalsIgnoreCase(nombre)) return i;
+            if (obligatoria) throw new ParametroInvalidoException("Falta la columna " + nombre + " en la cabecera CSV");
+            return -1;
+        }
+
+        @Override
+        protected Fila leer(long numero) throws IOException {
+            List<String> campos;
+            do {
+                campos = registro();
+                if (campos == null) return null;
+            } while (campos.size() == 1 && campos.get(0).isBlank());
+
+            try {
+                ProductoRequestDTO p = new ProductoRequestDTO(
+                        valor(campos, nombre),
+                        Integer.parseInt(obligatorio(campos, stock, "stock")),
+                        new BigDecimal(obligatorio(campos, precio, "precio")),
+                        valor(campos, descripcion),
+                        Long.valueOf(obligatorio(campos, idCategoria, "idCategoria")));
+                return new Fila(numero, p, null);
+            } catch (NumberFormatException e) {
+                return new Fila(numero, null, "Valor numerico no valido en stock, precio o idCategoria");
+            } catch (IllegalArgumentException e) {
+                return new Fila(numero, null, e.getMessage());
+            }
+        }
+
+        private static String valor(List<String> campos, int i) {
+            if (i < 0 || i >= campos.size() || campos.get(i).isEmpty()) return null;
+            return campos.get(i);
+        }
+
+        private static String obligatorio(List<String> campos, int i, String nombre) {
+            String v = valor(campos, i);
+            if (v == null) throw new IllegalArgumentException("Falta el valor de " + nombre);
+            return v.trim();
+        }
+
+        // Un registro RFC 4180; null al final del fichero
+        private List<String> registro() throws IOException {
+            int c = in.read();
+            if (c == -1) return null;
+
+            List<String> campos = new ArrayList<>();
+            StringBuilder actual = new StringBuilder();
+            boolean entreComillas = false;
+            for (; c != -1; c = in.read()) {
+                if (entreComillas) {
+                    if (c != '"') {
+                        actual.append((char) c);
+                        continue;
+                    }
+                    in.mark(1);
+                    if (in.read() == '"') actual.append('"');
+                    else {
+                        in.reset();
+                        entreComillas = false;
+                    }
+                } else if (c == '"') entreComillas = true;
+                else if (c == ',') {
+                    campos.add(actual.toString());
+                    actual.setLength(0);
+                } else if (c == '\n') break;
+                else if (c != '\r') actual.append((char) c);
+            }
+            campos.add(actual.toString());
+            return campos;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.alexr.ecommerce.service;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Slice;
+
+import java.util.function.LongSupplier;
+
+// Convierte un Slice en Page sin lanzar un count por peticion
+final class PaginaAproximada {
+
+    private PaginaAproximada() {
+    }
+
+    static <T> Page<T> de(Slice<T> slice, LongSupplier totalCacheado) {
+        // En la ultima pagina el total es exacto y no hace falta consultarlo
+        if (!slice.hasNext())
+            return new PageImpl<>(slice.getContent(), slice.getPageable(),
+                    (slice.getPageable().isPaged() ? slice.getPageable().getOffset() : 0) + slice.getNumberOfElements());
+
+        // Si el total cacheado se ha quedado corto, al menos cuenta las filas que ya sabemos que existen
+        long total = Math.max(totalCacheado.getAsLong(), slice.getPageable().getOffset() + slice.getNumberOfElements() + 1);
+        return new PageImpl<>(slice.getContent(), slice.getPageable(), total);
+    }
+}
@@ -0,0 +1,120 @@
+package com.alexr.ecommerce.service;
+
+import com.alexr.ecommerce.exception.ServicioSaturadoException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Ejecuta el hash de contraseñas en un pool propio para no bloquear los hilos de Tomcat
+@Service
+public class PasswordService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final Timer tiempoHash;
+    private final int numHilos;
+
+    public PasswordService(PasswordEncoder passwordEncoder,
+                           @Value("${password.hilos:0}") int hilos,
+                           @Value("${password.cola:64}") int capacidadCola,
+                           MeterRegistry meterRegistry) {
+        this.passwordEncoder = passwordEncoder;
+
+        this.numHilos = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(numHilos, numHilos, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadCola),
+                new CustomizableThreadFactory("password-hash-"),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.tiempoHash = Timer.builder("password.hash")
+                .description("Tiempo por operacion de hash o verificacion de contraseña")
+                .register(meterRegistry);
+        Gauge.builder("password.cola", this, PasswordService::pendientes)
+                .description("Operaciones de hash esperando un hilo libre")
+                .register(meterRegistry);
+        Gauge.builder("password.activos", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+    }
+
+    public String codificar(String password) {
+        return ejecutar(() -> passwordEncoder.encode(password));
+    }
+
+    public boolean verificar(String password, String hash) {
+        return ejecutar(() -> passwordEncoder.matches(password, hash));
+    }
+
+    // Para altas masivas: reparte el trabajo entre todos los hilos del pool en tandas del tamaño del pool,
+    // dejando hueco en la cola para los logins normales. Si la cola esta llena, la tarea se ejecuta en el hilo llamante.
+    public List<String> codificarTodos(List<String> passwords) {
+        List<String> hashes = new ArrayList<>(passwords.size());
+        for (int inicio = 0; inicio < passwords.size(); inicio += numHilos) {
+            List<Future<String>> tanda = new ArrayList<>(numHilos);
+            for (String password : passwords.subList(inicio, Math.min(inicio + numHilos, passwords.size()))) {
+                Callable<String> tarea = () -> tiempoHash.recordCallable(() -> passwordEncoder.encode(password));
+                try {
+                    tanda.add(executor.submit(tarea));
+                } catch (RejectedExecutionException e) {
+                    FutureTask<String> enLlamante = new FutureTask<>(tarea);
+                    enLlamante.run();
+                    tanda.add(enLlamante);
+                }
+            }
+            for (Future<String> futuro : tanda) hashes.add(esperar(futuro));
+        }
+        return hashes;
+    }
+
+    // true si el hash usa un algoritmo o coste anterior al configurado
+    public boolean necesitaRehash(String hash) {
+        return passwordEncoder.upgradeEncoding(hash);
+    }
+
+    public int pendientes() {
+        return executor.getQueue().size();
+    }
+
+    private <T> T ejecutar(Callable<T> tarea) {
+        Future<T> futuro;
+        try {
+            futuro = executor.submit(() -> tiempoHash.recordCallable(tarea));
+        } catch (RejectedExecutionException e) {
+            throw new ServicioSaturadoException("Hay demasiadas peticiones de autenticación, inténtalo más tarde");
+        }
+        return esperar(futuro);
+    }
+
+    private <T> T esperar(Future<T> futuro) {
+        try {
+            return futuro.get();
+        } catch (InterruptedException e) {
+            futuro.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Hash de contraseña interrumpido", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException("Error al calcular el hash de la contraseña", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        executor.shutdown();
+    }
+}
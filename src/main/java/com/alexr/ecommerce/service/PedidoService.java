@@ -0,0 +1,160 @@
+package com.alexr.ecommerce.service;
+
+import com.alexr.ecommerce.dto.LineaPedidoRequestDTO;
+import com.alexr.ecommerce.dto.PedidoRequestDTO;
+import com.alexr.ecommerce.dto.PedidoResponseDTO;
+import com.alexr.ecommerce.event.StockModificadoEvent;
+import com.alexr.ecommerce.exception.LoteDemasiadoGrandeException;
+import com.alexr.ecommerce.exception.ParametroInvalidoException;
+import com.alexr.ecommerce.exception.PedidoNotFoundException;
+import com.alexr.ecommerce.exception.ProductoNotFoundException;
+import com.alexr.ecommerce.exception.StockInsuficienteException;
+import com.alexr.ecommerce.model.Pedido;
+import com.alexr.ecommerce.model.Producto;
+import com.alexr.ecommerce.repository.PedidoRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+// Compra de varios productos en una sola transaccion. Las filas de todos los productos se bloquean con un solo
+// select ... for update ordenado por id: dos cestas con productos en comun los bloquean en el mismo orden, asi
+// que una espera a la otra pero nunca quedan esperandose mutuamente (deadlock). Con las filas bloqueadas se
+// comprueba el stock en memoria, las restas salen en un solo batch JDBC y el pedido y sus lineas se insertan
+// en otro. Los productos en modo caliente solo venden aqui lo que queda en su fila, no lo arrendado
+@Service
+public class PedidoService {
+
+    private static final String BLOQUEAR =
+            "select id, nombre, precio, stock from producto where id in (%s) order by id for update";
+
+    // disponible antes que stock: MySQL aplica el set de izquierda a derecha (ver ProductoStockRepository)
+    private static final String RESTAR =
+            "update producto set disponible = stock > ?, stock = stock - ?, version = version + 1 where id = ?";
+
+    private final PedidoRepository repoPedidos;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SessionFactory sessionFactory;
+    private final ApplicationEventPublisher eventos;
+    private final MeterRegistry meterRegistry;
+    private final int maxProductos;
+
+    public PedidoService(PedidoRepository repoPedidos, JdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager, EntityManagerFactory entityManagerFactory,
+                         ApplicationEventPublisher eventos, MeterRegistry meterRegistry,
+                         @Value("${pedidos.max-productos:100}") int maxProductos) {
+        this.repoPedidos = repoPedidos;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.eventos = eventos;
+        this.meterRegistry = meterRegistry;
+        this.maxProductos = maxProductos;
+    }
+
+    public PedidoResponseDTO crear(PedidoRequestDTO pedido, String usuario) {
+        // Las lineas del mismo producto se juntan, y el TreeMap deja los ids en el orden en que se bloquean
+        SortedMap<Long, Integer> cantidades = new TreeMap<>();
+        // addExact: dos lineas cerca de Integer.MAX_VALUE darian una cantidad negativa que sumaria stock
+        try {
+            for (LineaPedidoRequestDTO l : pedido.getLineas()) cantidades.merge(l.getIdProducto(), l.getCantidad(), Math::addExact);
+        } catch (ArithmeticException e) {
+            throw new ParametroInvalidoException("La cantidad total de un producto es demasiado grande");
+        }
+        if (cantidades.size() > maxProductos)
+            throw new LoteDemasiadoGrandeException("Un pedido no puede tener mas de " + maxProductos + " productos distintos");
+
+        Reserva reserva = Timer.builder("pedidos.checkout").register(meterRegistry)
+                .record(() -> transactionTemplate.execute(status -> reservar(cantidades, usuario)));
+
+        // Las restas no pasan por Hibernate: sus productos se quitan a mano de la cache de segundo nivel, despues
+        // del commit para que nadie vuelva a cargar el stock anterior. El listado cacheado no se toca, igual que en
+        // ProductoStockRepository
+        reserva.restantes.keySet().forEach(id -> sessionFactory.getCache().evictEntityData(Producto.class, id));
+        reserva.restantes.forEach((id, stock) -> eventos.publishEvent(new StockModificadoEvent(id, stock, stock == 0)));
+        return PedidoResponseDTO.de(reserva.pedido);
+    }
+
+    public PedidoResponseDTO findById(Long id, String usuario) {
+        return repoPedidos.findByIdAndUsuario(id, usuario).map(PedidoResponseDTO::de)
+                .orElseThrow(() -> new PedidoNotFoundException("Pedido con ID: " + id + " no encontrado."));
+    }
+
+    private Reserva reservar(SortedMap<Long, Integer> cantidades, String usuario) {
+        List<Long> ids = List.copyOf(cantidades.keySet());
+        Map<Long, FilaProducto> filas = new HashMap<>();
+        jdbcTemplate.query(BLOQUEAR.formatted(String.join(",", Collections.nCopies(ids.size(), "?"))),
+                        (rs, i) -> new FilaProducto(rs.getLong("id"), rs.getString("nombre"), rs.getBigDecimal("precio"),
+                                rs.getInt("stock")),
+                        ids.toArray())
+                .forEach(f -> filas.put(f.id, f));
+
+        Pedido pedido = new Pedido(usuario);
+        List<Object[]> restas = new ArrayList<>(ids.size());
+        Map<Long, Integer> restantes = new LinkedHashMap<>();
+        List<String> sinStock = new ArrayList<>();
+        cantidades.forEach((id, cantidad) -> {
+            FilaProducto f = filas.get(id);
+            if (f == null) throw new ProductoNotFoundException("Producto con ID: " + id + " no encontrado.");
+            if (f.stock < cantidad) {
+                sinStock.add(id + " (quedan " + f.stock + ")");
+                return;
+            }
+            restas.add(new Object[]{cantidad, cantidad, id});
+            restantes.put(id, f.stock - cantidad);
+            pedido.anadirLinea(id, f.nombre, cantidad, f.precio);
+        });
+        // La excepcion deshace la transaccion y suelta los bloqueos sin haber restado nada
+        if (!sinStock.isEmpty())
+            throw new StockInsuficienteException("No hay stock suficiente de los productos " + String.join(", ", sinStock));
+
+        // Las filas estan bloqueadas y comprobadas, asi que cada update afecta a una fila. Con
+        // rewriteBatchedStatements el driver no devuelve el recuento por sentencia, no hace falta
+        jdbcTemplate.batchUpdate(RESTAR, restas);
+        return new Reserva(repoPedidos.save(pedido), restantes);
+    }
+
+    private static final class FilaProducto {
+
+        private final Long id;
+        private final String nombre;
+        private final BigDecimal precio;
+        private final int stock;
+
+        FilaProducto(Long id, String nombre, BigDecimal precio, int stock) {
+            this.id = id;
+            this.nombre = nombre;
+            this.precio = precio;
+            this.stock = stock;
+        }
+    }
+
+    // El pedido guardado y el stock que le queda a cada producto despues de restar
+    private static final class Reserva {
+
+        private final Pedido pedido;
+        private final Map<Long, Integer> restantes;
+
+        Reserva(Pedido pedido, Map<Long, Integer> restantes) {
+            this.pedido = pedido;
+            this.restantes = restantes;
+        }
+    }
+}
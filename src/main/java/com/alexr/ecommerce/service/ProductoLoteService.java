@@ -0,0 +1,226 @@
+package com.alexr.ecommerce.service;
+
+import com.alexr.ecommerce.dto.ProductoLoteDTO;
+import com.alexr.ecommerce.dto.ProductoRequestDTO;
+import com.alexr.ecommerce.dto.ProductoResponseDTO;
+import com.alexr.ecommerce.dto.ResultadoLoteDTO;
+import com.alexr.ecommerce.event.ProductoModificadoEvent;
+import com.alexr.ecommerce.event.ProductosImportadosEvent;
+import com.alexr.ecommerce.event.TipoCambio;
+import com.alexr.ecommerce.exception.LoteDemasiadoGrandeException;
+import com.alexr.ecommerce.mappers.ProductoMapper;
+import com.alexr.ecommerce.model.Categoria;
+import com.alexr.ecommerce.model.Producto;
+import com.alexr.ecommerce.repository.CategoriaRepository;
+import com.alexr.ecommerce.repository.ProductoRepository;
+import com.alexr.ecommerce.repository.ProductoStockRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+// Altas, modificaciones y bajas de muchos productos en una peticion. Cada lote se resuelve con una consulta para
+// los productos, otra para las categorias y una transaccion; los insert y update salen en batches JDBC
+// (hibernate.jdbc.batch_size). Las filas con errores se devuelven con estado ERROR sin afectar al resto.
+// Las metricas productos.lote y productos.lote.filas permiten comparar filas/s con los endpoints individuales
+@Service
+public class ProductoLoteService {
+
+    private final ProductoRepository repoP;
+    private final CategoriaRepository repoC;
+    private final ProductoStockRepository repoStock;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventos;
+    private final TransactionTemplate transactionTemplate;
+    private final StockCalienteService stockCaliente;
+    private final MeterRegistry meterRegistry;
+    private final int maxOperaciones;
+
+    public ProductoLoteService(ProductoRepository repoP, CategoriaRepository repoC, ProductoStockRepository repoStock,
+                               Validator validator,
+                               ApplicationEventPublisher eventos, PlatformTransactionManager transactionManager,
+                               StockCalienteService stockCaliente, MeterRegistry meterRegistry,
+                               @Value("${productos.lote.max-operaciones:5000}") int maxOperaciones) {
+        this.repoP = repoP;
+        this.repoC = repoC;
+        this.repoStock = repoStock;
+        this.validator = validator;
+        this.eventos = eventos;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.stockCaliente = stockCaliente;
+        this.meterRegistry = meterRegistry;
+        this.maxOperaciones = maxOperaciones;
+    }
+
+    public List<ResultadoLoteDTO> crear(List<ProductoRequestDTO> productos) {
+        return medir("crear", productos.size(), () -> {
+            ResultadoLoteDTO[] resultados = new ResultadoLoteDTO[productos.size()];
+
+            List<ProductoResponseDTO> creados = transactionTemplate.execute(status -> {
+                Map<Long, Categoria> categorias = categorias(productos);
+                List<Integer> indices = new ArrayList<>();
+                List<Producto> nuevos = new ArrayList<>();
+                for (int i = 0; i < productos.size(); i++) {
+                    ProductoRequestDTO dto = productos.get(i);
+                    String error = validar(dto, categorias);
+                    if (error != null) {
+                        resultados[i] = ResultadoLoteDTO.error(i, null, error);
+                        continue;
+                    }
+                    Producto p = ProductoMapper.toEntity(dto, categorias.get(dto.getIdCategoria()));
+                    p.setDisponible(p.getStock() > 0);
+                    indices.add(i);
+                    nuevos.add(p);
+                }
+
+                // Con la secuencia los ids se asignan sin ir a la base de datos; los insert salen juntos en el commit
+                List<Producto> guardados = repoP.saveAll(nuevos);
+                List<ProductoResponseDTO> dtos = new ArrayList<>(guardados.size());
+                for (int j = 0; j < guardados.size(); j++) {
+                    int i = indices.get(j);
+                    resultados[i] = new ResultadoLoteDTO(i, guardados.get(j).getId(), ResultadoLoteDTO.Estado.CREADO, null);
+                    dtos.add(ProductoMapper.toDTO(guardados.get(j)));
+                }
+                return dtos;
+            });
+
+            if (creados != null && !creados.isEmpty()) eventos.publishEvent(new ProductosImportadosEvent(creados));
+            return Arrays.asList(resultados);
+        });
+    }
+
+    public List<ResultadoLoteDTO> actualizar(List<ProductoLoteDTO> productos) {
+        return medir("actualizar", productos.size(), () -> {
+            ResultadoLoteDTO[] resultados = new ResultadoLoteDTO[productos.size()];
+
+            List<ProductoModificadoEvent> actualizados = transactionTemplate.execute(status -> {
+                Map<Long, Producto> existentes = existentes(productos.stream()
+                        .filter(Objects::nonNull).map(ProductoLoteDTO::getId).toList());
+                Map<Long, Categoria> categorias = categorias(productos);
+                Set<Long> vistos = new HashSet<>();
+                Map<Integer, Producto> modificados = new LinkedHashMap<>();
+                Map<Long, ProductoResponseDTO> anteriores = new HashMap<>();
+
+                for (int i = 0; i < productos.size(); i++) {
+                    ProductoLoteDTO dto = productos.get(i);
+                    String error = validar(dto, categorias);
+                    Producto p = error == null ? existentes.get(dto.getId()) : null;
+                    if (error == null && p == null) error = "Producto con ID: " + dto.getId() + " no encontrado.";
+                    else if (error == null && !vistos.add(dto.getId()))
+                        error = "El producto con ID: " + dto.getId() + " esta repetido en el lote";
+                    else if (error == null && dto.getVersion() != null && p.getVersion() != dto.getVersion())
+                        error = "El producto con ID: " + dto.getId() + " ha cambiado desde la version " + dto.getVersion();
+                    boolean caliente = error == null && stockCaliente.esCaliente(dto.getId());
+                    if (caliente && dto.getStock() != p.getStock())
+                        error = StockCalienteService.mensajeStockArrendado(dto.getId());
+                    if (error != null) {
+                        resultados[i] = ResultadoLoteDTO.error(i, dto != null ? dto.getId() : null, error);
+                        continue;
+                    }
+
+                    anteriores.put(p.getId(), ProductoMapper.toDTO(p));
+                    p.setNombre(dto.getNombre());
+                    p.setCategoria(categorias.get(dto.getIdCategoria()));
+                    p.setDescripcion(dto.getDescripcion());
+                    p.setPrecio(dto.getPrecio());
+                    if (!caliente) {
+                        p.setDisponible(dto.getStock() > 0);
+                        p.setStock(dto.getStock());
+                    }
+                    modificados.put(i, p);
+                }
+
+                // flush antes de leer las versiones nuevas; los update salen en batch
+                repoP.flush();
+                List<ProductoModificadoEvent> cambios = new ArrayList<>(modificados.size());
+                modificados.forEach((i, p) -> {
+                    resultados[i] = new ResultadoLoteDTO(i, p.getId(), ResultadoLoteDTO.Estado.ACTUALIZADO, null);
+                    cambios.add(new ProductoModificadoEvent(p.getId(), ProductoMapper.toDTO(p), anteriores.get(p.getId()),
+                            TipoCambio.ACTUALIZADO));
+                });
+                return cambios;
+            });
+
+            if (actualizados != null) actualizados.forEach(eventos::publishEvent);
+            return Arrays.asList(resultados);
+        });
+    }
+
+    public List<ResultadoLoteDTO> eliminar(List<Long> ids) {
+        return medir("eliminar", ids.size(), () -> {
+            ResultadoLoteDTO[] resultados = new ResultadoLoteDTO[ids.size()];
+
+            List<ProductoModificadoEvent> eliminados = transactionTemplate.execute(status -> {
+                Map<Long, Producto> existentes = existentes(ids);
+                Set<Long> borrar = new HashSet<>();
+                for (int i = 0; i < ids.size(); i++) {
+                    Long id = ids.get(i);
+                    if (id == null) resultados[i] = ResultadoLoteDTO.error(i, null, "El id es obligatorio");
+                    else if (!existentes.containsKey(id))
+                        resultados[i] = ResultadoLoteDTO.error(i, id, "Producto con ID: " + id + " no encontrado.");
+                    else if (!borrar.add(id))
+                        resultados[i] = ResultadoLoteDTO.error(i, id, "El producto con ID: " + id + " esta repetido en el lote");
+                    else resultados[i] = new ResultadoLoteDTO(i, id, ResultadoLoteDTO.Estado.ELIMINADO, null);
+                }
+                // Un solo delete ... where id in (...) por JDBC: solo salen de la cache los productos borrados
+                repoStock.eliminar(borrar);
+                return borrar.stream().map(id -> new ProductoModificadoEvent(id, null,
+                        ProductoMapper.toDTO(existentes.get(id)), TipoCambio.ELIMINADO)).toList();
+            });
+
+            if (eliminados != null) eliminados.forEach(eventos::publishEvent);
+            return Arrays.asList(resultados);
+        });
+    }
+
+    private <T> T medir(String operacion, int filas, Supplier<T> lote) {
+        if (filas > maxOperaciones)
+            throw new LoteDemasiadoGrandeException("El lote no puede superar las " + maxOperaciones + " operaciones");
+        Counter.builder("productos.lote.filas").tag("operacion", operacion).register(meterRegistry).increment(filas);
+        return Timer.builder("productos.lote").tag("operacion", operacion).register(meterRegistry).record(lote);
+    }
+
+    // Una sola consulta IN para todos los productos del lote
+    private Map<Long, Producto> existentes(List<Long> ids) {
+        Set<Long> distintos = ids.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        Map<Long, Producto> porId = new HashMap<>();
+        if (!distintos.isEmpty()) repoP.findAllById(distintos).forEach(p -> porId.put(p.getId(), p));
+        return porId;
+    }
+
+    // Y otra para todas sus categorias
+    private Map<Long, Categoria> categorias(List<? extends ProductoRequestDTO> productos) {
+        Set<Long> ids = productos.stream().filter(Objects::nonNull).map(ProductoRequestDTO::getIdCategoria)
+                .filter(Objects::nonNull).collect(Collectors.toSet());
+        Map<Long, Categoria> porId = new HashMap<>();
+        if (!ids.isEmpty()) repoC.findAllById(ids).forEach(c -> porId.put(c.getId(), c));
+        return porId;
+    }
+
+    private <T extends ProductoRequestDTO> String validar(T producto, Map<Long, Categoria> categorias) {
+        if (producto == null) return "La fila esta vacia";
+        Set<ConstraintViolation<T>> errores = validator.validate(producto);
+        if (!errores.isEmpty()) return errores.stream().map(ConstraintViolation::getMessage).collect(Collectors.joining(", "));
+        if (!categorias.containsKey(producto.getIdCategoria()))
+            return "Categoria: " + producto.getIdCategoria() + " no existe.";
+        return null;
+    }
+}
@@ -1,33 +1,183 @@
 package com.alexr.ecommerce.service;
 
+import com.alexr.ecommerce.dto.FiltroProductoDTO;
+import com.alexr.ecommerce.dto.MovimientoStockDTO;
+import com.alexr.ecommerce.dto.ProductoEncontradoDTO;
 import com.alexr.ecommerce.dto.ProductoRequestDTO;
 import com.alexr.ecommerce.dto.ProductoResponseDTO;
+import com.alexr.ecommerce.dto.VentanaDTO;
+import com.alexr.ecommerce.event.ProductoModificadoEvent;
+import com.alexr.ecommerce.event.StockModificadoEvent;
+import com.alexr.ecommerce.event.TipoCambio;
 import com.alexr.ecommerce.exception.CategoriaNotFoundException;
+import com.alexr.ecommerce.exception.LoteDemasiadoGrandeException;
+import com.alexr.ecommerce.exception.ParametroInvalidoException;
+import com.alexr.ecommerce.exception.PrecondicionFallidaException;
+import com.alexr.ecommerce.exception.ProductoEnModoCalienteException;
 import com.alexr.ecommerce.exception.ProductoNotFoundException;
 import com.alexr.ecommerce.mappers.ProductoMapper;
 import com.alexr.ecommerce.model.Categoria;
 import com.alexr.ecommerce.model.Producto;
 import com.alexr.ecommerce.repository.CategoriaRepository;
+import com.alexr.ecommerce.repository.EstadoStock;
 import com.alexr.ecommerce.repository.ProductoRepository;
+import com.alexr.ecommerce.repository.ProductoStockRepository;
+import com.alexr.ecommerce.repository.ProductoRepositoryCustom;
+import com.alexr.ecommerce.repository.ProductoSpecifications;
+import com.alexr.ecommerce.repository.VersionProducto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class ProductoService {
+    private static final int MAX_VENTANA = 100;
+    private static final Set<String> ORDENES_FILTRO = Set.of("id", "precio");
+
     private final ProductoRepository repoP;
     private final CategoriaRepository repoC;
+    private final ProductoStockRepository repoStock;
+    private final ConteoService conteos;
+    private final BuscadorProductos buscador;
+    private final ApplicationEventPublisher eventos;
+    private final StockCalienteService stockCaliente;
+    private final int maxIds;
 
-    public ProductoService(ProductoRepository repoP, CategoriaRepository repoC) {
+    public ProductoService(ProductoRepository repoP, CategoriaRepository repoC, ProductoStockRepository repoStock,
+                           ConteoService conteos, BuscadorProductos buscador, ApplicationEventPublisher eventos,
+                           StockCalienteService stockCaliente, @Value("${productos.multiget.max-ids:100}") int maxIds) {
         this.repoP = repoP;
         this.repoC = repoC;
+        this.repoStock = repoStock;
+        this.conteos = conteos;
+        this.buscador = buscador;
+        this.eventos = eventos;
+        this.stockCaliente = stockCaliente;
+        this.maxIds = maxIds;
     }
 
+    // El total sale de la cache de conteos, no de un count por peticion
     public Page<ProductoResponseDTO> findAll(Pageable pageable) {
-        Page<Producto> productos = repoP.findAll(pageable);
-        return productos.map(p -> ProductoMapper.toDTO(p));
+        Slice<ProductoResponseDTO> slice = repoP.findAllProyectado(pageable);
+        return PaginaAproximada.de(slice, () -> conteos.total(ConteoService.PRODUCTOS, repoP::count));
+    }
+
+    public Slice<ProductoResponseDTO> findSlice(Pageable pageable) {
+        return repoP.findAllProyectado(pageable);
+    }
+
+    // Solo los campos de ?fields=: el select lleva solo esas columnas y el join con categoria solo si se pide
+    public Page<Map<String, Object>> findAll(Pageable pageable, String fields) {
+        Set<String> campos = Campos.parsear(fields, ProductoRepositoryCustom.CAMPOS);
+        Slice<Map<String, Object>> slice = repoP.findCampos(campos, pageable);
+        return PaginaAproximada.de(slice, () -> conteos.total(ConteoService.PRODUCTOS, repoP::count));
+    }
+
+    // Solo se admite ordenar por id o precio, que son los ordenes que cubren los indices
+    public Page<ProductoResponseDTO> filtrar(FiltroProductoDTO filtro, Pageable pageable) {
+        validar(filtro);
+        for (Sort.Order o : pageable.getSort()) {
+            if (!ORDENES_FILTRO.contains(o.getProperty()))
+                throw new ParametroInvalidoException("Orden no soportado: " + o.getProperty() + " (id o precio)");
+        }
+
+        // El id desempata para que el orden sea estable entre paginas
+        Pageable ordenado = pageable.getSort().getOrderFor("id") != null || pageable.isUnpaged() ? pageable
+                : PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), pageable.getSort().and(Sort.by("id")));
+
+        Specification<Producto> spec = ProductoSpecifications.filtro(filtro);
+        Slice<ProductoResponseDTO> slice = repoP.findBy(spec, q -> q.project("categoria").slice(ordenado))
+                .map(ProductoMapper::toDTO);
+        return PaginaAproximada.de(slice,
+                () -> conteos.total(ConteoService.PRODUCTOS_FILTRADOS + filtro.clave(), () -> repoP.count(spec)));
+    }
+
+    public VentanaDTO<ProductoResponseDTO> findVentana(String orden, String cursor, int size) {
+        int limite = Math.min(Math.max(size, 1), MAX_VENTANA);
+        Pageable pl = PageRequest.of(0, limite + 1);
+        Cursor c = cursor != null ? Cursor.decodificar(cursor, orden) : null;
+
+        List<ProductoResponseDTO> filas = switch (orden) {
+            case "id" -> c == null ? repoP.findPrimerosPorId(pl) : repoP.findSiguientesPorId(c.getId(), pl);
+            case "nombre" -> c == null ? repoP.findPrimerosPorNombre(pl)
+                    : repoP.findSiguientesPorNombre(c.getValor(), c.getId(), pl);
+            case "precio" -> c == null ? repoP.findPrimerosPorPrecio(pl)
+                    : repoP.findSiguientesPorPrecio(precio(c), c.getId(), pl);
+            default -> throw new ParametroInvalidoException("Orden no soportado: " + orden + " (id, nombre o precio)");
+        };
+
+        return VentanaDTO.de(filas, limite, p -> Cursor.codificar(orden, switch (orden) {
+            case "nombre" -> p.getNombre();
+            case "precio" -> p.getPrecio().toPlainString();
+            default -> p.getId();
+        }, p.getId()));
+    }
+
+    // Cursor solo valida el orden y el id: un valor manipulado que no sea un numero tiene que salir como 400, no 500
+    private static BigDecimal precio(Cursor c) {
+        try {
+            return new BigDecimal(c.getValor());
+        } catch (NumberFormatException e) {
+            throw new ParametroInvalidoException("El cursor no es valido para el orden precio");
+        }
+    }
+
+    static void validar(FiltroProductoDTO filtro) {
+        if (filtro.getPrecioMin() != null && filtro.getPrecioMax() != null
+                && filtro.getPrecioMin().compareTo(filtro.getPrecioMax()) > 0)
+            throw new ParametroInvalidoException("precioMin no puede ser mayor que precioMax");
+    }
+
+    // Busqueda por relevancia. El cursor guarda el score y el id del ultimo resultado (search-after)
+    public VentanaDTO<ProductoResponseDTO> buscar(String q, String cursor, int size) {
+        int limite = Math.min(Math.max(size, 1), MAX_VENTANA);
+        List<String> terminos = AnalizadorTexto.terminos(q);
+        if (terminos.isEmpty()) throw new ParametroInvalidoException("La busqueda no contiene ningun termino valido");
+
+        String orden = "q:" + String.join(" ", terminos);
+        Float scoreDesde = null;
+        Long idDesde = null;
+        if (cursor != null) {
+            Cursor c = Cursor.decodificar(cursor, orden);
+            try {
+                scoreDesde = Float.valueOf(c.getValor());
+            } catch (NumberFormatException e) {
+                throw new ParametroInvalidoException("El cursor no es valido para la busqueda");
+            }
+            idDesde = c.getId();
+        }
+
+        List<BuscadorProductos.Resultado> resultados = buscador.buscar(terminos, scoreDesde, idDesde, limite + 1);
+        Map<Long, Float> scores = new HashMap<>();
+        resultados.forEach(r -> scores.put(r.getId(), r.getScore()));
+
+        // Una sola consulta para todos los ids; se respeta el orden del ranking
+        Map<Long, ProductoResponseDTO> porId = new HashMap<>();
+        if (!resultados.isEmpty())
+            repoP.findProyectadosByIdIn(scores.keySet()).forEach(p -> porId.put(p.getId(), p));
+        List<ProductoResponseDTO> filas = new ArrayList<>();
+        for (BuscadorProductos.Resultado r : resultados) {
+            ProductoResponseDTO p = porId.get(r.getId());
+            if (p != null) filas.add(p);
+        }
+
+        return VentanaDTO.de(filas, limite, p -> Cursor.codificar(orden, scores.get(p.getId()), p.getId()));
     }
 
     public ProductoResponseDTO findById(Long id) {
@@ -35,25 +185,100 @@ public class ProductoService {
                 .orElseThrow(() -> new ProductoNotFoundException("Producto con ID:" + id + " no encontrado.")));
     }
 
+    // Multi-get: una sola consulta IN para todos los ids. Se respeta el orden (y los repetidos) de la peticion
+    // y los que no existen se devuelven con encontrado=false en vez de lanzar ProductoNotFoundException
+    public List<ProductoEncontradoDTO> findByIds(List<Long> ids) {
+        if (ids.size() > maxIds)
+            throw new LoteDemasiadoGrandeException("No se pueden pedir mas de " + maxIds + " productos a la vez");
+        if (ids.stream().anyMatch(Objects::isNull)) throw new ParametroInvalidoException("La lista de ids no puede contener valores nulos");
+        if (ids.isEmpty()) return List.of();
+
+        Map<Long, ProductoResponseDTO> porId = new HashMap<>();
+        repoP.findProyectadosByIdIn(new HashSet<>(ids)).forEach(p -> porId.put(p.getId(), p));
+
+        List<ProductoEncontradoDTO> resultado = new ArrayList<>(ids.size());
+        for (Long id : ids) resultado.add(new ProductoEncontradoDTO(id, porId.get(id)));
+        return resultado;
+    }
+
+    public Map<String, Object> findById(Long id, String fields) {
+        Set<String> campos = Campos.parsear(fields, ProductoRepositoryCustom.CAMPOS);
+        return repoP.findCamposById(id, campos)
+                .orElseThrow(() -> new ProductoNotFoundException("Producto con ID:" + id + " no encontrado."));
+    }
+
+    public VersionProducto findVersion(Long id) {
+        return repoP.findVersion(id)
+                .orElseThrow(() -> new ProductoNotFoundException("Producto con ID:" + id + " no encontrado."));
+    }
+
     public ProductoResponseDTO update(Long id, ProductoRequestDTO productoActualizado) {
+        return update(id, productoActualizado, null);
+    }
+
+    // Con versionEsperada (If-Match) solo se actualiza si nadie ha modificado el producto desde esa version.
+    // Si alguien lo modifica entre la lectura y el save, lo detecta el @Version de la entidad y sale como 409,
+    // haya If-Match o no: repetirlo aplicaria otra vez el cuerpo del cliente sobre un producto que no ha visto
+    public ProductoResponseDTO update(Long id, ProductoRequestDTO productoActualizado, Long versionEsperada) {
 
         Categoria c = repoC.findById(productoActualizado.getIdCategoria())
                 .orElseThrow(() -> new CategoriaNotFoundException("Categoria: " + productoActualizado.getIdCategoria() + " no existe."));
 
         return repoP.findById(id).map(p -> {
+            if (versionEsperada != null && p.getVersion() != versionEsperada)
+                throw new PrecondicionFallidaException("El producto con ID: " + id + " ha cambiado desde la version " + versionEsperada);
+            ProductoResponseDTO anterior = ProductoMapper.toDTO(p);
             p.setNombre(productoActualizado.getNombre());
             p.setCategoria(c);
             p.setDescripcion(productoActualizado.getDescripcion());
-            p.setDisponible(productoActualizado.getStock() > 0);
             p.setPrecio(productoActualizado.getPrecio());
-            p.setStock(productoActualizado.getStock());
-            return ProductoMapper.toDTO(repoP.save(p));
+            if (!stockCaliente.esCaliente(id)) {
+                p.setDisponible(productoActualizado.getStock() > 0);
+                p.setStock(productoActualizado.getStock());
+            } else if (productoActualizado.getStock() != p.getStock()) {
+                throw new ProductoEnModoCalienteException(StockCalienteService.mensajeStockArrendado(id));
+            }
+            ProductoResponseDTO dto = ProductoMapper.toDTO(repoP.save(p));
+            eventos.publishEvent(new ProductoModificadoEvent(id, dto, anterior, TipoCambio.ACTUALIZADO));
+            return dto;
         }).orElseThrow(() -> new ProductoNotFoundException("Producto con ID: " + id + " no encontrado."));
     }
 
     public void delete(Long id) {
-        if (!repoP.existsById(id)) throw new ProductoNotFoundException("Producto con ID: " + id + " no encontrado.");
+        Producto p = repoP.findById(id)
+                .orElseThrow(() -> new ProductoNotFoundException("Producto con ID: " + id + " no encontrado."));
+        ProductoResponseDTO anterior = ProductoMapper.toDTO(p);
         repoP.deleteById(id);
+        eventos.publishEvent(new ProductoModificadoEvent(id, null, anterior, TipoCambio.ELIMINADO));
+    }
+
+    // Compras y reposiciones: un update condicional por peticion, sin cargar el producto ni bloquearlo mas alla
+    // de esa sentencia. Si no hay stock suficiente no se lanza excepcion: vuelve realizado=false con el stock actual
+    public MovimientoStockDTO decrementarStock(Long id, int cantidad) {
+        // Productos en modo caliente: se reserva en memoria de lo ya arrendado (ver StockCalienteService)
+        Optional<MovimientoStockDTO> caliente = stockCaliente.decrementar(id, cantidad);
+        if (caliente.isPresent()) return caliente.get();
+
+        boolean realizado = repoStock.decrementar(id, cantidad) == 1;
+        EstadoStock estado = estadoStock(id);
+        // Solo pasa de disponible a agotado si despues de restar queda 0
+        if (realizado) eventos.publishEvent(new StockModificadoEvent(id, estado.getStock(), estado.getStock() == 0));
+        return new MovimientoStockDTO(id, cantidad, realizado, estado.getStock(), estado.isDisponible(), estado.getVersion());
+    }
+
+    public MovimientoStockDTO incrementarStock(Long id, int cantidad) {
+        if (repoStock.incrementar(id, cantidad) == 0)
+            throw new ProductoNotFoundException("Producto con ID: " + id + " no encontrado.");
+        EstadoStock estado = estadoStock(id);
+        // Estaba agotado si ahora solo queda lo que se acaba de sumar
+        eventos.publishEvent(new StockModificadoEvent(id, estado.getStock(), estado.getStock() <= cantidad));
+        return new MovimientoStockDTO(id, cantidad, true, estado.getStock(), estado.isDisponible(), estado.getVersion());
+    }
+
+    // Se lee despues del update, fuera de su transaccion: con otras compras a la vez puede reflejarlas tambien
+    private EstadoStock estadoStock(Long id) {
+        return repoP.findEstadoStock(id)
+                .orElseThrow(() -> new ProductoNotFoundException("Producto con ID: " + id + " no encontrado."));
     }
 
     public ProductoResponseDTO save(ProductoRequestDTO producto) {
@@ -62,6 +287,8 @@ public class ProductoService {
 
         Producto p = ProductoMapper.toEntity(producto, c);
         p.setDisponible(p.getStock() > 0);
-        return ProductoMapper.toDTO(repoP.save(p));
+        ProductoResponseDTO dto = ProductoMapper.toDTO(repoP.save(p));
+        eventos.publishEvent(new ProductoModificadoEvent(dto.getId(), dto, TipoCambio.CREADO));
+        return dto;
     }
 }
@@ -0,0 +1,123 @@
+package com.alexr.ecommerce.service;
+
+import com.alexr.ecommerce.dto.AuthRequestDTO;
+import com.alexr.ecommerce.dto.ResultadoLoteDTO;
+import com.alexr.ecommerce.exception.LoteDemasiadoGrandeException;
+import com.alexr.ecommerce.model.Rol;
+import com.alexr.ecommerce.repository.UsuarioRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+public class RegistroMasivoService {
+
+    private static final String INSERT_USUARIO = "insert into usuario (nombre, password, rol) values (?, ?, ?)";
+
+    private final UsuarioRepository repository;
+    private final PasswordService passwordService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final int tamanoBloque;
+    private final int maxUsuarios;
+
+    public RegistroMasivoService(UsuarioRepository repository, PasswordService passwordService, JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager, Validator validator,
+                                 @Value("${usuarios.lote.tamano-bloque:500}") int tamanoBloque,
+                                 @Value("${usuarios.lote.max-usuarios:10000}") int maxUsuarios) {
+        this.repository = repository;
+        this.passwordService = passwordService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.tamanoBloque = tamanoBloque;
+        this.maxUsuarios = maxUsuarios;
+    }
+
+    public List<ResultadoLoteDTO> registrar(List<AuthRequestDTO> usuarios) {
+        if (usuarios.size() > maxUsuarios)
+            throw new LoteDemasiadoGrandeException("El lote no puede superar los " + maxUsuarios + " usuarios");
+
+        ResultadoLoteDTO[] resultados = new ResultadoLoteDTO[usuarios.size()];
+        List<Integer> validos = new ArrayList<>();
+        Set<String> vistos = new HashSet<>();
+
+        // 1. Validar cada fila y descartar nombres repetidos dentro del propio lote
+        for (int i = 0; i < usuarios.size(); i++) {
+            AuthRequestDTO u = usuarios.get(i);
+            String errores = validar(u);
+            if (errores != null) resultados[i] = ResultadoLoteDTO.error(i, null, errores);
+            else if (!vistos.add(u.getNombre()))
+                resultados[i] = ResultadoLoteDTO.error(i, null, "El usuario " + u.getNombre() + " esta repetido en el lote");
+            else validos.add(i);
+        }
+
+        // 2. Por bloques: colisiones con una sola consulta, hash en paralelo e insercion con batch JDBC
+        for (int inicio = 0; inicio < validos.size(); inicio += tamanoBloque) {
+            List<Integer> bloque = validos.subList(inicio, Math.min(inicio + tamanoBloque, validos.size()));
+
+            Set<String> existentes = repository.findNombresExistentes(
+                    bloque.stream().map(i -> usuarios.get(i).getNombre()).toList());
+
+            List<Integer> nuevos = new ArrayList<>(bloque.size());
+            for (Integer i : bloque) {
+                if (existentes.contains(usuarios.get(i).getNombre()))
+                    resultados[i] = ResultadoLoteDTO.error(i, null, "Este usuario ya esta registrado");
+                else nuevos.add(i);
+            }
+            if (nuevos.isEmpty()) continue;
+
+            List<String> hashes = passwordService.codificarTodos(
+                    nuevos.stream().map(i -> usuarios.get(i).getPassword()).toList());
+            insertar(usuarios, nuevos, hashes, resultados);
+        }
+
+        return Arrays.asList(resultados);
+    }
+
+    private String validar(AuthRequestDTO usuario) {
+        if (usuario == null) return "La fila esta vacia";
+        Set<ConstraintViolation<AuthRequestDTO>> errores = validator.validate(usuario);
+        if (errores.isEmpty()) return null;
+        return errores.stream().map(ConstraintViolation::getMessage).collect(Collectors.joining(", "));
+    }
+
+    private void insertar(List<AuthRequestDTO> usuarios, List<Integer> indices, List<String> hashes,
+                          ResultadoLoteDTO[] resultados) {
+        List<Object[]> filas = new ArrayList<>(indices.size());
+        for (int j = 0; j < indices.size(); j++) {
+            filas.add(new Object[]{usuarios.get(indices.get(j)).getNombre(), hashes.get(j), Rol.ROLE_USUARIO.name()});
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_USUARIO, filas));
+            for (Integer i : indices) {
+                resultados[i] = new ResultadoLoteDTO(i, null, ResultadoLoteDTO.Estado.CREADO, null);
+            }
+        } catch (DataIntegrityViolationException e) {
+            // Un registro concurrente ha ocupado algun nombre: se repite el bloque fila a fila
+            for (int j = 0; j < indices.size(); j++) {
+                int i = indices.get(j);
+                try {
+                    jdbcTemplate.update(INSERT_USUARIO, filas.get(j));
+                    resultados[i] = new ResultadoLoteDTO(i, null, ResultadoLoteDTO.Estado.CREADO, null);
+                } catch (DataIntegrityViolationException ex) {
+                    resultados[i] = ResultadoLoteDTO.error(i, null, "Este usuario ya esta registrado");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.alexr.ecommerce.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+// Repite una modificacion que ha chocado con otra en el @Version de la entidad, con espera exponencial y jitter
+// entre intentos. Solo para modificaciones internas que el servidor recalcula al volver a leer, como las tandas que
+// arrienda StockCalienteService. Nunca para lo que envia un cliente: repetirlo aplicaria su cuerpo sobre una version
+// que no ha visto; eso sale como 409.
+// Metricas por operacion: optimista.conflictos, optimista.reintentos y optimista.agotados
+@Component
+public class ReintentoOptimista {
+
+    private final MeterRegistry meterRegistry;
+    private final int maxIntentos;
+    private final long esperaMs;
+
+    public ReintentoOptimista(MeterRegistry meterRegistry,
+                              @Value("${optimista.reintentos.max-intentos:3}") int maxIntentos,
+                              @Value("${optimista.reintentos.espera-ms:10}") long esperaMs) {
+        this.meterRegistry = meterRegistry;
+        this.maxIntentos = maxIntentos;
+        this.esperaMs = esperaMs;
+    }
+
+    public <T> T ejecutar(String operacion, Supplier<T> modificacion) {
+        for (int intento = 1; ; intento++) {
+            try {
+                return modificacion.get();
+            } catch (OptimisticLockingFailureException e) {
+                contador("optimista.conflictos", operacion).increment();
+                if (intento >= maxIntentos) {
+                    contador("optimista.agotados", operacion).increment();
+                    throw e;
+                }
+                contador("optimista.reintentos", operacion).increment();
+                if (!esperar(intento)) throw e;
+            }
+        }
+    }
+
+    // esperaMs, 2 * esperaMs, 4 * esperaMs... cada una entre la mitad y el total para que no se vuelvan a cruzar
+    private boolean esperar(int intento) {
+        long maxima = esperaMs << (intento - 1);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(maxima / 2, maxima + 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private Counter contador(String nombre, String operacion) {
+        return Counter.builder(nombre).tag("operacion", operacion).register(meterRegistry);
+    }
+}
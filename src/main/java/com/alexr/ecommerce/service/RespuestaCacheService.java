@@ -0,0 +1,189 @@
+package com.alexr.ecommerce.service;
+
+import com.alexr.ecommerce.event.CategoriaModificadaEvent;
+import com.alexr.ecommerce.event.ProductoModificadoEvent;
+import com.alexr.ecommerce.event.ProductosImportadosEvent;
+import com.alexr.ecommerce.event.StockModificadoEvent;
+import com.alexr.ecommerce.event.TipoCambio;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+// Respuestas JSON ya serializadas de los GET mas pedidos del catalogo, con su variante gzip calculada al
+// guardarlas. Las claves son "/api/productos/{id}" (o "/api/productos/{id}?fields=...") para el detalle y
+// "/api/productos?..." para el listado. Los cambios de stock, que en una oferta pueden ser cientos por segundo,
+// solo invalidan el detalle de su producto: en el listado el stock puede ir hasta el ttl por detras
+@Service
+public class RespuestaCacheService {
+
+    public static final String PREFIJO_PRODUCTO = "/api/productos/";
+    public static final String PREFIJO_LISTADO = "/api/productos?";
+
+    private final Cache<String, RespuestaCacheada> respuestas;
+
+    // Claves ?fields= del detalle de cada producto, para invalidarlas sin recorrer toda la cache
+    private final Map<Long, Set<String>> variantes = new ConcurrentHashMap<>();
+
+    // Avanza con cada invalidacion: una respuesta calculada antes de un cambio no debe guardarse despues.
+    // ultimoCambio es la generacion del ultimo cambio que afecta a todo; los de stock se apuntan por producto
+    private final AtomicLong generacion = new AtomicLong();
+    private final AtomicLong ultimoCambio = new AtomicLong();
+    private final Cache<Long, Long> ultimoCambioStock;
+
+    public RespuestaCacheService(@Value("${respuestas.cache.ttl:30s}") Duration ttl,
+                                 @Value("${respuestas.cache.tamano-max:64MB}") DataSize tamanoMaximo,
+                                 MeterRegistry meterRegistry) {
+        this.respuestas = Caffeine.newBuilder()
+                .maximumWeight(tamanoMaximo.toBytes())
+                .weigher((String clave, RespuestaCacheada r) -> r.getJson().length + r.getGzip().length)
+                .expireAfterWrite(ttl)
+                .evictionListener((String clave, RespuestaCacheada r, RemovalCause causa) -> olvidarVariante(clave))
+                .recordStats()
+                .build();
+        // Pasado el ttl ya no puede quedar ninguna peticion que empezara antes del cambio
+        this.ultimoCambioStock = Caffeine.newBuilder().expireAfterWrite(ttl).build();
+        CaffeineCacheMetrics.monitor(meterRegistry, respuestas, "respuestas");
+    }
+
+    public RespuestaCacheada buscar(String clave) {
+        return respuestas.getIfPresent(clave);
+    }
+
+    public long generacion() {
+        return generacion.get();
+    }
+
+    // Se descarta si desde que empezo la peticion (generacionInicial) se ha invalidado algo que la afecte
+    public void guardar(String clave, byte[] json, String etag, long generacionInicial) {
+        RespuestaCacheada r = new RespuestaCacheada(json, comprimir(json), etag);
+        Long id = idDetalle(clave);
+        if (!vigente(id, generacionInicial)) return;
+        if (id != null && clave.indexOf('?') >= 0) variantes.computeIfAbsent(id, k -> ConcurrentHashMap.newKeySet()).add(clave);
+        respuestas.put(clave, r);
+        if (!vigente(id, generacionInicial)) respuestas.invalidate(clave);
+    }
+
+    private boolean vigente(Long id, long generacionInicial) {
+        if (ultimoCambio.get() > generacionInicial) return false;
+        Long cambioStock = id != null ? ultimoCambioStock.getIfPresent(id) : null;
+        return cambioStock == null || cambioStock <= generacionInicial;
+    }
+
+    // Un cambio en un producto solo invalida su detalle; el listado se invalida entero porque el
+    // producto puede entrar, salir o moverse de pagina y el total puede cambiar
+    @EventListener
+    public void alModificarProducto(ProductoModificadoEvent e) {
+        invalidarProducto(e.getId());
+    }
+
+    // Solo el detalle: invalidar el listado en cada compra lo dejaria siempre vacio durante una oferta
+    @EventListener
+    public void alModificarStock(StockModificadoEvent e) {
+        ultimoCambioStock.put(e.getId(), generacion.incrementAndGet());
+        invalidarDetalle(e.getId());
+    }
+
+    // Los productos nuevos no tienen detalle cacheado; solo cambia el listado
+    @EventListener
+    public void alImportarProductos(ProductosImportadosEvent e) {
+        cambio();
+        respuestas.asMap().keySet().removeIf(clave -> clave.startsWith(PREFIJO_LISTADO));
+    }
+
+    // El nombre de la categoria va dentro de cada producto. Crear o borrar una categoria no afecta a ninguno
+    @EventListener
+    public void alModificarCategoria(CategoriaModificadaEvent e) {
+        if (e.getTipo() != TipoCambio.ACTUALIZADO) return;
+        cambio();
+        respuestas.invalidateAll();
+        variantes.clear();
+    }
+
+    private void invalidarProducto(Long id) {
+        cambio();
+        invalidarDetalle(id);
+        respuestas.asMap().keySet().removeIf(clave -> clave.startsWith(PREFIJO_LISTADO));
+    }
+
+    private void invalidarDetalle(Long id) {
+        respuestas.invalidate(PREFIJO_PRODUCTO + id);
+        Set<String> claves = variantes.remove(id);
+        if (claves != null) respuestas.invalidateAll(claves);
+    }
+
+    private void cambio() {
+        ultimoCambio.accumulateAndGet(generacion.incrementAndGet(), Math::max);
+    }
+
+    // Las variantes que caducan o salen por tamano dejan de apuntarse
+    private void olvidarVariante(String clave) {
+        Long id = idDetalle(clave);
+        if (id == null) return;
+        variantes.computeIfPresent(id, (k, claves) -> {
+            claves.remove(clave);
+            return claves.isEmpty() ? null : claves;
+        });
+    }
+
+    // "/api/productos/{id}" o "/api/productos/{id}?fields=..."; null para el listado
+    private static Long idDetalle(String clave) {
+        if (!clave.startsWith(PREFIJO_PRODUCTO)) return null;
+        int fin = clave.indexOf('?');
+        try {
+            return Long.valueOf(clave.substring(PREFIJO_PRODUCTO.length(), fin < 0 ? clave.length() : fin));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static byte[] comprimir(byte[] json) {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(salida)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return salida.toByteArray();
+    }
+
+    public static final class RespuestaCacheada {
+
+        private final byte[] json;
+        private final byte[] gzip;
+        private final String etag;
+
+        RespuestaCacheada(byte[] json, byte[] gzip, String etag) {
+            this.json = json;
+            this.gzip = gzip;
+            this.etag = etag;
+        }
+
+        public byte[] getJson() {
+            return json;
+        }
+
+        public byte[] getGzip() {
+            return gzip;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.alexr.ecommerce.service;
+
+import com.alexr.ecommerce.config.UsuarioPrincipal;
+import com.alexr.ecommerce.exception.UsuarioNotFoundException;
+import com.alexr.ecommerce.model.TokenRevocado;
+import com.alexr.ecommerce.repository.RevocacionUsuario;
+import com.alexr.ecommerce.repository.TokenRevocadoRepository;
+import com.alexr.ecommerce.repository.UsuarioRepository;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongConsumer;
+
+// Lista de tokens revocados. La comprobacion se hace en cada peticion, asi que se resuelve en memoria:
+// un filtro Bloom descarta casi todos los tokens no revocados y solo los positivos consultan la cubeta
+// de su hora de expiracion. Las cubetas caducadas se descartan enteras.
+@Service
+public class RevocacionTokenService {
+
+    private static final long SEGUNDOS_CUBETA = 3600;
+    private static final int BITS_FILTRO = 1 << 20;
+
+    private final TokenRevocadoRepository tokenRepo;
+    private final UsuarioRepository usuarioRepo;
+    private final JwtService jwtService;
+    private final long expirationTime;
+
+    private final ConcurrentHashMap<Long, Cubeta> cubetas = new ConcurrentHashMap<>();
+    private volatile FiltroBloom filtro = new FiltroBloom(BITS_FILTRO);
+
+    // id de usuario -> milisegundo epoch hasta el que sus tokens estan revocados
+    private final ConcurrentHashMap<Long, Long> usuariosRevocados = new ConcurrentHashMap<>();
+
+    public RevocacionTokenService(TokenRevocadoRepository tokenRepo, UsuarioRepository usuarioRepo, JwtService jwtService,
+                                  @Value("${jwt.expiration}") long expirationTime) {
+        this.tokenRepo = tokenRepo;
+        this.usuarioRepo = usuarioRepo;
+        this.jwtService = jwtService;
+        this.expirationTime = expirationTime;
+    }
+
+    @PostConstruct
+    public synchronized void cargar() {
+        Instant ahora = Instant.now();
+        for (TokenRevocado t : tokenRepo.findByExpiracionAfter(ahora)) {
+            anadirEnMemoria(t.getHuella(), t.getExpiracion().getEpochSecond());
+        }
+        for (RevocacionUsuario r : usuarioRepo.findByTokensRevocadosHastaAfter(ahora.minusMillis(expirationTime))) {
+            usuariosRevocados.put(r.getId(), r.getTokensRevocadosHasta().toEpochMilli());
+        }
+    }
+
+    public boolean estaRevocado(Claims claims) {
+        if (!usuariosRevocados.isEmpty()) {
+            Long usuarioId = claims.get(UsuarioPrincipal.CLAIM_ID, Long.class);
+            Long hasta = usuarioId != null ? usuariosRevocados.get(usuarioId) : null;
+            Long emitido = emitidoMs(claims);
+            if (hasta != null && emitido != null && emitido <= hasta) return true;
+        }
+
+        String jti = claims.getId();
+        if (jti == null || claims.getExpiration() == null) return false;
+
+        long huella = huella(jti);
+        if (!filtro.puedeContener(huella)) return false;
+        Cubeta cubeta = cubetas.get(cubeta(claims.getExpiration().getTime() / 1000));
+        return cubeta != null && cubeta.contiene(huella);
+    }
+
+    // Logout: revoca el token recibido si es valido. Un token invalido o caducado ya no sirve, no hay nada que hacer
+    public void revocarToken(String token) {
+        Claims claims = jwtService.validarToken(token);
+        if (claims == null || claims.getId() == null) return;
+        revocar(claims.getId(), claims.getExpiration());
+    }
+
+    public synchronized void revocar(String jti, Date expiracion) {
+        Instant exp = expiracion.toInstant();
+        if (!exp.isAfter(Instant.now())) return;
+
+        long huella = huella(jti);
+        tokenRepo.save(new TokenRevocado(huella, exp));
+        anadirEnMemoria(huella, exp.getEpochSecond());
+    }
+
+    // Invalida todos los tokens emitidos hasta ahora para el usuario (cuenta comprometida, cambio de rol...)
+    public void revocarTokensUsuario(Long usuarioId) {
+        Instant hasta = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        if (usuarioRepo.revocarTokens(usuarioId, hasta) == 0)
+            throw new UsuarioNotFoundException("Usuario con ID: " + usuarioId + " no encontrado.");
+        usuariosRevocados.put(usuarioId, hasta.toEpochMilli());
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocacion.purga-ms:600000}")
+    public void purgar() {
+        long ahora = Instant.now().getEpochSecond();
+
+        synchronized (this) {
+            cubetas.keySet().removeIf(c -> (c + 1) * SEGUNDOS_CUBETA <= ahora);
+            FiltroBloom nuevo = new FiltroBloom(BITS_FILTRO);
+            cubetas.values().forEach(c -> c.forEach(nuevo::anadir));
+            filtro = nuevo;
+        }
+
+        long limiteUsuarios = ahora * 1000 - expirationTime;
+        usuariosRevocados.values().removeIf(hasta -> hasta < limiteUsuarios);
+
+        tokenRepo.borrarCaducados(Instant.ofEpochSecond(ahora));
+    }
+
+    // Instante de emision en milisegundos. Los tokens anteriores al claim iatMs solo traen iat en segundos: se
+    // toman como emitidos al principio de ese segundo, y los del mismo segundo que la revocacion quedan revocados
+    private static Long emitidoMs(Claims claims) {
+        Long emitido = claims.get(JwtService.CLAIM_EMITIDO_MS, Long.class);
+        if (emitido != null) return emitido;
+        return claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : null;
+    }
+
+    private void anadirEnMemoria(long huella, long expiracionSegundos) {
+        cubetas.computeIfAbsent(cubeta(expiracionSegundos), c -> new Cubeta()).anadir(huella);
+        filtro.anadir(huella);
+    }
+
+    private static long cubeta(long expiracionSegundos) {
+        return expiracionSegundos / SEGUNDOS_CUBETA;
+    }
+
+    // FNV-1a de 64 bits con mezcla final
+    static long huella(String jti) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < jti.length(); i++) {
+            h ^= jti.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= (h >>> 33);
+        h *= 0xff51afd7ed558ccdL;
+        h ^= (h >>> 33);
+        // El 0 marca hueco libre en las cubetas
+        return h != 0 ? h : 1;
+    }
+
+    private static final class FiltroBloom {
+
+        private static final int FUNCIONES = 3;
+
+        private final AtomicLongArray bits;
+        private final int mascara;
+
+        FiltroBloom(int numBits) {
+            this.bits = new AtomicLongArray(numBits / 64);
+            this.mascara = numBits - 1;
+        }
+
+        void anadir(long huella) {
+            for (int i = 0; i < FUNCIONES; i++) {
+                int bit = indice(huella, i);
+                bits.getAndAccumulate(bit >>> 6, 1L << bit, (a, b) -> a | b);
+            }
+        }
+
+        boolean puedeContener(long huella) {
+            for (int i = 0; i < FUNCIONES; i++) {
+                int bit = indice(huella, i);
+                if ((bits.get(bit >>> 6) & (1L << bit)) == 0) return false;
+            }
+            return true;
+        }
+
+        private int indice(long huella, int i) {
+            return ((int) huella + i * (int) (huella >>> 32)) & mascara;
+        }
+    }
+
+    // Conjunto de huellas con direccionamiento abierto: lecturas sin bloqueo, escrituras sincronizadas
+    private static final class Cubeta {
+
+        private volatile AtomicLongArray tabla = new AtomicLongArray(64);
+        private int tamano;
+
+        boolean contiene(long huella) {
+            AtomicLongArray t = tabla;
+            int mascara = t.length() - 1;
+            for (int i = posicion(huella, mascara); ; i = (i + 1) & mascara) {
+                long valor = t.get(i);
+                if (valor == 0) return false;
+                if (valor == huella) return true;
+            }
+        }
+
+        synchronized void anadir(long huella) {
+            if ((tamano + 1) * 2 > tabla.length()) {
+                AtomicLongArray mayor = new AtomicLongArray(tabla.length() * 2);
+                forEach(h -> insertar(mayor, h));
+                tabla = mayor;
+            }
+            if (insertar(tabla, huella)) tamano++;
+        }
+
+        void forEach(LongConsumer accion) {
+            AtomicLongArray t = tabla;
+            for (int i = 0; i < t.length(); i++) {
+                long valor = t.get(i);
+                if (valor != 0) accion.accept(valor);
+            }
+        }
+
+        private static boolean insertar(AtomicLongArray t, long huella) {
+            int mascara = t.length() - 1;
+            for (int i = posicion(huella, mascara); ; i = (i + 1) & mascara) {
+                long valor = t.get(i);
+                if (valor == huella) return false;
+                if (valor == 0) {
+                    t.set(i, huella);
+                    return true;
+                }
+            }
+        }
+
+        private static int posicion(long huella, int mascara) {
+            return (int) (huella ^ (huella >>> 32)) & mascara;
+        }
+    }
+}
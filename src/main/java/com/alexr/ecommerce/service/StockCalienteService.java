@@ -0,0 +1,367 @@
+package com.alexr.ecommerce.service;
+
+import com.alexr.ecommerce.dto.MovimientoStockDTO;
+import com.alexr.ecommerce.event.StockModificadoEvent;
+import com.alexr.ecommerce.exception.ProductoNotFoundException;
+import com.alexr.ecommerce.exception.ServicioSaturadoException;
+import com.alexr.ecommerce.model.ArrendamientoStock;
+import com.alexr.ecommerce.repository.ArrendamientoStockRepository;
+import com.alexr.ecommerce.repository.EstadoStock;
+import com.alexr.ecommerce.repository.ProductoRepository;
+import com.alexr.ecommerce.repository.ProductoStockRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Modo caliente para los pocos productos que se llevan casi todas las compras en una oferta flash. En vez de restar
+// cada compra en la fila del producto (en MySQL todas esperan al bloqueo de esa fila), el producto saca unidades
+// por tandas a un ArrendamientoStock y las reparte en franjas en memoria, una por core: cada compra reserva de su
+// franja con un compareAndSet, sin bloqueos. Las ventas se apuntan en el arrendamiento cada pocos milisegundos con
+// un solo update y la compra no se confirma al cliente hasta ese update, asi que lo confirmado siempre esta en
+// vendidas. Si la aplicacion se cae, al arrancar se devuelve a la fila concedidas - vendidas: nada se vende dos
+// veces y el stock nunca queda negativo. Pensado para una sola instancia (al arrancar se cierran todos los abiertos)
+@Service
+public class StockCalienteService {
+
+    // Despues de ver la fila sin stock, cuanto esperar antes de volver a consultarla
+    private static final long ESPERA_AGOTADO = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final ProductoRepository repoP;
+    private final ProductoStockRepository repoStock;
+    private final ArrendamientoStockRepository repoA;
+    private final ApplicationEventPublisher eventos;
+    private final TransactionTemplate transactionTemplate;
+    private final ReintentoOptimista reintento;
+    private final int tamanoArrendamiento;
+    private final long confirmacionMs;
+    private final long esperaConfirmacionMs;
+    private final Map<Long, Contador> contadores = new ConcurrentHashMap<>();
+
+    // Hilo propio para el group commit: en el scheduler comun de Spring (un solo hilo) cualquier otra tarea lenta,
+    // como la purga de tokens revocados, dejaria a todos los compradores esperando
+    private final ScheduledExecutorService confirmador =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("stock-caliente-"));
+
+    public StockCalienteService(ProductoRepository repoP, ProductoStockRepository repoStock,
+                                ArrendamientoStockRepository repoA, ApplicationEventPublisher eventos, PlatformTransactionManager transactionManager,
+                                ReintentoOptimista reintento,
+                                @Value("${stock.caliente.arrendamiento:200}") int tamanoArrendamiento,
+                                @Value("${stock.caliente.confirmacion-ms:5}") long confirmacionMs,
+                                @Value("${stock.caliente.espera-confirmacion-ms:2000}") long esperaConfirmacionMs) {
+        this.repoP = repoP;
+        this.repoStock = repoStock;
+        this.repoA = repoA;
+        this.eventos = eventos;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reintento = reintento;
+        this.tamanoArrendamiento = tamanoArrendamiento;
+        this.confirmacionMs = confirmacionMs;
+        this.esperaConfirmacionMs = esperaConfirmacionMs;
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        confirmador.scheduleWithFixedDelay(() -> {
+            // Una excepcion que saliera de aqui cancelaria las siguientes vueltas. Lo pendiente se intenta en la
+            // siguiente, y la compra que no llegue a tiempo responde 503
+            try {
+                confirmarVentas();
+            } catch (RuntimeException ignorada) {
+            }
+        }, confirmacionMs, confirmacionMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void activar(Long id) {
+        if (repoP.findEstadoStock(id).isEmpty())
+            throw new ProductoNotFoundException("Producto con ID: " + id + " no encontrado.");
+        contadores.computeIfAbsent(id, p -> new Contador(p, repoA.save(new ArrendamientoStock(p)).getId(),
+                Runtime.getRuntime().availableProcessors()));
+    }
+
+    // Lo que queda en memoria vuelve a la fila del producto
+    public void desactivar(Long id) {
+        Contador c = contadores.remove(id);
+        if (c != null) cerrar(c);
+    }
+
+    public boolean esCaliente(Long id) {
+        return contadores.containsKey(id);
+    }
+
+    // En modo caliente parte del stock esta arrendado en las franjas: si se sobrescribe la fila, las franjas lo siguen
+    // vendiendo y al desactivar se devuelve encima del valor nuevo. Si otra tanda se arrienda mientras tanto, el
+    // save del que escribe falla por @Version (arrendar sube la version)
+    static String mensajeStockArrendado(Long id) {
+        return "El producto con ID: " + id + " esta en modo caliente; desactivalo antes de cambiar su stock";
+    }
+
+    // Vacio si el producto no esta en modo caliente: entonces la compra se resta directamente en la fila
+    public Optional<MovimientoStockDTO> decrementar(Long id, int cantidad) {
+        Contador c = contadores.get(id);
+        if (c == null) return Optional.empty();
+
+        Venta venta = vender(c, cantidad);
+        if (venta == null) {
+            // Desactivado mientras tanto: lo que habia en memoria ya esta otra vez en la fila
+            if (c.cerrado) return Optional.empty();
+            return Optional.of(movimiento(c, cantidad, false));
+        }
+        try {
+            venta.confirmada.get(esperaConfirmacionMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // No ha quedado apuntada: las unidades siguen sin vender y se puede reintentar
+            throw new ServicioSaturadoException("No se ha podido confirmar la compra, inténtalo de nuevo");
+        } catch (TimeoutException | InterruptedException e) {
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+            // Si nadie la ha sacado aun de la cola se retira y las unidades vuelven a las franjas. Si ya se esta
+            // apuntando, queda vendida o no segun acabe ese update; en ningun caso se vende dos veces
+            if (c.pendientes.remove(venta)) c.repartir(cantidad);
+            throw new ServicioSaturadoException("No se ha podido confirmar la compra a tiempo, inténtalo de nuevo");
+        }
+        return Optional.of(movimiento(c, cantidad, true));
+    }
+
+    // Group commit: todas las ventas reservadas desde la ultima vez se apuntan con un solo update por producto.
+    // Lo ejecuta el hilo confirmador cada stock.caliente.confirmacion-ms
+    public void confirmarVentas() {
+        contadores.values().forEach(this::confirmar);
+    }
+
+    // Tras una caida, lo reservado y no confirmado no se llego a vender: se devuelve todo menos lo vendido
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconciliar() {
+        repoA.findByAbiertoTrue().forEach(a -> devolver(a.getId()));
+    }
+
+    @PreDestroy
+    public void cerrarTodos() {
+        confirmador.shutdown();
+        List.copyOf(contadores.keySet()).forEach(this::desactivar);
+    }
+
+    private Venta vender(Contador c, int cantidad) {
+        c.enVuelo.increment();
+        try {
+            if (!c.reservar(cantidad) && !rellenar(c, cantidad)) return null;
+            Venta venta = new Venta(cantidad);
+            c.pendientes.add(venta);
+            return venta;
+        } finally {
+            c.enVuelo.decrement();
+        }
+    }
+
+    // Camino lento, de uno en uno por producto: junta lo que queda en las franjas y, si no basta, arrienda otra tanda
+    private boolean rellenar(Contador c, int cantidad) {
+        synchronized (c) {
+            if (c.cerrado) return false;
+            // Otro hilo puede haber rellenado mientras este esperaba
+            if (c.reservar(cantidad)) return true;
+
+            int sueltas = c.juntar();
+            if (sueltas < cantidad && System.nanoTime() >= c.agotadoHasta) {
+                sueltas += arrendar(c, Math.max(cantidad - sueltas, tamanoArrendamiento));
+                if (sueltas == 0 && c.stockFila == 0 && repoStock.marcarAgotado(c.productoId) == 1)
+                    publicar(c.productoId, true);
+            }
+            if (sueltas < cantidad) {
+                c.repartir(sueltas);
+                return false;
+            }
+            c.repartir(sueltas - cantidad);
+            return true;
+        }
+    }
+
+    // Si otra compra de la fila (un pedido, una reposicion) se cruza entre la lectura y el update, se vuelve a leer
+    // y a calcular la tanda con espera entre intentos. Agotados los intentos, esta compra no consigue unidades
+    private int arrendar(Contador c, int unidades) {
+        try {
+            return reintento.ejecutar("stock.arrendar", () -> arrendarTanda(c, unidades));
+        } catch (OptimisticLockingFailureException e) {
+            return 0;
+        }
+    }
+
+    // Resta las unidades de la fila y las suma al arrendamiento en la misma transaccion. El update de la fila va por
+    // JDBC (ProductoStockRepository) condicionado a la version leida: cada tanda solo quita de la cache de segundo
+    // nivel este producto
+    private int arrendarTanda(Contador c, int unidades) {
+        EstadoStock estado = repoP.findEstadoStock(c.productoId).orElse(null);
+        if (estado == null) return 0;
+        c.stockFila = estado.getStock();
+        c.version = estado.getVersion();
+
+        int pedidas = Math.min(unidades, estado.getStock());
+        if (pedidas == 0) {
+            c.agotadoHasta = System.nanoTime() + ESPERA_AGOTADO;
+            return 0;
+        }
+        Boolean concedidas = transactionTemplate.execute(status -> {
+            if (repoStock.arrendar(c.productoId, estado.getVersion(), pedidas) == 0)
+                throw new OptimisticLockingFailureException("El producto con ID: " + c.productoId + " ha cambiado");
+            if (repoA.ampliar(c.arrendamientoId, pedidas) == 1) return true;
+            // El arrendamiento ya esta cerrado: no se arrienda nada
+            status.setRollbackOnly();
+            return false;
+        });
+        if (!Boolean.TRUE.equals(concedidas)) return 0;
+
+        c.stockFila = estado.getStock() - pedidas;
+        c.version = estado.getVersion() + 1;
+        eventos.publishEvent(new StockModificadoEvent(c.productoId, c.stockFila, false));
+        return pedidas;
+    }
+
+    private void confirmar(Contador c) {
+        // Con el cerrojo, el cierre no puede calcular lo que se devuelve mientras se apunta una tanda
+        synchronized (c.confirmacion) {
+            List<Venta> ventas = new ArrayList<>();
+            long unidades = 0;
+            for (Venta v; (v = c.pendientes.poll()) != null; ) {
+                ventas.add(v);
+                unidades += v.cantidad;
+            }
+            if (ventas.isEmpty()) return;
+
+            try {
+                repoA.confirmarVentas(c.arrendamientoId, unidades);
+            } catch (RuntimeException e) {
+                // No se ha vendido nada: las unidades vuelven a las franjas
+                c.repartir((int) unidades);
+                ventas.forEach(v -> v.confirmada.completeExceptionally(e));
+                return;
+            }
+            ventas.forEach(v -> v.confirmada.complete(null));
+        }
+    }
+
+    private void cerrar(Contador c) {
+        c.cerrar();
+        // Las compras que ya habian reservado terminan de encolarse antes de la ultima confirmacion
+        while (c.enVuelo.sum() > 0) Thread.onSpinWait();
+        synchronized (c.confirmacion) {
+            confirmar(c);
+            devolver(c.arrendamientoId);
+        }
+    }
+
+    private void devolver(Long arrendamientoId) {
+        Long productoId = transactionTemplate.execute(status -> {
+            ArrendamientoStock a = repoA.findById(arrendamientoId).orElse(null);
+            if (a == null || repoA.cerrar(a.getId()) == 0) return null;
+            long resto = a.getConcedidas() - a.getVendidas();
+            if (resto <= 0) return null;
+            repoStock.incrementar(a.getProductoId(), (int) resto);
+            return a.getProductoId();
+        });
+        if (productoId != null) publicar(productoId, true);
+    }
+
+    private void publicar(Long id, boolean cambiaDisponible) {
+        repoP.findEstadoStock(id)
+                .ifPresent(e -> eventos.publishEvent(new StockModificadoEvent(id, e.getStock(), cambiaDisponible)));
+    }
+
+    // El stock que se devuelve es aproximado: lo que queda en memoria mas lo ultimo leido de la fila
+    private static MovimientoStockDTO movimiento(Contador c, int cantidad, boolean realizado) {
+        int stock = c.enMemoria() + c.stockFila;
+        return new MovimientoStockDTO(c.productoId, cantidad, realizado, stock, stock > 0, c.version);
+    }
+
+    private static final class Contador {
+
+        // Cada franja ocupa su propia linea de cache (16 ints = 64 bytes) para que los cores no se pisen
+        private static final int SEPARACION = 16;
+        private static final int CERRADO = Integer.MIN_VALUE / 2;
+
+        private final Long productoId;
+        private final Long arrendamientoId;
+        private final int franjas;
+        private final AtomicIntegerArray unidades;
+        // Compras que estan reservando ahora mismo; al cerrar se espera a que terminen de encolarse
+        private final LongAdder enVuelo = new LongAdder();
+        private final Queue<Venta> pendientes = new ConcurrentLinkedQueue<>();
+        private final Object confirmacion = new Object();
+        private volatile boolean cerrado;
+        private volatile int stockFila;
+        private volatile long version;
+        private volatile long agotadoHasta;
+
+        Contador(Long productoId, Long arrendamientoId, int franjas) {
+            this.productoId = productoId;
+            this.arrendamientoId = arrendamientoId;
+            this.franjas = franjas;
+            this.unidades = new AtomicIntegerArray(franjas * SEPARACION);
+        }
+
+        // Empieza por la franja del hilo; si no tiene bastante, prueba las demas
+        boolean reservar(int cantidad) {
+            int inicio = (int) (Thread.currentThread().threadId() % franjas);
+            for (int i = 0; i < franjas; i++) {
+                int f = ((inicio + i) % franjas) * SEPARACION;
+                for (int v = unidades.get(f); v >= cantidad; v = unidades.get(f)) {
+                    if (unidades.compareAndSet(f, v, v - cantidad)) return true;
+                }
+            }
+            return false;
+        }
+
+        int juntar() {
+            int total = 0;
+            for (int i = 0; i < franjas; i++) total += unidades.getAndSet(i * SEPARACION, 0);
+            return total;
+        }
+
+        void repartir(int total) {
+            for (int i = 0; i < franjas; i++)
+                unidades.addAndGet(i * SEPARACION, total / franjas + (i < total % franjas ? 1 : 0));
+        }
+
+        int enMemoria() {
+            int total = 0;
+            for (int i = 0; i < franjas; i++) total += Math.max(unidades.get(i * SEPARACION), 0);
+            return total;
+        }
+
+        // Con el mismo cerrojo que el camino lento: despues de esto ninguna franja vuelve a tener unidades
+        synchronized void cerrar() {
+            cerrado = true;
+            for (int i = 0; i < franjas; i++) unidades.set(i * SEPARACION, CERRADO);
+        }
+    }
+
+    private static final class Venta {
+
+        private final int cantidad;
+        private final CompletableFuture<Void> confirmada = new CompletableFuture<>();
+
+        Venta(int cantidad) {
+            this.cantidad = cantidad;
+        }
+    }
+}
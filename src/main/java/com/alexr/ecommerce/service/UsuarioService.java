@@ -8,20 +8,22 @@ import com.alexr.ecommerce.exception.UsuarioYaExisteException;
 import com.alexr.ecommerce.model.Rol;
 import com.alexr.ecommerce.model.Usuario;
 import com.alexr.ecommerce.repository.UsuarioRepository;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 @Service
 public class UsuarioService {
 
     private UsuarioRepository repository;
-    private PasswordEncoder passwordEncoder;
+    private PasswordService passwordService;
     private JwtService jwtService;
+    private CustomUserDetailsService userDetailsService;
 
-    public UsuarioService(UsuarioRepository repository, PasswordEncoder passwordEncoder, JwtService jwtService) {
+    public UsuarioService(UsuarioRepository repository, PasswordService passwordService, JwtService jwtService,
+                          CustomUserDetailsService userDetailsService) {
         this.repository = repository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordService = passwordService;
         this.jwtService = jwtService;
+        this.userDetailsService = userDetailsService;
     }
 
     public AuthResponseDTO registrar(AuthRequestDTO authRequestDTO){
@@ -30,21 +32,27 @@ public class UsuarioService {
             throw new UsuarioYaExisteException("Este usuario ya esta registrado");
         }
 
-        String password = passwordEncoder.encode(authRequestDTO.getPassword());
+        String password = passwordService.codificar(authRequestDTO.getPassword());
         Usuario usuario = new Usuario(authRequestDTO.getNombre(), password, Rol.ROLE_USUARIO);
         repository.save(usuario);
+        userDetailsService.invalidar(usuario.getNombre());
 
         return new AuthResponseDTO(jwtService.generateToken(usuario));
 
     }
 
     public AuthResponseDTO login(AuthRequestDTO authRequestDTO){
-        Usuario usuario = repository.findByNombre(authRequestDTO.getNombre())
+        Usuario usuario = userDetailsService.buscarPorNombre(authRequestDTO.getNombre())
                 .orElseThrow(() -> new UsuarioNoRegistradoException("Nombre o contraseña incorrecto"));
 
 
 
-        if (passwordEncoder.matches(authRequestDTO.getPassword(), usuario.getPassword())){
+        if (passwordService.verificar(authRequestDTO.getPassword(), usuario.getPassword())){
+            if (passwordService.necesitaRehash(usuario.getPassword())) {
+                usuario.setPassword(passwordService.codificar(authRequestDTO.getPassword()));
+                repository.save(usuario);
+                userDetailsService.invalidar(usuario.getNombre());
+            }
             return new AuthResponseDTO(jwtService.generateToken(usuario));
 
         } else throw new PasswordInvalidaException("Nombre o contraseña incorrecto");
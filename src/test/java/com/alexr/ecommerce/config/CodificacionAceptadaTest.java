@@ -0,0 +1,29 @@
+package com.alexr.ecommerce.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CodificacionAceptadaTest {
+
+    @Test
+    void cuandoElClienteAceptaGzip_debeComprimir() {
+        assertTrue(CodificacionAceptada.gzip("gzip, deflate, br"));
+        assertTrue(CodificacionAceptada.gzip("br;q=1.0, GZIP;q=0.5"));
+        assertTrue(CodificacionAceptada.gzip("deflate, *;q=0.1"));
+    }
+
+    @Test
+    void cuandoElClienteRechazaGzipConQ0_noDebeComprimir() {
+        assertFalse(CodificacionAceptada.gzip("gzip;q=0"));
+        assertFalse(CodificacionAceptada.gzip("gzip; q=0.000, *"));
+        assertFalse(CodificacionAceptada.gzip("*;q=0"));
+    }
+
+    @Test
+    void cuandoGzipSoloApareceDentroDeOtroNombre_noDebeComprimir() {
+        assertFalse(CodificacionAceptada.gzip("x-gzip-no, deflate"));
+        assertFalse(CodificacionAceptada.gzip(""));
+        assertFalse(CodificacionAceptada.gzip(null));
+    }
+}
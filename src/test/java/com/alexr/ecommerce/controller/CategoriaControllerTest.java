@@ -20,6 +20,7 @@ import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -163,7 +164,7 @@ public class CategoriaControllerTest {
         CategoriaRequestDTO c = new CategoriaRequestDTO("Portatiles Actualizados");
         CategoriaResponseDTO c2 = new CategoriaResponseDTO(1L, "Portatiles Actualizados");
 
-        when(service.update(eq(1L), any(CategoriaRequestDTO.class))).thenReturn(c2);
+        when(service.update(eq(1L), any(CategoriaRequestDTO.class), isNull())).thenReturn(c2);
 
         mockMvc.perform(put("/api/categorias/1")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -188,7 +189,7 @@ public class CategoriaControllerTest {
     @Test
     void updateCategoriaNoExiste_debeLanzarExcepcionCategoriaNotFound() throws Exception {
         CategoriaRequestDTO c = new CategoriaRequestDTO("Portatiles");
-        when(service.update(eq(1L), any(CategoriaRequestDTO.class)))
+        when(service.update(eq(1L), any(CategoriaRequestDTO.class), isNull()))
                 .thenThrow(new CategoriaNotFoundException("Categoria con ID:1 no encontrada."));
 
         mockMvc.perform(put("/api/categorias/1")
@@ -2,15 +2,22 @@ package com.alexr.ecommerce.controller;
 
 import com.alexr.ecommerce.dto.CategoriaResponseDTO;
 import com.alexr.ecommerce.dto.ErrorResponse;
+import com.alexr.ecommerce.dto.MovimientoStockDTO;
+import com.alexr.ecommerce.dto.ProductoEncontradoDTO;
 import com.alexr.ecommerce.dto.ProductoRequestDTO;
 import com.alexr.ecommerce.dto.ProductoResponseDTO;
+import com.alexr.ecommerce.dto.ResultadoLoteDTO;
 import com.alexr.ecommerce.exception.ProductoNotFoundException;
 import com.alexr.ecommerce.model.Categoria;
 import com.alexr.ecommerce.model.Producto;
+import com.alexr.ecommerce.repository.VersionProducto;
+import com.alexr.ecommerce.service.FacetaService;
+import com.alexr.ecommerce.service.ProductoLoteService;
 import com.alexr.ecommerce.service.ProductoService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -22,11 +29,16 @@ import tools.jackson.databind.ObjectMapper;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -46,6 +58,12 @@ public class ProductoControllerTest {
     @MockitoBean
     private ProductoService service;
 
+    @MockitoBean
+    private FacetaService facetaService;
+
+    @MockitoBean
+    private ProductoLoteService loteService;
+
     @Test
     void findAllSinProductos_debeDevolerListaVacia() throws Exception {
         Page<ProductoResponseDTO> page = new PageImpl<>(List.of());
@@ -69,22 +87,66 @@ public class ProductoControllerTest {
                 .andExpect(jsonPath("$.totalElements").value(2));
     }
 
+    @Test
+    void findAllConFields_debeDevolverSoloEsosCampos() throws Exception {
+        Page<Map<String, Object>> page = new PageImpl<>(List.of(Map.of("id", 1L, "nombre", "MacBook")));
+        when(service.findAll(any(Pageable.class), eq("id,nombre"))).thenReturn(page);
+
+        mockMvc.perform(get("/api/productos").param("fields", "id,nombre"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].nombre").value("MacBook"))
+                .andExpect(jsonPath("$.content[0].descripcion").doesNotExist());
+        verify(service, never()).findAll(any(Pageable.class));
+    }
+
+    @Test
+    void findByIds_debeDevolverCadaIdConSuProductoOEncontradoFalse() throws Exception {
+        CategoriaResponseDTO c = new CategoriaResponseDTO(1L, "Portatiles");
+        ProductoResponseDTO p = new ProductoResponseDTO(1L, "MacBook", 0, BigDecimal.valueOf(1234.54), "Portatil de Apple",true, c);
+        when(service.findByIds(List.of(1L, 9L)))
+                .thenReturn(List.of(new ProductoEncontradoDTO(1L, p), new ProductoEncontradoDTO(9L, null)));
+
+        mockMvc.perform(get("/api/productos").param("ids", "1,9"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].producto.nombre").value("MacBook"))
+                .andExpect(jsonPath("$[1].id").value(9))
+                .andExpect(jsonPath("$[1].encontrado").value(false));
+
+        mockMvc.perform(post("/api/productos/multiget")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1, 9]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
     @Test
     void findByIdProductoExiste_debeDevolverOkYElProducto() throws Exception {
         CategoriaResponseDTO c = new CategoriaResponseDTO(1L, "Portatiles");
         ProductoResponseDTO p = new ProductoResponseDTO(1L, "MacBook", 0, BigDecimal.valueOf(1234.54), "Portatil de Apple",true, c);
 
+        when(service.findVersion(1L)).thenReturn(mock(VersionProducto.class));
         when(service.findById(1L)).thenReturn(p);
 
         mockMvc.perform(get("/api/productos/1"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"p1.0.0\""))
                 .andExpect(content().json(objectMapper.writeValueAsString(p)));
     }
 
+    @Test
+    void findByIdConEtagVigente_debeDevolverNotModifiedSinCargarElProducto() throws Exception {
+        when(service.findVersion(1L)).thenReturn(mock(VersionProducto.class));
+
+        mockMvc.perform(get("/api/productos/1").header("If-None-Match", "\"p1.0.0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        verify(service, never()).findById(1L);
+    }
+
     @Test
     void findByIdProductoNoExiste_debeLanzarExcepcionProductoNotFound() throws Exception {
 
-        when(service.findById(1L)).thenThrow(new ProductoNotFoundException("Producto con ID:1 no encontrado."));
+        when(service.findVersion(1L)).thenThrow(new ProductoNotFoundException("Producto con ID:1 no encontrado."));
 
         mockMvc.perform(get("/api/productos/1"))
                 .andExpect(status().is(404))
@@ -150,7 +212,7 @@ public class ProductoControllerTest {
         CategoriaResponseDTO c = new CategoriaResponseDTO(1L, "Portatiles");
         ProductoResponseDTO p2 = new ProductoResponseDTO(1L, "MacBook", 0, BigDecimal.valueOf(1234.54), "Portatil de Apple",true, c);
 
-        when(service.update(eq(1L), any(ProductoRequestDTO.class))).thenReturn(p2);
+        when(service.update(eq(1L), any(ProductoRequestDTO.class), isNull())).thenReturn(p2);
 
         mockMvc.perform(put("/api/productos/1")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -159,6 +221,21 @@ public class ProductoControllerTest {
                 .andExpect(content().json(objectMapper.writeValueAsString(p2)));
     }
 
+    @Test
+    void updateConIfMatchDeUnaVersionAnterior_debeDevolverPreconditionFailed() throws Exception {
+        ProductoRequestDTO p = new ProductoRequestDTO("MacBook", 0, BigDecimal.valueOf(1234.54), "Portatil de Apple", 1L);
+        VersionProducto v = mock(VersionProducto.class);
+        when(v.getVersion()).thenReturn(3L);
+        when(service.findVersion(1L)).thenReturn(v);
+
+        mockMvc.perform(put("/api/productos/1")
+                        .header("If-Match", "\"p1.2.0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(p)))
+                .andExpect(status().isPreconditionFailed());
+        verify(service, never()).update(eq(1L), any(ProductoRequestDTO.class), any());
+    }
+
     @Test
     void updateProductoConAtributosNoValidos_debeLanzarMethodArgumentNotValidException() throws Exception {
         ProductoRequestDTO p = new ProductoRequestDTO(null, 0, BigDecimal.valueOf(1234.54), "Portatil de Apple", 1L);
@@ -175,7 +252,7 @@ public class ProductoControllerTest {
     @Test
     void updateProductoNoExiste_debeLanzarExcepcionProductoNotFound() throws Exception {
         ProductoRequestDTO p = new ProductoRequestDTO("MacBook", 0, BigDecimal.valueOf(1234.54), "Portatil de Apple", 1L);
-        when(service.update(eq(1L), any(ProductoRequestDTO.class))).thenThrow(new ProductoNotFoundException("Producto con ID:1 no encontrado."));
+        when(service.update(eq(1L), any(ProductoRequestDTO.class), isNull())).thenThrow(new ProductoNotFoundException("Producto con ID:1 no encontrado."));
 
         mockMvc.perform(put("/api/productos/1")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -186,4 +263,73 @@ public class ProductoControllerTest {
                 .andExpect(jsonPath("$.error").value("Producto no encontrado"));
     }
 
+    @Test
+    void crearLote_debeDevolverUnResultadoPorElemento() throws Exception {
+        List<ProductoRequestDTO> lote = List.of(
+                new ProductoRequestDTO("MacBook", 3, BigDecimal.valueOf(1234.54), "Portatil de Apple", 1L),
+                new ProductoRequestDTO("Ipad", 1, BigDecimal.valueOf(500), "Tablet", 99L));
+        when(loteService.crear(any())).thenReturn(List.of(
+                new ResultadoLoteDTO(0, 10L, ResultadoLoteDTO.Estado.CREADO, null),
+                ResultadoLoteDTO.error(1, null, "Categoria: 99 no existe.")));
+
+        mockMvc.perform(post("/api/productos/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(lote)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].estado").value("CREADO"))
+                .andExpect(jsonPath("$[0].id").value(10))
+                .andExpect(jsonPath("$[1].estado").value("ERROR"));
+    }
+
+    @Test
+    void eliminarLote_noDebeConfundirseConEliminarPorId() throws Exception {
+        when(loteService.eliminar(List.of(1L, 2L))).thenReturn(List.of(
+                new ResultadoLoteDTO(0, 1L, ResultadoLoteDTO.Estado.ELIMINADO, null),
+                new ResultadoLoteDTO(1, 2L, ResultadoLoteDTO.Estado.ELIMINADO, null)));
+
+        mockMvc.perform(delete("/api/productos/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1,2]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[1].estado").value("ELIMINADO"));
+        verify(service, never()).delete(any());
+    }
+
+    @Test
+    void decrementarStockSinSuficiente_debeDevolver409ConElStockActual() throws Exception {
+        when(service.decrementarStock(1L, 5)).thenReturn(new MovimientoStockDTO(1L, 5, false, 3, true, 7));
+
+        mockMvc.perform(post("/api/productos/1/stock/decrement")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"cantidad\": 5}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.realizado").value(false))
+                .andExpect(jsonPath("$.stock").value(3));
+    }
+
+    @Test
+    void decrementarStockConCantidadNoValida_debeDevolver400() throws Exception {
+        mockMvc.perform(post("/api/productos/1/stock/decrement")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"cantidad\": 0}"))
+                .andExpect(status().is(400))
+                .andExpect(jsonPath("$.message").value("La cantidad debe ser mayor que 0"));
+        verify(service, never()).decrementarStock(any(), eq(0));
+    }
+
+    @Test
+    void updateConConflictoDeVersion_debeDevolver409() throws Exception {
+        ProductoRequestDTO p = new ProductoRequestDTO("MacBook", 0, BigDecimal.valueOf(1234.54), "Portatil de Apple", 1L);
+        when(service.update(eq(1L), any(ProductoRequestDTO.class), isNull()))
+                .thenThrow(new OptimisticLockingFailureException("version"));
+
+        mockMvc.perform(put("/api/productos/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(p)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value(409))
+                .andExpect(jsonPath("$.error").value("Conflicto de version"));
+    }
+
 }
@@ -0,0 +1,115 @@
+package com.alexr.ecommerce.repository;
+
+import com.alexr.ecommerce.model.Producto;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductoStockRepositoryTest {
+
+    @Mock
+    JdbcTemplate jdbcTemplate;
+
+    @Mock
+    EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    SessionFactory sessionFactory;
+
+    @Mock
+    Cache cache;
+
+    ProductoStockRepository repo;
+
+    @BeforeEach
+    void setUp() {
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        repo = new ProductoStockRepository(jdbcTemplate, entityManagerFactory);
+    }
+
+    @Test
+    void cuandoSeRestaStock_soloDebeSalirDeLaCacheEseProducto() {
+        when(jdbcTemplate.update(anyString(), eq(2), eq(2), eq(1L), eq(2))).thenReturn(1);
+        when(sessionFactory.getCache()).thenReturn(cache);
+
+        assertEquals(1, repo.decrementar(1L, 2));
+
+        // Ni la region producto entera ni la cache de consultas: el resto de productos y listados siguen cacheados
+        verify(cache).evictEntityData(Producto.class, 1L);
+        verifyNoMoreInteractions(cache);
+    }
+
+    @Test
+    void cuandoNoHayStockSuficiente_noDebeTocarLaCache() {
+        when(jdbcTemplate.update(anyString(), eq(5), eq(5), eq(1L), eq(5))).thenReturn(0);
+
+        assertEquals(0, repo.decrementar(1L, 5));
+
+        verifyNoInteractions(sessionFactory);
+    }
+
+    @Test
+    void cuandoSeArriendaUnaTandaYSeAgota_soloDebeSalirDeLaCacheEseProducto() {
+        when(jdbcTemplate.update(anyString(), eq(200), eq(3L), eq(4L), eq(200))).thenReturn(1);
+        when(jdbcTemplate.update(anyString(), eq(3L))).thenReturn(1);
+        when(sessionFactory.getCache()).thenReturn(cache);
+
+        repo.arrendar(3L, 4L, 200);
+        repo.marcarAgotado(3L);
+
+        verify(cache, times(2)).evictEntityData(Producto.class, 3L);
+        verifyNoMoreInteractions(cache);
+    }
+
+    @Test
+    void cuandoSeEliminaUnLote_soloDebenSalirDeLaCacheLosBorradosYLosListados() {
+        when(jdbcTemplate.update(eq("delete from producto where id in (?, ?)"), any(Object[].class))).thenReturn(2);
+        when(sessionFactory.getCache()).thenReturn(cache);
+
+        assertEquals(2, repo.eliminar(List.of(1L, 2L)));
+
+        verify(cache).evictEntityData(Producto.class, 1L);
+        verify(cache).evictEntityData(Producto.class, 2L);
+        verify(cache).evictQueryRegion("producto-listado");
+        verifyNoMoreInteractions(cache);
+    }
+
+    @Test
+    void cuandoHayTransaccion_debeQuitarElProductoDeLaCacheDespuesDelCommit() {
+        when(jdbcTemplate.update(anyString(), eq(3), eq(1L))).thenReturn(1);
+        when(sessionFactory.getCache()).thenReturn(cache);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            repo.incrementar(1L, 3);
+            verifyNoInteractions(cache);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(cache).evictEntityData(Producto.class, 1L);
+            verifyNoMoreInteractions(cache);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.alexr.ecommerce.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BuscadorProductosTest {
+
+    private BuscadorProductos buscador;
+
+    @BeforeEach
+    void setUp() {
+        buscador = new BuscadorProductos(null);
+        buscador.indexar(1L, "Portátil Lenovo", "Portátil ligero para oficina");
+        buscador.indexar(2L, "Ratón inalámbrico", "Ratón para portátiles y sobremesa");
+        buscador.indexar(3L, "Monitor 27 pulgadas", "Pantalla con luces de fondo");
+    }
+
+    private List<Long> ids(String q) {
+        return buscador.buscar(AnalizadorTexto.terminos(q), null, null, 10).stream()
+                .map(BuscadorProductos.Resultado::getId).toList();
+    }
+
+    @Test
+    void cuandoSeBuscaSinTildesYEnPlural_debeEncontrarElProducto() {
+        assertThat(ids("portatiles")).containsExactly(1L, 2L);
+        assertThat(ids("RATON")).containsExactly(2L);
+        assertThat(ids("luz")).containsExactly(3L);
+    }
+
+    @Test
+    void cuandoSoloHayPalabrasVacias_noDebeHaberTerminos() {
+        assertTrue(AnalizadorTexto.terminos("de la y para").isEmpty());
+    }
+
+    @Test
+    void cuandoSeActualizaUnProducto_debeIndexarElTextoNuevo() {
+        buscador.indexar(3L, "Teclado mecánico", null);
+
+        assertTrue(ids("monitor").isEmpty());
+        assertThat(ids("teclado")).containsExactly(3L);
+        assertEquals(3, buscador.tamano());
+    }
+
+    @Test
+    void cuandoSeEliminaUnProducto_noDebeAparecerEnLaBusqueda() {
+        buscador.eliminar(1L);
+
+        assertThat(ids("portatil")).containsExactly(2L);
+    }
+
+    @Test
+    void cuandoSePaginaConCursor_debeContinuarDespuesDelUltimoResultado() {
+        List<BuscadorProductos.Resultado> primera = buscador.buscar(List.of("portatil"), null, null, 1);
+        BuscadorProductos.Resultado ultimo = primera.get(0);
+
+        List<BuscadorProductos.Resultado> segunda =
+                buscador.buscar(List.of("portatil"), ultimo.getScore(), ultimo.getId(), 1);
+
+        assertEquals(1L, ultimo.getId());
+        assertEquals(2L, segunda.get(0).getId());
+    }
+
+    @Test
+    void cuandoHayMuchasModificaciones_debeCompactarSinPerderProductos() {
+        for (int i = 0; i < 3000; i++) buscador.indexar(2L, "Ratón " + i, null);
+
+        assertThat(ids("raton")).containsExactly(2L);
+        assertThat(ids("portatil")).containsExactly(1L);
+        assertEquals(3, buscador.tamano());
+    }
+}
@@ -15,9 +15,11 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 
 import java.util.Collections;
 import java.util.List;
@@ -37,6 +39,12 @@ class CategoriaServiceTest {
     @Mock
     private ProductoRepository productoRepository;
 
+    @Mock
+    private ConteoService conteoService;
+
+    @Mock
+    private ApplicationEventPublisher eventos;
+
     @InjectMocks
     private CategoriaService categoriaService;
 
@@ -57,29 +65,29 @@ class CategoriaServiceTest {
         @Test
         @DisplayName("Debe retornar lista de categorías cuando existen")
         void findAll_ConCategorias_RetornaLista() {
-            Categoria categoria2 = new Categoria("Ropa");
-            categoria2.setId(2L);
-            Page<Categoria> page = new PageImpl<>(List.of(categoria, categoria2));
-            when(categoriaRepository.findAll(any(Pageable.class))).thenReturn(page);
+            Slice<CategoriaResponseDTO> slice = new SliceImpl<>(List.of(
+                    new CategoriaResponseDTO(1L, "Electrónica"), new CategoriaResponseDTO(2L, "Ropa")));
+            when(categoriaRepository.findAllProyectadas(any(Pageable.class))).thenReturn(slice);
 
-            Page<CategoriaResponseDTO> resultado = categoriaService.findAll(any(Pageable.class));
+            Page<CategoriaResponseDTO> resultado = categoriaService.findAll(Pageable.unpaged());
 
             assertNotNull(resultado);
             assertThat(resultado.getContent()).hasSize(2);
-            verify(categoriaRepository, times(1)).findAll();
+            assertEquals(2, resultado.getTotalElements());
+            verify(categoriaRepository, never()).count();
         }
 
         @Test
         @DisplayName("Debe retornar lista vacía cuando no hay categorías")
         void findAll_SinCategorias_RetornaListaVacia() {
-            Page<Categoria> page = new PageImpl<>(List.of());
-            when(categoriaRepository.findAll(any(Pageable.class))).thenReturn(page);
+            Slice<CategoriaResponseDTO> slice = new SliceImpl<>(List.of());
+            when(categoriaRepository.findAllProyectadas(any(Pageable.class))).thenReturn(slice);
 
-            Page<CategoriaResponseDTO> resultado = categoriaService.findAll(any(Pageable.class));
+            Page<CategoriaResponseDTO> resultado = categoriaService.findAll(Pageable.unpaged());
 
             assertNotNull(resultado);
             assertTrue(resultado.isEmpty());
-            verify(categoriaRepository, times(1)).findAll();
+            verify(categoriaRepository, never()).count();
         }
     }
 
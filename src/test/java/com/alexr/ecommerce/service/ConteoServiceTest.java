@@ -0,0 +1,80 @@
+package com.alexr.ecommerce.service;
+
+import com.alexr.ecommerce.event.ProductoModificadoEvent;
+import com.alexr.ecommerce.event.TipoCambio;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConteoServiceTest {
+
+    private ConteoService conteos;
+    private AtomicLong filas;
+    private AtomicLong consultas;
+
+    @BeforeEach
+    void setUp() {
+        // Executor directo: el refresco en segundo plano se ejecuta en el propio hilo del test
+        conteos = new ConteoService(Duration.ofMinutes(1), 100, new SimpleMeterRegistry(), Runnable::run);
+        filas = new AtomicLong(10);
+        consultas = new AtomicLong();
+    }
+
+    private long contar() {
+        consultas.incrementAndGet();
+        return filas.get();
+    }
+
+    @Test
+    void cuandoSePideElMismoTotalDosVeces_debeContarUnaSolaVez() {
+        assertEquals(10, conteos.total(ConteoService.PRODUCTOS, this::contar));
+        assertEquals(10, conteos.total(ConteoService.PRODUCTOS, this::contar));
+
+        assertEquals(1, consultas.get());
+    }
+
+    @Test
+    void cuandoSeCreaUnProducto_debeRecalcularLosTotalesDeProductos() {
+        conteos.total(ConteoService.PRODUCTOS, this::contar);
+        filas.set(11);
+
+        conteos.alModificarProducto(new ProductoModificadoEvent(11L, null, TipoCambio.CREADO));
+
+        assertEquals(11, conteos.total(ConteoService.PRODUCTOS, this::contar));
+        assertEquals(2, consultas.get());
+    }
+
+    @Test
+    void cuandoSeActualizaUnProducto_noDebeRecalcularElTotal() {
+        conteos.total(ConteoService.PRODUCTOS, this::contar);
+
+        conteos.alModificarProducto(new ProductoModificadoEvent(1L, null, TipoCambio.ACTUALIZADO));
+
+        assertEquals(1, consultas.get());
+    }
+
+    @Test
+    void cuandoCambianLosProductos_noDebeRecalcularLosTotalesDeCategorias() {
+        conteos.total(ConteoService.CATEGORIAS, this::contar);
+
+        conteos.alModificarProducto(new ProductoModificadoEvent(1L, null, TipoCambio.ELIMINADO));
+
+        assertEquals(1, consultas.get());
+    }
+
+    @Test
+    void cuandoSeActualizaUnProducto_debeRecalcularLosTotalesFiltrados() {
+        String clave = ConteoService.PRODUCTOS_FILTRADOS + "disponible=true";
+        conteos.total(clave, this::contar);
+        filas.set(9);
+
+        conteos.alModificarProducto(new ProductoModificadoEvent(1L, null, TipoCambio.ACTUALIZADO));
+
+        assertEquals(9, conteos.total(clave, this::contar));
+    }
+}
@@ -0,0 +1,102 @@
+package com.alexr.ecommerce.service;
+
+import com.alexr.ecommerce.exception.ParametroInvalidoException;
+import com.alexr.ecommerce.model.FormatoCatalogo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import tools.jackson.databind.ObjectMapper;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ExportacionServiceTest {
+
+    @Mock
+    DataSource dataSource;
+
+    @Mock
+    Connection connection;
+
+    @Mock
+    PreparedStatement statement;
+
+    @Mock
+    ResultSet rs;
+
+    ExportacionService exportacion;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(rs);
+
+        // Una fila: producto 7 con una coma y comillas en la descripcion
+        when(rs.next()).thenReturn(true, false);
+        when(rs.getLong(1)).thenReturn(7L);
+        when(rs.getString(2)).thenReturn("MacBook");
+        when(rs.getInt(3)).thenReturn(3);
+        when(rs.getBigDecimal(4)).thenReturn(new BigDecimal("1234.50"));
+        when(rs.getString(5)).thenReturn("Portatil \"Pro\", 16 pulgadas");
+        when(rs.getBoolean(6)).thenReturn(true);
+        when(rs.getLong(7)).thenReturn(1L);
+        when(rs.getString(8)).thenReturn("Portatiles");
+        when(rs.getLong(9)).thenReturn(2L);
+
+        exportacion = new ExportacionService(dataSource, new ObjectMapper());
+    }
+
+    private String exportar(FormatoCatalogo formato) throws Exception {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        exportacion.exportar(formato, 5L, salida);
+        return salida.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void cuandoSeExportaEnCsv_debeEscribirCabeceraYEscaparLosCampos() throws Exception {
+        String csv = exportar(FormatoCatalogo.CSV);
+
+        assertEquals("id,nombre,stock,precio,descripcion,disponible,idCategoria,nombreCategoria,version\n"
+                + "7,MacBook,3,1234.50,\"Portatil \"\"Pro\"\", 16 pulgadas\",true,1,Portatiles,2\n", csv);
+    }
+
+    @Test
+    void cuandoSeExportaEnNdjson_debeEscribirUnObjetoPorLinea() throws Exception {
+        String ndjson = exportar(FormatoCatalogo.NDJSON);
+
+        assertTrue(ndjson.startsWith("{") && ndjson.endsWith("}\n"));
+        assertEquals(1, ndjson.lines().count());
+        assertTrue(ndjson.contains("\"nombre\":\"Portatiles\""));
+    }
+
+    @Test
+    void cuandoSeExporta_debeLeerEnStreamingDesdeElIdIndicado() throws Exception {
+        exportar(FormatoCatalogo.CSV);
+
+        verify(statement).setFetchSize(Integer.MIN_VALUE);
+        verify(connection).prepareStatement(contains("p.id > ?"));
+    }
+
+    @Test
+    void cuandoElFormatoNoExiste_debeLanzarParametroInvalidoException() {
+        assertThrows(ParametroInvalidoException.class, () -> FormatoCatalogo.de("xml"));
+    }
+}
@@ -0,0 +1,156 @@
+package com.alexr.ecommerce.service;
+
+import com.alexr.ecommerce.dto.FacetasDTO;
+import com.alexr.ecommerce.dto.FiltroProductoDTO;
+import com.alexr.ecommerce.dto.ProductoResponseDTO;
+import com.alexr.ecommerce.event.CategoriaModificadaEvent;
+import com.alexr.ecommerce.event.ProductoModificadoEvent;
+import com.alexr.ecommerce.event.TipoCambio;
+import com.alexr.ecommerce.exception.ParametroInvalidoException;
+import com.alexr.ecommerce.model.Categoria;
+import com.alexr.ecommerce.repository.CategoriaRepository;
+import com.alexr.ecommerce.repository.GrupoFaceta;
+import com.alexr.ecommerce.repository.ProductoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FacetaServiceTest {
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @Mock
+    private CategoriaRepository categoriaRepository;
+
+    private FacetaService facetaService;
+
+    @BeforeEach
+    void setUp() {
+        facetaService = new FacetaService(productoRepository, categoriaRepository, Duration.ofMinutes(5), 100,
+                new SimpleMeterRegistry());
+    }
+
+    private void conGrupos() {
+        Categoria portatiles = new Categoria("Portatiles");
+        portatiles.setId(1L);
+        Categoria moviles = new Categoria("Moviles");
+        moviles.setId(2L);
+        when(productoRepository.contarGrupos(any(), any())).thenReturn(List.of(
+                new GrupoFaceta(1L, true, 0, 3L),
+                new GrupoFaceta(1L, false, 2, 1L),
+                new GrupoFaceta(2L, true, 2, 5L)));
+        when(categoriaRepository.findAllById(any())).thenReturn(List.of(portatiles, moviles));
+    }
+
+    @Test
+    void cuandoSeCalculanFacetas_debeAgregarPorCategoriaDisponibilidadYPrecio() {
+        conGrupos();
+
+        FacetasDTO facetas = facetaService.calcular(new FiltroProductoDTO(), BigDecimal.valueOf(50));
+
+        assertEquals(9, facetas.getTotal());
+        assertEquals(8, facetas.getDisponibles());
+        assertEquals(1, facetas.getNoDisponibles());
+        assertEquals("Moviles", facetas.getCategorias().get(0).getNombre());
+        assertEquals(5, facetas.getCategorias().get(0).getTotal());
+        assertEquals(2, facetas.getPrecios().size());
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(facetas.getPrecios().get(1).getDesde()));
+        assertEquals(6, facetas.getPrecios().get(1).getTotal());
+    }
+
+    @Test
+    void cuandoSePideElMismoFiltroDosVeces_debeConsultarUnaSolaVez() {
+        conGrupos();
+        FiltroProductoDTO filtro = new FiltroProductoDTO(null, BigDecimal.TEN, null, true);
+
+        facetaService.calcular(filtro, BigDecimal.valueOf(50));
+        facetaService.calcular(new FiltroProductoDTO(null, new BigDecimal("10.00"), null, true), BigDecimal.valueOf(50));
+
+        verify(productoRepository, times(1)).contarGrupos(any(), any());
+    }
+
+    @Test
+    void cuandoSeModificaUnProducto_debeMoverloDeGrupoSinVolverAConsultar() {
+        conGrupos();
+        FiltroProductoDTO soloDisponibles = new FiltroProductoDTO(null, null, null, true);
+        facetaService.calcular(new FiltroProductoDTO(), BigDecimal.valueOf(50));
+        facetaService.calcular(soloDisponibles, BigDecimal.valueOf(50));
+
+        // De Portatiles, disponible y a 20 pasa a Moviles, agotado y a 120
+        facetaService.alModificarProducto(new ProductoModificadoEvent(1L,
+                producto(false, "120", 2L, "Moviles"), producto(true, "20", 1L, "Portatiles"), TipoCambio.ACTUALIZADO));
+
+        FacetasDTO todas = facetaService.calcular(new FiltroProductoDTO(), BigDecimal.valueOf(50));
+        assertEquals(9, todas.getTotal());
+        assertEquals(7, todas.getDisponibles());
+        assertEquals(6, todas.getCategorias().get(0).getTotal());
+        assertEquals(3, todas.getCategorias().get(1).getTotal());
+        assertEquals(2, todas.getPrecios().get(0).getTotal());
+        assertEquals(7, todas.getPrecios().get(1).getTotal());
+        // En el filtro de disponibles solo sale (el mock devuelve los mismos grupos para cualquier filtro)
+        assertEquals(8, facetaService.calcular(soloDisponibles, BigDecimal.valueOf(50)).getTotal());
+        verify(productoRepository, times(2)).contarGrupos(any(), any());
+    }
+
+    @Test
+    void cuandoSeCreaUnProductoDeUnaCategoriaQueNoEstaba_debeSumarloConSuNombre() {
+        conGrupos();
+        facetaService.calcular(new FiltroProductoDTO(), BigDecimal.valueOf(50));
+
+        facetaService.alModificarProducto(new ProductoModificadoEvent(9L, producto(true, "10", 3L, "Relojes"),
+                TipoCambio.CREADO));
+
+        FacetasDTO facetas = facetaService.calcular(new FiltroProductoDTO(), BigDecimal.valueOf(50));
+        assertEquals(10, facetas.getTotal());
+        assertEquals("Relojes", facetas.getCategorias().get(2).getNombre());
+        verify(productoRepository, times(1)).contarGrupos(any(), any());
+    }
+
+    @Test
+    void cuandoSeRenombraUnaCategoria_soloDebeRecalcularLasFacetasEnLasQueAparece() {
+        conGrupos();
+        facetaService.calcular(new FiltroProductoDTO(), BigDecimal.valueOf(50));
+        facetaService.alModificarCategoria(new CategoriaModificadaEvent(3L, TipoCambio.ACTUALIZADO));
+        facetaService.calcular(new FiltroProductoDTO(), BigDecimal.valueOf(50));
+        verify(productoRepository, times(1)).contarGrupos(any(), any());
+
+        facetaService.alModificarCategoria(new CategoriaModificadaEvent(2L, TipoCambio.ACTUALIZADO));
+        facetaService.calcular(new FiltroProductoDTO(), BigDecimal.valueOf(50));
+        verify(productoRepository, times(2)).contarGrupos(any(), any());
+    }
+
+    @Test
+    void cuandoSeEliminaUnProductoSinConocerComoEra_debeRecalcularLasFacetas() {
+        conGrupos();
+        facetaService.calcular(new FiltroProductoDTO(), BigDecimal.valueOf(50));
+
+        facetaService.alModificarProducto(new ProductoModificadoEvent(1L, null, TipoCambio.ELIMINADO));
+        facetaService.calcular(new FiltroProductoDTO(), BigDecimal.valueOf(50));
+
+        verify(productoRepository, times(2)).contarGrupos(any(), any());
+    }
+
+    private static ProductoResponseDTO producto(boolean disponible, String precio, Long idCategoria, String categoria) {
+        return new ProductoResponseDTO(1L, "Producto", disponible ? 1 : 0, new BigDecimal(precio), "", disponible,
+                idCategoria, categoria);
+    }
+
+    @Test
+    void cuandoElAnchoDelTramoEsCero_debeLanzarParametroInvalidoException() {
+        assertThrows(ParametroInvalidoException.class,
+                () -> facetaService.calcular(new FiltroProductoDTO(), BigDecimal.ZERO));
+    }
+}
@@ -0,0 +1,167 @@
+package com.alexr.ecommerce.service;
+
+import com.alexr.ecommerce.event.ProductosImportadosEvent;
+import com.alexr.ecommerce.model.Categoria;
+import com.alexr.ecommerce.model.ErrorImportacion;
+import com.alexr.ecommerce.model.EstadoImportacion;
+import com.alexr.ecommerce.model.FormatoCatalogo;
+import com.alexr.ecommerce.model.ImportacionJob;
+import com.alexr.ecommerce.model.Producto;
+import com.alexr.ecommerce.repository.CategoriaRepository;
+import com.alexr.ecommerce.repository.ErrorImportacionRepository;
+import com.alexr.ecommerce.repository.ImportacionJobRepository;
+import com.alexr.ecommerce.repository.ProductoRepository;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import tools.jackson.databind.ObjectMapper;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ImportacionServiceTest {
+
+    // Filas 2 (precio no valido) y 3 (categoria inexistente) son erroneas
+    private static final String CSV = "nombre,stock,precio,descripcion,idCategoria\n"
+            + "MacBook,3,1234.50,Portatil,1\n"
+            + "Iphone,1,-5,Movil,1\n"
+            + "Ipad,1,500,Tablet,99\n"
+            + "AirPods,0,150,Auriculares,1\n";
+
+    @Mock
+    ImportacionJobRepository repoJobs;
+
+    @Mock
+    ErrorImportacionRepository repoErrores;
+
+    @Mock
+    ProductoRepository repoP;
+
+    @Mock
+    CategoriaRepository repoC;
+
+    @Mock
+    ApplicationEventPublisher eventos;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path directorio;
+
+    ImportacionService service;
+    ImportacionJob job;
+    List<Producto> guardados = new ArrayList<>();
+    List<ErrorImportacion> errores = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // Bloques de 2 filas
+        service = new ImportacionService(repoJobs, repoErrores, repoP, repoC,
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(), eventos,
+                transactionManager, directorio, 2, 1);
+
+        Path fichero = Files.writeString(directorio.resolve("productos.csv"), CSV);
+        job = new ImportacionJob(FormatoCatalogo.CSV, fichero.toString(), "productos.csv");
+        when(repoJobs.findById(1L)).thenReturn(Optional.of(job));
+        when(repoC.findAllIds()).thenReturn(List.of(1L));
+        when(repoC.getReferenceById(1L)).thenReturn(new Categoria("Apple"));
+        when(repoP.saveAll(anyList())).thenAnswer(i -> {
+            List<Producto> bloque = i.getArgument(0);
+            guardados.addAll(bloque);
+            return bloque;
+        });
+        when(repoErrores.saveAll(anyList())).thenAnswer(i -> {
+            List<ErrorImportacion> bloque = i.getArgument(0);
+            errores.addAll(bloque);
+            return bloque;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.cerrar();
+    }
+
+    @Test
+    void cuandoSeEjecutaUnaImportacion_debeGuardarPorBloquesYRegistrarLosErroresPorFila() {
+        service.ejecutar(1L);
+
+        assertEquals(EstadoImportacion.COMPLETADA, job.getEstado());
+        assertEquals(4, job.getFilasProcesadas());
+        assertEquals(2, job.getFilasImportadas());
+        assertEquals(2, job.getFilasConError());
+        assertEquals(List.of("MacBook", "AirPods"), guardados.stream().map(Producto::getNombre).toList());
+        assertFalse(guardados.get(1).isDisponible());
+        assertEquals(List.of(2L, 3L), errores.stream().map(ErrorImportacion::getFila).toList());
+
+        // Un evento por bloque con productos importados
+        verify(eventos, times(2)).publishEvent(any(ProductosImportadosEvent.class));
+        assertFalse(Files.exists(Path.of(job.getFichero())));
+    }
+
+    @Test
+    void cuandoSeReanudaUnaImportacion_debeSaltarLasFilasDeLosBloquesConfirmados() {
+        job.confirmarBloque(2, 1, 1);
+
+        service.ejecutar(1L);
+
+        assertEquals(4, job.getFilasProcesadas());
+        assertEquals(List.of("AirPods"), guardados.stream().map(Producto::getNombre).toList());
+        assertEquals(List.of(3L), errores.stream().map(ErrorImportacion::getFila).toList());
+    }
+
+    @Test
+    void cuandoSeArrancaConImportacionesPendientes_debeVolverAEncolarlas() throws Exception {
+        when(repoJobs.findIdsByEstado(EstadoImportacion.PENDIENTE)).thenReturn(List.of(1L));
+
+        service.recuperarInterrumpidas();
+
+        verify(repoJobs).cambiarEstadoDeTodas(eq(EstadoImportacion.EN_CURSO), eq(EstadoImportacion.FALLIDA), any());
+        verify(eventos, timeout(5_000).times(2)).publishEvent(any(ProductosImportadosEvent.class));
+        // El fichero se borra al final del job
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (Files.exists(Path.of(job.getFichero())) && System.nanoTime() < limite) Thread.sleep(10);
+        assertEquals(EstadoImportacion.COMPLETADA, job.getEstado());
+        assertEquals(List.of("MacBook", "AirPods"), guardados.stream().map(Producto::getNombre).toList());
+    }
+
+    @Test
+    void cuandoFallaUnBloque_debeQuedarFallidaConElAvanceDelUltimoBloqueConfirmado() {
+        when(repoP.saveAll(anyList())).thenAnswer(i -> {
+            if (!guardados.isEmpty()) throw new IllegalStateException("Conexion perdida");
+            List<Producto> bloque = i.getArgument(0);
+            guardados.addAll(bloque);
+            return bloque;
+        });
+
+        service.ejecutar(1L);
+
+        assertEquals(EstadoImportacion.FALLIDA, job.getEstado());
+        assertEquals("Conexion perdida", job.getMensajeError());
+        assertEquals(2, job.getFilasProcesadas());
+        assertTrue(Files.exists(Path.of(job.getFichero())));
+    }
+}
@@ -0,0 +1,84 @@
+package com.alexr.ecommerce.service;
+
+import com.alexr.ecommerce.config.UsuarioPrincipal;
+import com.alexr.ecommerce.model.Rol;
+import com.alexr.ecommerce.model.Usuario;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+    private static final String SECRET = "dGVzdC1zZWNyZXQtcGFyYS1qd3QtZGUtMzItYnl0ZXMtbWluaW1v";
+
+    private SimpleMeterRegistry registry;
+    private JwtService jwtService;
+    private Usuario usuario;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        jwtService = new JwtService(SECRET, 60_000, 100, registry);
+        usuario = new Usuario("usuario1", "hash", Rol.ROLE_USUARIO);
+        usuario.setId(1L);
+    }
+
+    private double contador(String resultado) {
+        return registry.get("cache.gets").tag("cache", "jwt.tokens").tag("result", resultado)
+                .functionCounter().count();
+    }
+
+    @Test
+    void cuandoElTokenEsValido_debeDevolverLosClaims() {
+        String token = jwtService.generateToken(usuario);
+
+        Claims claims = jwtService.validarToken(token);
+
+        assertNotNull(claims);
+        assertEquals("usuario1", claims.getSubject());
+        assertTrue(jwtService.isTokenValid(token, usuario));
+    }
+
+    @Test
+    void cuandoSeGeneraUnToken_debeIncluirIdYRolEnLosClaims() {
+        String token = jwtService.generateToken(usuario);
+
+        UsuarioPrincipal principal = UsuarioPrincipal.desdeClaims(jwtService.validarToken(token));
+
+        assertNotNull(principal);
+        assertEquals(1L, principal.getId());
+        assertEquals("usuario1", principal.getName());
+        assertEquals(Rol.ROLE_USUARIO, principal.getRol());
+    }
+
+    @Test
+    void cuandoSeValidaElMismoTokenDosVeces_debeUsarLaCache() {
+        String token = jwtService.generateToken(usuario);
+
+        jwtService.validarToken(token);
+        jwtService.validarToken(token);
+
+        assertEquals(1, contador("miss"));
+        assertEquals(1, contador("hit"));
+    }
+
+    @Test
+    void cuandoElTokenEstaManipulado_debeDevolverNull() {
+        String token = jwtService.generateToken(usuario);
+        String manipulado = token.substring(0, token.length() - 2) + "xx";
+
+        assertNull(jwtService.validarToken(manipulado));
+        assertNull(jwtService.validarToken("no-es-un-token"));
+    }
+
+    @Test
+    void cuandoElTokenHaCaducado_debeDevolverNull() {
+        JwtService caducado = new JwtService(SECRET, -1_000, 100, new SimpleMeterRegistry());
+        String token = caducado.generateToken(usuario);
+
+        assertNull(caducado.validarToken(token));
+    }
+}
@@ -0,0 +1,76 @@
+package com.alexr.ecommerce.service;
+
+import com.alexr.ecommerce.exception.ParametroInvalidoException;
+import com.alexr.ecommerce.model.FormatoCatalogo;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LectorImportacionTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private LectorImportacion lector(String contenido, FormatoCatalogo formato) throws Exception {
+        return LectorImportacion.abrir(new StringReader(contenido), formato, objectMapper);
+    }
+
+    @Test
+    void cuandoElCsvTieneComillasYSaltosDeLinea_debeLeerUnRegistroPorFila() throws Exception {
+        String csv = "id,nombre,stock,precio,descripcion,disponible,idCategoria\r\n"
+                + "7,MacBook,3,1234.50,\"Portatil \"\"Pro\"\",\n16 pulgadas\",true,1\r\n"
+                + "\n"
+                + "8,Iphone,0,999,,false,2\n";
+
+        try (LectorImportacion l = lector(csv, FormatoCatalogo.CSV)) {
+            LectorImportacion.Fila primera = l.siguiente();
+            assertEquals(1, primera.getNumero());
+            assertEquals("MacBook", primera.getProducto().getNombre());
+            assertEquals(new BigDecimal("1234.50"), primera.getProducto().getPrecio());
+            assertEquals("Portatil \"Pro\",\n16 pulgadas", primera.getProducto().getDescripcion());
+
+            LectorImportacion.Fila segunda = l.siguiente();
+            assertEquals(2, segunda.getNumero());
+            assertNull(segunda.getProducto().getDescripcion());
+            assertEquals(2L, segunda.getProducto().getIdCategoria());
+
+            assertNull(l.siguiente());
+        }
+    }
+
+    @Test
+    void cuandoUnaFilaCsvNoSePuedeInterpretar_debeDevolverElErrorYSeguir() throws Exception {
+        String csv = "nombre,stock,precio,idCategoria\nMacBook,tres,10,1\nIphone,1,10,1\n";
+
+        try (LectorImportacion l = lector(csv, FormatoCatalogo.CSV)) {
+            LectorImportacion.Fila mala = l.siguiente();
+            assertNull(mala.getProducto());
+            assertNotNull(mala.getError());
+            assertEquals("Iphone", l.siguiente().getProducto().getNombre());
+        }
+    }
+
+    @Test
+    void cuandoFaltaUnaColumnaObligatoria_debeLanzarParametroInvalidoException() {
+        assertThrows(ParametroInvalidoException.class, () -> lector("nombre,stock,idCategoria\n", FormatoCatalogo.CSV));
+    }
+
+    @Test
+    void cuandoUnaLineaNdjsonNoEsValida_debeDevolverElErrorConSuNumeroDeFila() throws Exception {
+        String ndjson = "{\"nombre\":\"MacBook\",\"stock\":1,\"precio\":10,\"idCategoria\":1}\n"
+                + "{\"nombre\":\n"
+                + "{\"nombre\":\"Iphone\",\"stock\":1,\"precio\":10,\"idCategoria\":1}\n";
+
+        try (LectorImportacion l = lector(ndjson, FormatoCatalogo.NDJSON)) {
+            assertEquals("MacBook", l.siguiente().getProducto().getNombre());
+            LectorImportacion.Fila mala = l.siguiente();
+            assertEquals(2, mala.getNumero());
+            assertNotNull(mala.getError());
+            assertEquals(3, l.siguiente().getNumero());
+            assertNull(l.siguiente());
+        }
+    }
+}
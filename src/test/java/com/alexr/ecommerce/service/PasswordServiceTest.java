@@ -0,0 +1,64 @@
+package com.alexr.ecommerce.service;
+
+import com.alexr.ecommerce.exception.ServicioSaturadoException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PasswordServiceTest {
+
+    @Test
+    void cuandoSeCodificaUnaPassword_debeVerificarla() {
+        PasswordService service = new PasswordService(new BCryptPasswordEncoder(4), 1, 4, new SimpleMeterRegistry());
+
+        String hash = service.codificar("12345");
+
+        assertTrue(service.verificar("12345", hash));
+        assertFalse(service.verificar("otra", hash));
+        service.cerrar();
+    }
+
+    @Test
+    void cuandoElHashTieneUnCosteMenorAlConfigurado_debeNecesitarRehash() {
+        String hashAntiguo = new BCryptPasswordEncoder(4).encode("12345");
+        PasswordService service = new PasswordService(new BCryptPasswordEncoder(5), 1, 4, new SimpleMeterRegistry());
+
+        assertTrue(service.necesitaRehash(hashAntiguo));
+        assertFalse(service.necesitaRehash(service.codificar("12345")));
+        service.cerrar();
+    }
+
+    @Test
+    void cuandoLaColaEstaLlena_debeLanzarServicioSaturadoException() throws Exception {
+        CountDownLatch bloqueo = new CountDownLatch(1);
+        CountDownLatch ocupado = new CountDownLatch(1);
+        PasswordEncoder lento = mock(PasswordEncoder.class);
+        when(lento.encode("lenta")).thenAnswer(inv -> {
+            ocupado.countDown();
+            bloqueo.await();
+            return "hash";
+        });
+        PasswordService service = new PasswordService(lento, 1, 1, new SimpleMeterRegistry());
+
+        CompletableFuture<String> enCurso = CompletableFuture.supplyAsync(() -> service.codificar("lenta"));
+        assertTrue(ocupado.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> enCola = CompletableFuture.supplyAsync(() -> service.codificar("lenta"));
+        while (!enCola.isDone() && service.pendientes() == 0) Thread.onSpinWait();
+
+        assertThrows(ServicioSaturadoException.class, () -> service.codificar("lenta"));
+
+        bloqueo.countDown();
+        assertEquals("hash", enCurso.get(5, TimeUnit.SECONDS));
+        assertEquals("hash", enCola.get(5, TimeUnit.SECONDS));
+        service.cerrar();
+    }
+}
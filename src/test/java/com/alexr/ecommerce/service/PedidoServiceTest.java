@@ -0,0 +1,157 @@
+package com.alexr.ecommerce.service;
+
+import com.alexr.ecommerce.dto.LineaPedidoRequestDTO;
+import com.alexr.ecommerce.dto.PedidoRequestDTO;
+import com.alexr.ecommerce.dto.PedidoResponseDTO;
+import com.alexr.ecommerce.event.StockModificadoEvent;
+import com.alexr.ecommerce.exception.ParametroInvalidoException;
+import com.alexr.ecommerce.exception.StockInsuficienteException;
+import com.alexr.ecommerce.model.Pedido;
+import com.alexr.ecommerce.model.Producto;
+import com.alexr.ecommerce.repository.PedidoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PedidoServiceTest {
+
+    @Mock
+    PedidoRepository repoPedidos;
+
+    @Mock
+    JdbcTemplate jdbcTemplate;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @Mock
+    EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    SessionFactory sessionFactory;
+
+    @Mock
+    Cache cache;
+
+    @Mock
+    ApplicationEventPublisher eventos;
+
+    PedidoService service;
+
+    @BeforeEach
+    void setUp() {
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        service = new PedidoService(repoPedidos, jdbcTemplate, transactionManager, entityManagerFactory, eventos,
+                new SimpleMeterRegistry(), 100);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void cuandoHayStockDeTodasLasLineas_debeRestarloEnUnSoloBatchYGuardarElPedido() throws SQLException {
+        filasBloqueadas(fila(1L, "MacBook", "1000", 5), fila(2L, "AirPods", "150", 3));
+        when(repoPedidos.save(any(Pedido.class))).thenAnswer(i -> i.getArgument(0));
+        when(sessionFactory.getCache()).thenReturn(cache);
+
+        // El producto 1 aparece dos veces y se pide despues del 2
+        PedidoResponseDTO pedido = service.crear(new PedidoRequestDTO(List.of(
+                new LineaPedidoRequestDTO(2L, 3),
+                new LineaPedidoRequestDTO(1L, 1),
+                new LineaPedidoRequestDTO(1L, 1))), "alex");
+
+        ArgumentCaptor<Object[]> ids = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate).query(anyString(), any(RowMapper.class), ids.capture());
+        assertArrayEquals(new Object[]{1L, 2L}, ids.getValue());
+
+        ArgumentCaptor<List<Object[]>> restas = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), restas.capture());
+        assertArrayEquals(new Object[]{2, 2, 1L}, restas.getValue().get(0));
+        assertArrayEquals(new Object[]{3, 3, 2L}, restas.getValue().get(1));
+
+        assertEquals("alex", pedido.getUsuario());
+        assertEquals(0, BigDecimal.valueOf(2450).compareTo(pedido.getTotal()));
+        assertEquals(List.of(1L, 2L), pedido.getLineas().stream().map(l -> l.getIdProducto()).toList());
+        verify(cache).evictEntityData(Producto.class, 1L);
+        verify(cache).evictEntityData(Producto.class, 2L);
+        verifyNoMoreInteractions(cache);
+
+        ArgumentCaptor<StockModificadoEvent> eventosStock = ArgumentCaptor.forClass(StockModificadoEvent.class);
+        verify(eventos, times(2)).publishEvent(eventosStock.capture());
+        assertEquals(3, eventosStock.getAllValues().get(0).getStock());
+        assertFalse(eventosStock.getAllValues().get(0).isCambiaDisponible());
+        assertTrue(eventosStock.getAllValues().get(1).isCambiaDisponible());
+    }
+
+    @Test
+    void cuandoAlgunaLineaNoTieneStock_noDebeRestarNadaNiGuardarElPedido() throws SQLException {
+        filasBloqueadas(fila(1L, "MacBook", "1000", 5), fila(2L, "AirPods", "150", 1));
+
+        StockInsuficienteException e = assertThrows(StockInsuficienteException.class,
+                () -> service.crear(new PedidoRequestDTO(List.of(
+                        new LineaPedidoRequestDTO(1L, 1),
+                        new LineaPedidoRequestDTO(2L, 2))), "alex"));
+
+        assertEquals("No hay stock suficiente de los productos 2 (quedan 1)", e.getMessage());
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        verify(repoPedidos, never()).save(any(Pedido.class));
+        verify(eventos, never()).publishEvent(any(StockModificadoEvent.class));
+    }
+
+    @Test
+    void cuandoLaSumaDeLineasDeUnProductoDesborda_debeRechazarElPedidoSinTocarLaBaseDeDatos() {
+        assertThrows(ParametroInvalidoException.class, () -> service.crear(new PedidoRequestDTO(List.of(
+                new LineaPedidoRequestDTO(1L, Integer.MAX_VALUE),
+                new LineaPedidoRequestDTO(1L, Integer.MAX_VALUE))), "alex"));
+
+        verifyNoInteractions(jdbcTemplate, repoPedidos, eventos);
+    }
+
+    // El select ... for update devuelve estas filas, en orden de id
+    @SuppressWarnings("unchecked")
+    private void filasBloqueadas(ResultSet... filas) {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class))).thenAnswer(i -> {
+            RowMapper<Object> mapper = i.getArgument(1);
+            List<Object> resultado = new ArrayList<>();
+            for (int j = 0; j < filas.length; j++) resultado.add(mapper.mapRow(filas[j], j));
+            return resultado;
+        });
+    }
+
+    private static ResultSet fila(long id, String nombre, String precio, int stock) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn(id);
+        when(rs.getString("nombre")).thenReturn(nombre);
+        when(rs.getBigDecimal("precio")).thenReturn(new BigDecimal(precio));
+        when(rs.getInt("stock")).thenReturn(stock);
+        return rs;
+    }
+}
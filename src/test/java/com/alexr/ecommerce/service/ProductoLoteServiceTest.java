@@ -0,0 +1,164 @@
+package com.alexr.ecommerce.service;
+
+import com.alexr.ecommerce.dto.ProductoLoteDTO;
+import com.alexr.ecommerce.dto.ProductoRequestDTO;
+import com.alexr.ecommerce.dto.ResultadoLoteDTO;
+import com.alexr.ecommerce.event.ProductoModificadoEvent;
+import com.alexr.ecommerce.event.ProductosImportadosEvent;
+import com.alexr.ecommerce.exception.LoteDemasiadoGrandeException;
+import com.alexr.ecommerce.model.Categoria;
+import com.alexr.ecommerce.model.Producto;
+import com.alexr.ecommerce.repository.CategoriaRepository;
+import com.alexr.ecommerce.repository.ProductoRepository;
+import com.alexr.ecommerce.repository.ProductoStockRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductoLoteServiceTest {
+
+    @Mock
+    ProductoRepository repoP;
+
+    @Mock
+    CategoriaRepository repoC;
+
+    @Mock
+    ProductoStockRepository repoStock;
+
+    @Mock
+    ApplicationEventPublisher eventos;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @Mock
+    StockCalienteService stockCaliente;
+
+    ProductoLoteService service;
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    Categoria apple = new Categoria("Apple");
+
+    @BeforeEach
+    void setUp() {
+        // Maximo de 3 operaciones por lote
+        service = new ProductoLoteService(repoP, repoC, repoStock, Validation.buildDefaultValidatorFactory().getValidator(),
+                eventos, transactionManager, stockCaliente, meterRegistry, 3);
+        apple.setId(1L);
+    }
+
+    @Test
+    void cuandoSeCreaUnLote_debeGuardarLosValidosDeUnaVezYDevolverUnResultadoPorFila() {
+        when(repoC.findAllById(anySet())).thenReturn(List.of(apple));
+        when(repoP.saveAll(anyList())).thenAnswer(i -> {
+            List<Producto> nuevos = i.getArgument(0);
+            for (int j = 0; j < nuevos.size(); j++) nuevos.get(j).setId(10L + j);
+            return nuevos;
+        });
+
+        List<ResultadoLoteDTO> resultados = service.crear(List.of(
+                new ProductoRequestDTO("MacBook", 3, BigDecimal.valueOf(1234.5), "Portatil", 1L),
+                new ProductoRequestDTO("Ipad", 1, BigDecimal.valueOf(500), "Tablet", 99L),
+                new ProductoRequestDTO("AirPods", 0, BigDecimal.valueOf(150), "Auriculares", 1L)));
+
+        assertEquals(List.of(ResultadoLoteDTO.Estado.CREADO, ResultadoLoteDTO.Estado.ERROR, ResultadoLoteDTO.Estado.CREADO),
+                resultados.stream().map(ResultadoLoteDTO::getEstado).toList());
+        assertEquals(10L, resultados.get(0).getId());
+        assertEquals(11L, resultados.get(2).getId());
+        assertEquals("Categoria: 99 no existe.", resultados.get(1).getMensaje());
+        verify(repoP, times(1)).saveAll(anyList());
+        verify(eventos).publishEvent(any(ProductosImportadosEvent.class));
+        assertEquals(3.0, meterRegistry.counter("productos.lote.filas", "operacion", "crear").count());
+    }
+
+    @Test
+    void cuandoSeActualizaUnLote_debeRechazarLosInexistentesRepetidosYConVersionAntigua() {
+        Producto macbook = new Producto("MacBook", 3, BigDecimal.valueOf(1234.5), "Portatil", apple);
+        macbook.setId(1L);
+        macbook.setVersion(2);
+        Producto iphone = new Producto("Iphone", 1, BigDecimal.valueOf(999), "Movil", apple);
+        iphone.setId(2L);
+        iphone.setVersion(5);
+        when(repoP.findAllById(anySet())).thenReturn(List.of(macbook, iphone));
+        when(repoC.findAllById(anySet())).thenReturn(List.of(apple));
+
+        List<ResultadoLoteDTO> resultados = service.actualizar(List.of(
+                new ProductoLoteDTO(1L, "MacBook Pro", 0, BigDecimal.valueOf(1999), "Portatil", 1L, 2L),
+                new ProductoLoteDTO(3L, "Ipad", 1, BigDecimal.valueOf(500), "Tablet", 1L, null),
+                new ProductoLoteDTO(2L, "Iphone 16", 1, BigDecimal.valueOf(999), "Movil", 1L, 4L)));
+
+        assertEquals(List.of(ResultadoLoteDTO.Estado.ACTUALIZADO, ResultadoLoteDTO.Estado.ERROR, ResultadoLoteDTO.Estado.ERROR),
+                resultados.stream().map(ResultadoLoteDTO::getEstado).toList());
+        assertEquals("MacBook Pro", macbook.getNombre());
+        assertFalse(macbook.isDisponible());
+        assertEquals("Iphone", iphone.getNombre());
+        verify(repoP).flush();
+        verify(eventos, times(1)).publishEvent(any(ProductoModificadoEvent.class));
+    }
+
+    @Test
+    void cuandoSeCambiaEnUnLoteElStockDeUnProductoEnModoCaliente_debeRechazarEsaFila() {
+        Producto macbook = new Producto("MacBook", 3, BigDecimal.valueOf(1234.5), "Portatil", apple);
+        macbook.setId(1L);
+        Producto iphone = new Producto("Iphone", 0, BigDecimal.valueOf(999), "Movil", apple);
+        iphone.setId(2L);
+        iphone.setDisponible(true);
+        when(repoP.findAllById(anySet())).thenReturn(List.of(macbook, iphone));
+        when(repoC.findAllById(anySet())).thenReturn(List.of(apple));
+        when(stockCaliente.esCaliente(1L)).thenReturn(true);
+        when(stockCaliente.esCaliente(2L)).thenReturn(true);
+
+        List<ResultadoLoteDTO> resultados = service.actualizar(List.of(
+                new ProductoLoteDTO(1L, "MacBook", 500, BigDecimal.valueOf(1234.5), "Portatil", 1L, null),
+                new ProductoLoteDTO(2L, "Iphone 16", 0, BigDecimal.valueOf(999), "Movil", 1L, null)));
+
+        assertEquals(List.of(ResultadoLoteDTO.Estado.ERROR, ResultadoLoteDTO.Estado.ACTUALIZADO),
+                resultados.stream().map(ResultadoLoteDTO::getEstado).toList());
+        assertEquals(3, macbook.getStock());
+        assertEquals("Iphone 16", iphone.getNombre());
+        assertTrue(iphone.isDisponible());
+    }
+
+    @Test
+    void cuandoSeEliminaUnLote_debeBorrarLosExistentesConUnSoloDelete() {
+        Producto macbook = new Producto("MacBook", 3, BigDecimal.valueOf(1234.5), "Portatil", apple);
+        macbook.setId(1L);
+        when(repoP.findAllById(anySet())).thenReturn(List.of(macbook));
+
+        List<ResultadoLoteDTO> resultados = service.eliminar(List.of(1L, 7L, 1L));
+
+        assertEquals(List.of(ResultadoLoteDTO.Estado.ELIMINADO, ResultadoLoteDTO.Estado.ERROR, ResultadoLoteDTO.Estado.ERROR),
+                resultados.stream().map(ResultadoLoteDTO::getEstado).toList());
+        verify(repoStock).eliminar(Set.of(1L));
+        verify(repoP, never()).deleteAllByIdInBatch(any());
+        verify(eventos, times(1)).publishEvent(any(ProductoModificadoEvent.class));
+    }
+
+    @Test
+    void cuandoElLoteSuperaElMaximo_debeLanzarLoteDemasiadoGrandeException() {
+        List<Long> ids = List.of(1L, 2L, 3L, 4L);
+
+        assertThrows(LoteDemasiadoGrandeException.class, () -> service.eliminar(ids));
+        verify(repoStock, never()).eliminar(any());
+    }
+}
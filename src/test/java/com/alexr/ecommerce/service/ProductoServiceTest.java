@@ -1,29 +1,53 @@
 package com.alexr.ecommerce.service;
 
+import com.alexr.ecommerce.dto.FiltroProductoDTO;
+import com.alexr.ecommerce.dto.MovimientoStockDTO;
+import com.alexr.ecommerce.dto.ProductoEncontradoDTO;
 import com.alexr.ecommerce.dto.ProductoRequestDTO;
 import com.alexr.ecommerce.dto.ProductoResponseDTO;
+import com.alexr.ecommerce.dto.VentanaDTO;
+import com.alexr.ecommerce.event.ProductoModificadoEvent;
+import com.alexr.ecommerce.event.StockModificadoEvent;
 import com.alexr.ecommerce.exception.CategoriaNotFoundException;
+import com.alexr.ecommerce.exception.LoteDemasiadoGrandeException;
+import com.alexr.ecommerce.exception.ParametroInvalidoException;
+import com.alexr.ecommerce.exception.PrecondicionFallidaException;
+import com.alexr.ecommerce.exception.ProductoEnModoCalienteException;
 import com.alexr.ecommerce.exception.ProductoNotFoundException;
 import com.alexr.ecommerce.model.Categoria;
 import com.alexr.ecommerce.model.Producto;
 import com.alexr.ecommerce.repository.CategoriaRepository;
+import com.alexr.ecommerce.repository.EstadoStock;
 import com.alexr.ecommerce.repository.ProductoRepository;
+import com.alexr.ecommerce.repository.ProductoStockRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 
 import java.math.BigDecimal;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -35,9 +59,30 @@ public class ProductoServiceTest {
     @Mock
     CategoriaRepository categoriaRepository;
 
-    @InjectMocks
+    @Mock
+    ProductoStockRepository productoStockRepository;
+
+    @Mock
+    ConteoService conteoService;
+
+    @Mock
+    BuscadorProductos buscador;
+
+    @Mock
+    ApplicationEventPublisher eventos;
+
+    @Mock
+    StockCalienteService stockCaliente;
+
     ProductoService productoService;
 
+    // Constructor a mano: @InjectMocks no sabe rellenar el maximo de ids (int)
+    @BeforeEach
+    void setUp() {
+        productoService = new ProductoService(productoRepository, categoriaRepository, productoStockRepository, conteoService,
+                buscador, eventos, stockCaliente, 3);
+    }
+
     @Test
     void cuandoCreoProductoConStock_debeGuardarYMarcarComoDisponible() {
 
@@ -109,8 +154,8 @@ public class ProductoServiceTest {
 
     @Test
     void cuandoNoHayProductos_debeDevolverListaVacia(){
-        Page<Producto> page = new PageImpl<>(List.of());
-        when(productoRepository.findAll(any(Pageable.class))).thenReturn(page);
+        Slice<ProductoResponseDTO> slice = new SliceImpl<>(List.of());
+        when(productoRepository.findAllProyectado(any(Pageable.class))).thenReturn(slice);
 
         Page<ProductoResponseDTO> resultado = productoService.findAll(Pageable.unpaged());
 
@@ -120,16 +165,79 @@ public class ProductoServiceTest {
     @Test
     void cuandoHayProductos_debeDevolerUnaListaConEllos(){
 
-        Categoria categoria = new Categoria("Portatiles");
-        categoria.setId(1L);
-
-        Producto p = new Producto("MacBook", 10, BigDecimal.valueOf(1234.54), "Portatil de Apple", categoria);
-        Producto p2 = new Producto("Iphone", 0, BigDecimal.valueOf(3123), "Movil de Apple", categoria);
-        Page<Producto> page = new PageImpl<>(List.of(p, p2));
-        when(productoRepository.findAll(any(Pageable.class))).thenReturn(page);
+        ProductoResponseDTO p = new ProductoResponseDTO(1L, "MacBook", 10, BigDecimal.valueOf(1234.54), "Portatil de Apple", true, 1L, "Portatiles");
+        ProductoResponseDTO p2 = new ProductoResponseDTO(2L, "Iphone", 0, BigDecimal.valueOf(3123), "Movil de Apple", false, 1L, "Portatiles");
+        Slice<ProductoResponseDTO> slice = new SliceImpl<>(List.of(p, p2));
+        when(productoRepository.findAllProyectado(any(Pageable.class))).thenReturn(slice);
 
         Page<ProductoResponseDTO> resultado = productoService.findAll(Pageable.unpaged());
         assertThat(resultado.getContent()).hasSize(2);
+        assertEquals(2, resultado.getTotalElements());
+        verify(conteoService, never()).total(any(), any());
+    }
+
+    @Test
+    void cuandoSeFiltraConPrecioMinimoMayorQueElMaximo_debeLanzarParametroInvalidoException(){
+        FiltroProductoDTO filtro = new FiltroProductoDTO(null, BigDecimal.valueOf(100), BigDecimal.TEN, null);
+
+        assertThrows(ParametroInvalidoException.class, () -> productoService.filtrar(filtro, PageRequest.of(0, 20)));
+    }
+
+    @Test
+    void cuandoSeFiltraOrdenandoPorUnCampoSinIndice_debeLanzarParametroInvalidoException(){
+        FiltroProductoDTO filtro = new FiltroProductoDTO(1L, null, null, true);
+
+        assertThrows(ParametroInvalidoException.class,
+                () -> productoService.filtrar(filtro, PageRequest.of(0, 20, Sort.by("descripcion"))));
+    }
+
+    @Test
+    void cuandoHayMasPaginas_debeTomarElTotalDeLaCacheDeConteos(){
+        ProductoResponseDTO p = new ProductoResponseDTO(1L, "MacBook", 10, BigDecimal.valueOf(1234.54), "Portatil de Apple", true, 1L, "Portatiles");
+        Pageable pageable = PageRequest.of(0, 1);
+        when(productoRepository.findAllProyectado(pageable)).thenReturn(new SliceImpl<>(List.of(p), pageable, true));
+        when(conteoService.total(eq(ConteoService.PRODUCTOS), any())).thenReturn(50L);
+
+        Page<ProductoResponseDTO> resultado = productoService.findAll(pageable);
+
+        assertEquals(50, resultado.getTotalElements());
+        verify(productoRepository, never()).count();
+    }
+
+    @Test
+    void cuandoSeListaPorCursor_debeDevolverElCursorDelUltimoYUsarloEnLaSiguientePagina(){
+        ProductoResponseDTO p = new ProductoResponseDTO(3L, "Iphone", 10, BigDecimal.valueOf(999), "Movil de Apple", true, 1L, "Moviles");
+        ProductoResponseDTO p2 = new ProductoResponseDTO(1L, "MacBook", 10, BigDecimal.valueOf(1234.54), "Portatil de Apple", true, 1L, "Portatiles");
+        ProductoResponseDTO p3 = new ProductoResponseDTO(2L, "Watch", 10, BigDecimal.valueOf(399), "Reloj de Apple", true, 1L, "Relojes");
+        when(productoRepository.findPrimerosPorNombre(any(Pageable.class))).thenReturn(List.of(p, p2, p3));
+
+        VentanaDTO<ProductoResponseDTO> primera = productoService.findVentana("nombre", null, 2);
+
+        assertThat(primera.getContenido()).hasSize(2);
+        assertTrue(primera.isHayMas());
+
+        when(productoRepository.findSiguientesPorNombre(eq("MacBook"), eq(1L), any(Pageable.class))).thenReturn(List.of(p3));
+
+        VentanaDTO<ProductoResponseDTO> segunda = productoService.findVentana("nombre", primera.getSiguienteCursor(), 2);
+
+        assertThat(segunda.getContenido()).hasSize(1);
+        assertFalse(segunda.isHayMas());
+        assertNull(segunda.getSiguienteCursor());
+    }
+
+    @Test
+    void cuandoElCursorDePrecioTieneUnValorQueNoEsUnNumero_debeLanzarParametroInvalidoException(){
+        String cursor = Cursor.codificar("precio", "no-es-un-precio", 3L);
+
+        assertThrows(ParametroInvalidoException.class, () -> productoService.findVentana("precio", cursor, 2));
+        verify(productoRepository, never()).findSiguientesPorPrecio(any(), any(), any(Pageable.class));
+    }
+
+    @Test
+    void cuandoSeListaPorCursorConOtroOrden_debeLanzarParametroInvalidoException(){
+        String cursor = Cursor.codificar("precio", "999", 3L);
+
+        assertThrows(ParametroInvalidoException.class, () -> productoService.findVentana("nombre", cursor, 2));
     }
 
     @Test
@@ -155,17 +263,40 @@ public class ProductoServiceTest {
         assertThrows(ProductoNotFoundException.class, () -> productoService.findById(1L));
     }
 
+    @Test
+    void cuandoSeActualizaConUnaVersionQueYaNoEsLaActual_debeLanzarPrecondicionFallidaException(){
+        Categoria categoria = new Categoria("Portatiles");
+        categoria.setId(1L);
+        Producto producto = new Producto("MacBook", 10, BigDecimal.valueOf(1234.54), "Portatil de Apple", categoria);
+        producto.setId(1L);
+        producto.setVersion(3);
+        ProductoRequestDTO request = new ProductoRequestDTO("MacBook", 5, BigDecimal.valueOf(999), "Portatil de Apple", 1L);
+        when(categoriaRepository.findById(1L)).thenReturn(Optional.of(categoria));
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+
+        assertThrows(PrecondicionFallidaException.class, () -> productoService.update(1L, request, 2L));
+        verify(productoRepository, never()).save(any(Producto.class));
+    }
+
     @Test
     void cunadoSeEliminaUnProductoExistente_noDebeDevolverNada(){
 
-        when(productoRepository.existsById(1L)).thenReturn(true);
+        Categoria categoria = new Categoria("Portatiles");
+        categoria.setId(1L);
+        Producto producto = new Producto("MacBook", 10, BigDecimal.valueOf(1234.54), "Portatil de Apple", categoria);
+        producto.setId(1L);
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+
         productoService.delete(1L);
         verify(productoRepository).deleteById(1L);
+        // Con el producto borrado, para que las facetas puedan descontarlo
+        verify(eventos).publishEvent(argThat((ProductoModificadoEvent e) -> e.getAnterior() != null
+                && e.getAnterior().getCategoria().getId() == 1L));
     }
 
     @Test
     void cuandoSeEliminaUnProductoYNoExiste_debeLanzarExcepcionProductoNotFound(){
-        when(productoRepository.existsById(1L)).thenReturn(false);
+        when(productoRepository.findById(1L)).thenReturn(Optional.empty());
         assertThrows(ProductoNotFoundException.class, () -> productoService.delete(1L));
     }
 
@@ -244,6 +375,79 @@ public class ProductoServiceTest {
         assertFalse(resultado.isDisponible());
     }
 
+    @Test
+    void cuandoOtraPeticionSeCruzaEnUnUpdateSinIfMatch_noDebeReaplicarElCuerpoSinoDevolverElConflicto() {
+        Categoria categoria = new Categoria("Portatiles");
+        categoria.setId(1L);
+        Producto producto = new Producto("MacBook", 10, BigDecimal.valueOf(1234.54), "Portatil de Apple", categoria);
+        producto.setId(1L);
+        ProductoRequestDTO productoActualizado = new ProductoRequestDTO("MacBook Pro", 10, BigDecimal.valueOf(1999), "Portatil de Apple", 1L);
+
+        when(categoriaRepository.findById(1L)).thenReturn(Optional.of(categoria));
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+        when(productoRepository.save(any(Producto.class))).thenThrow(new OptimisticLockingFailureException("version"));
+
+        assertThrows(OptimisticLockingFailureException.class, () -> productoService.update(1L, productoActualizado));
+        verify(productoRepository, times(1)).findById(1L);
+        verify(productoRepository, times(1)).save(any(Producto.class));
+        verify(eventos, never()).publishEvent(any(ProductoModificadoEvent.class));
+    }
+
+    @Test
+    void cuandoOtraPeticionSeCruzaEnUnUpdateConIfMatch_noDebeReintentar() {
+        Categoria categoria = new Categoria("Portatiles");
+        categoria.setId(1L);
+        Producto producto = new Producto("MacBook", 10, BigDecimal.valueOf(1234.54), "Portatil de Apple", categoria);
+        producto.setId(1L);
+        producto.setVersion(2);
+        ProductoRequestDTO productoActualizado = new ProductoRequestDTO("MacBook Pro", 10, BigDecimal.valueOf(1999), "Portatil de Apple", 1L);
+
+        when(categoriaRepository.findById(1L)).thenReturn(Optional.of(categoria));
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+        when(productoRepository.save(any(Producto.class))).thenThrow(new OptimisticLockingFailureException("version"));
+
+        assertThrows(OptimisticLockingFailureException.class, () -> productoService.update(1L, productoActualizado, 2L));
+        verify(productoRepository, times(1)).save(any(Producto.class));
+    }
+
+    @Test
+    void cuandoSeCambiaElStockDeUnProductoEnModoCaliente_debeLanzarProductoEnModoCalienteException() {
+        Categoria categoria = new Categoria("Portatiles");
+        categoria.setId(1L);
+        Producto producto = new Producto("MacBook", 10, BigDecimal.valueOf(1234.54), "Portatil de Apple", categoria);
+        producto.setId(1L);
+        ProductoRequestDTO productoActualizado = new ProductoRequestDTO("MacBook", 500, BigDecimal.valueOf(1234.54), "Portatil de Apple", 1L);
+
+        when(categoriaRepository.findById(1L)).thenReturn(Optional.of(categoria));
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+        when(stockCaliente.esCaliente(1L)).thenReturn(true);
+
+        // Las unidades arrendadas siguen en las franjas: sobrescribir la fila las venderia dos veces
+        assertThrows(ProductoEnModoCalienteException.class, () -> productoService.update(1L, productoActualizado));
+        verify(productoRepository, never()).save(any(Producto.class));
+    }
+
+    @Test
+    void cuandoSeActualizaUnProductoEnModoCalienteSinCambiarSuStock_noDebeTocarElStockNiDisponible() {
+        Categoria categoria = new Categoria("Portatiles");
+        categoria.setId(1L);
+        // La fila ya no tiene stock porque esta todo arrendado, pero se sigue vendiendo
+        Producto producto = new Producto("MacBook", 0, BigDecimal.valueOf(1234.54), "Portatil de Apple", categoria);
+        producto.setId(1L);
+        producto.setDisponible(true);
+        ProductoRequestDTO productoActualizado = new ProductoRequestDTO("MacBook Pro", 0, BigDecimal.valueOf(999), "Portatil de Apple", 1L);
+
+        when(categoriaRepository.findById(1L)).thenReturn(Optional.of(categoria));
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+        when(stockCaliente.esCaliente(1L)).thenReturn(true);
+        when(productoRepository.save(any(Producto.class))).thenAnswer(i -> i.getArgument(0));
+
+        ProductoResponseDTO resultado = productoService.update(1L, productoActualizado);
+
+        assertEquals("MacBook Pro", resultado.getNombre());
+        assertTrue(resultado.isDisponible());
+    }
+
     @Test
     void cuandoSeActualizaProductoSinStockAgregandoStock_debeMarcarComoDisponible() {
         Categoria categoria = new Categoria("Portatiles");
@@ -268,4 +472,98 @@ public class ProductoServiceTest {
         assertTrue(resultado.isDisponible());
         assertEquals(5, resultado.getStock());
     }
+
+    @Test
+    void cuandoSePidenCampos_debeConsultarSoloEsosCamposEnOrdenCanonico() {
+        Pageable pageable = PageRequest.of(0, 20);
+        Set<String> campos = new LinkedHashSet<>(List.of("id", "nombre", "precio"));
+        Slice<Map<String, Object>> slice = new SliceImpl<>(List.of(Map.of("id", 1L, "nombre", "MacBook", "precio", BigDecimal.TEN)), pageable, false);
+        when(productoRepository.findCampos(campos, pageable)).thenReturn(slice);
+
+        Page<Map<String, Object>> resultado = productoService.findAll(pageable, " precio,id, nombre");
+
+        assertEquals(1, resultado.getTotalElements());
+        verify(productoRepository).findCampos(argThat(c -> List.copyOf(c).equals(List.of("id", "nombre", "precio"))), eq(pageable));
+    }
+
+    @Test
+    void cuandoSePideUnCampoQueNoExiste_debeLanzarParametroInvalidoException() {
+        assertThrows(ParametroInvalidoException.class, () -> productoService.findAll(PageRequest.of(0, 20), "id,password"));
+        assertThrows(ParametroInvalidoException.class, () -> productoService.findAll(PageRequest.of(0, 20), " , "));
+
+        verify(productoRepository, never()).findCampos(any(), any());
+    }
+
+    @Test
+    void cuandoSePidenVariosIds_debeDevolverlosEnOrdenConUnaSolaConsultaYMarcarLosQueNoExisten() {
+        ProductoResponseDTO p1 = new ProductoResponseDTO(1L, "MacBook", 1, BigDecimal.TEN, null, true, 1L, "Portatiles");
+        ProductoResponseDTO p3 = new ProductoResponseDTO(3L, "Iphone", 1, BigDecimal.TEN, null, true, 1L, "Portatiles");
+        when(productoRepository.findProyectadosByIdIn(Set.of(1L, 2L, 3L))).thenReturn(List.of(p1, p3));
+
+        List<ProductoEncontradoDTO> resultado = productoService.findByIds(List.of(3L, 2L, 1L));
+
+        assertEquals(List.of(3L, 2L, 1L), resultado.stream().map(ProductoEncontradoDTO::getId).toList());
+        assertSame(p3, resultado.get(0).getProducto());
+        assertFalse(resultado.get(1).isEncontrado());
+        assertNull(resultado.get(1).getProducto());
+        assertSame(p1, resultado.get(2).getProducto());
+        verify(productoRepository, never()).findById(any());
+    }
+
+    @Test
+    void cuandoSePidenMasIdsQueElMaximo_debeLanzarLoteDemasiadoGrandeException() {
+        assertThrows(LoteDemasiadoGrandeException.class, () -> productoService.findByIds(List.of(1L, 2L, 3L, 4L)));
+
+        verify(productoRepository, never()).findProyectadosByIdIn(any());
+    }
+
+    @Test
+    void cuandoSeCompraElUltimoStock_debeAvisarDeQuePasaAAgotado() {
+        when(productoStockRepository.decrementar(1L, 2)).thenReturn(1);
+        when(productoRepository.findEstadoStock(1L)).thenReturn(Optional.of(estadoStock(0, false, 8)));
+
+        MovimientoStockDTO m = productoService.decrementarStock(1L, 2);
+
+        assertTrue(m.isRealizado());
+        assertEquals(0, m.getStock());
+        assertFalse(m.isDisponible());
+        verify(eventos).publishEvent(argThat((Object e) -> e instanceof StockModificadoEvent s && s.isCambiaDisponible()));
+    }
+
+    @Test
+    void cuandoElProductoEstaEnModoCaliente_noDebeTocarLaFila() {
+        MovimientoStockDTO enMemoria = new MovimientoStockDTO(1L, 1, true, 40, true, 3);
+        when(stockCaliente.decrementar(1L, 1)).thenReturn(Optional.of(enMemoria));
+
+        assertSame(enMemoria, productoService.decrementarStock(1L, 1));
+        verify(productoStockRepository, never()).decrementar(any(), eq(1));
+    }
+
+    @Test
+    void cuandoNoHayStockSuficiente_debeDevolverElStockActualSinLanzarExcepcion() {
+        when(productoStockRepository.decrementar(1L, 5)).thenReturn(0);
+        when(productoRepository.findEstadoStock(1L)).thenReturn(Optional.of(estadoStock(3, true, 7)));
+
+        MovimientoStockDTO m = productoService.decrementarStock(1L, 5);
+
+        assertFalse(m.isRealizado());
+        assertEquals(3, m.getStock());
+        verify(eventos, never()).publishEvent(any(StockModificadoEvent.class));
+    }
+
+    @Test
+    void cuandoSeMueveStockDeUnProductoQueNoExiste_debeLanzarProductoNotFoundException() {
+        when(productoStockRepository.decrementar(9L, 1)).thenReturn(0);
+        when(productoRepository.findEstadoStock(9L)).thenReturn(Optional.empty());
+
+        assertThrows(ProductoNotFoundException.class, () -> productoService.decrementarStock(9L, 1));
+    }
+
+    private static EstadoStock estadoStock(int stock, boolean disponible, long version) {
+        return new EstadoStock() {
+            public int getStock() { return stock; }
+            public boolean isDisponible() { return disponible; }
+            public long getVersion() { return version; }
+        };
+    }
 }
@@ -0,0 +1,114 @@
+package com.alexr.ecommerce.service;
+
+import com.alexr.ecommerce.dto.AuthRequestDTO;
+import com.alexr.ecommerce.dto.ResultadoLoteDTO;
+import com.alexr.ecommerce.exception.LoteDemasiadoGrandeException;
+import com.alexr.ecommerce.repository.UsuarioRepository;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RegistroMasivoServiceTest {
+
+    @Mock
+    UsuarioRepository repository;
+
+    @Mock
+    PasswordService passwordService;
+
+    @Mock
+    JdbcTemplate jdbcTemplate;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    RegistroMasivoService service;
+
+    @BeforeEach
+    void setUp() {
+        // Bloques de 2 usuarios y como mucho 6 por lote
+        service = new RegistroMasivoService(repository, passwordService, jdbcTemplate, transactionManager,
+                Validation.buildDefaultValidatorFactory().getValidator(), 2, 6);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void cuandoSeRegistraUnLote_debeRechazarRepetidosYExistentesEInsertarElRestoEnBatchPorBloque() {
+        when(repository.findNombresExistentes(List.of("ana", "bob"))).thenReturn(Set.of("bob"));
+        when(repository.findNombresExistentes(List.of("carla", "dani"))).thenReturn(Set.of());
+        when(passwordService.codificarTodos(anyList())).thenAnswer(i ->
+                ((List<String>) i.getArgument(0)).stream().map(p -> "hash-" + p).toList());
+
+        List<ResultadoLoteDTO> resultados = service.registrar(List.of(
+                new AuthRequestDTO("ana", "secreto1"),
+                new AuthRequestDTO("bob", "secreto2"),
+                new AuthRequestDTO("ana", "secreto3"),
+                new AuthRequestDTO("x", "secreto4"),
+                new AuthRequestDTO("carla", "secreto5"),
+                new AuthRequestDTO("dani", "secreto6")));
+
+        assertEquals(List.of(ResultadoLoteDTO.Estado.CREADO, ResultadoLoteDTO.Estado.ERROR, ResultadoLoteDTO.Estado.ERROR,
+                        ResultadoLoteDTO.Estado.ERROR, ResultadoLoteDTO.Estado.CREADO, ResultadoLoteDTO.Estado.CREADO),
+                resultados.stream().map(ResultadoLoteDTO::getEstado).toList());
+        assertEquals("Este usuario ya esta registrado", resultados.get(1).getMensaje());
+        assertEquals("El usuario ana esta repetido en el lote", resultados.get(2).getMensaje());
+        assertEquals("El nombre debe tener entre 3 y 20 caracteres", resultados.get(3).getMensaje());
+
+        // Un batch por bloque, solo con los nuevos y con la contraseña ya codificada
+        ArgumentCaptor<List<Object[]>> filas = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), filas.capture());
+        assertEquals(List.of(List.of("ana", "hash-secreto1", "ROLE_USUARIO")),
+                filas.getAllValues().get(0).stream().map(Arrays::asList).toList());
+        assertEquals(List.of(List.of("carla", "hash-secreto5", "ROLE_USUARIO"), List.of("dani", "hash-secreto6", "ROLE_USUARIO")),
+                filas.getAllValues().get(1).stream().map(Arrays::asList).toList());
+    }
+
+    @Test
+    void cuandoOtroRegistroOcupaUnNombreDuranteElBatch_debeRepetirElBloqueFilaAFila() {
+        when(repository.findNombresExistentes(List.of("ana", "bob"))).thenReturn(Set.of());
+        when(passwordService.codificarTodos(List.of("secreto1", "secreto2"))).thenReturn(List.of("h1", "h2"));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new DataIntegrityViolationException("duplicado"));
+        when(jdbcTemplate.update(anyString(), eq("ana"), eq("h1"), eq("ROLE_USUARIO"))).thenReturn(1);
+        when(jdbcTemplate.update(anyString(), eq("bob"), eq("h2"), eq("ROLE_USUARIO")))
+                .thenThrow(new DataIntegrityViolationException("duplicado"));
+
+        List<ResultadoLoteDTO> resultados = service.registrar(List.of(
+                new AuthRequestDTO("ana", "secreto1"),
+                new AuthRequestDTO("bob", "secreto2")));
+
+        assertEquals(ResultadoLoteDTO.Estado.CREADO, resultados.get(0).getEstado());
+        assertEquals(ResultadoLoteDTO.Estado.ERROR, resultados.get(1).getEstado());
+        assertEquals("Este usuario ya esta registrado", resultados.get(1).getMensaje());
+    }
+
+    @Test
+    void cuandoElLoteSuperaElMaximo_debeLanzarLoteDemasiadoGrandeException() {
+        List<AuthRequestDTO> usuarios = Collections.nCopies(7, new AuthRequestDTO("ana", "secreto1"));
+
+        assertThrows(LoteDemasiadoGrandeException.class, () -> service.registrar(usuarios));
+
+        verifyNoInteractions(repository, passwordService, jdbcTemplate);
+    }
+}
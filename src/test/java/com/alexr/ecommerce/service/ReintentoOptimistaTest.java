@@ -0,0 +1,55 @@
+package com.alexr.ecommerce.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReintentoOptimistaTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    ReintentoOptimista reintento = new ReintentoOptimista(meterRegistry, 3, 0);
+
+    @Test
+    void cuandoElConflictoSeResuelveAlReintentar_debeDevolverElResultado() {
+        AtomicInteger intentos = new AtomicInteger();
+
+        String resultado = reintento.ejecutar("prueba", () -> {
+            if (intentos.incrementAndGet() < 3) throw new OptimisticLockingFailureException("version");
+            return "ok";
+        });
+
+        assertEquals("ok", resultado);
+        assertEquals(2.0, meterRegistry.counter("optimista.conflictos", "operacion", "prueba").count());
+        assertEquals(2.0, meterRegistry.counter("optimista.reintentos", "operacion", "prueba").count());
+        assertEquals(0.0, meterRegistry.counter("optimista.agotados", "operacion", "prueba").count());
+    }
+
+    @Test
+    void cuandoSeAgotanLosIntentos_debeLanzarElConflicto() {
+        AtomicInteger intentos = new AtomicInteger();
+
+        assertThrows(OptimisticLockingFailureException.class, () -> reintento.ejecutar("prueba", () -> {
+            intentos.incrementAndGet();
+            throw new OptimisticLockingFailureException("version");
+        }));
+
+        assertEquals(3, intentos.get());
+        assertEquals(1.0, meterRegistry.counter("optimista.agotados", "operacion", "prueba").count());
+    }
+
+    @Test
+    void otrasExcepciones_noDebenReintentarse() {
+        AtomicInteger intentos = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> reintento.ejecutar("prueba", () -> {
+            intentos.incrementAndGet();
+            throw new IllegalStateException();
+        }));
+
+        assertEquals(1, intentos.get());
+    }
+}
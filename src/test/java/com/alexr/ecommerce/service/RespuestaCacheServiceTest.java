@@ -0,0 +1,111 @@
+package com.alexr.ecommerce.service;
+
+import com.alexr.ecommerce.event.CategoriaModificadaEvent;
+import com.alexr.ecommerce.event.ProductoModificadoEvent;
+import com.alexr.ecommerce.event.StockModificadoEvent;
+import com.alexr.ecommerce.event.TipoCambio;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RespuestaCacheServiceTest {
+
+    private static final byte[] JSON = "{\"id\":1}".getBytes(StandardCharsets.UTF_8);
+    private static final String DETALLE = RespuestaCacheService.PREFIJO_PRODUCTO + "1";
+    private static final String OTRO_DETALLE = RespuestaCacheService.PREFIJO_PRODUCTO + "2";
+    private static final String LISTADO = RespuestaCacheService.PREFIJO_LISTADO + "page=0&size=20&sort=";
+
+    private RespuestaCacheService cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new RespuestaCacheService(Duration.ofMinutes(1), DataSize.ofMegabytes(1), new SimpleMeterRegistry());
+    }
+
+    private void guardar(String clave) {
+        cache.guardar(clave, JSON, "\"p1.0.0\"", cache.generacion());
+    }
+
+    @Test
+    void cuandoSeGuardaUnaRespuesta_debeGuardarTambienSuVarianteGzip() throws Exception {
+        guardar(DETALLE);
+
+        var r = cache.buscar(DETALLE);
+        assertArrayEquals(JSON, r.getJson());
+        assertArrayEquals(JSON, new GZIPInputStream(new ByteArrayInputStream(r.getGzip())).readAllBytes());
+        assertEquals("\"p1.0.0\"", r.getEtag());
+    }
+
+    @Test
+    void cuandoSeModificaUnProducto_debeInvalidarSuDetalleYElListado() {
+        guardar(DETALLE);
+        guardar(DETALLE + "?fields=id,nombre");
+        guardar(OTRO_DETALLE);
+        guardar(LISTADO);
+
+        cache.alModificarProducto(new ProductoModificadoEvent(1L, null, TipoCambio.ACTUALIZADO));
+
+        assertNull(cache.buscar(DETALLE));
+        assertNull(cache.buscar(DETALLE + "?fields=id,nombre"));
+        assertNull(cache.buscar(LISTADO));
+        assertNotNull(cache.buscar(OTRO_DETALLE));
+    }
+
+    @Test
+    void cuandoCambiaElStockDeUnProducto_soloDebeInvalidarSuDetalle() {
+        guardar(DETALLE);
+        guardar(DETALLE + "?fields=id,stock");
+        guardar(OTRO_DETALLE);
+        guardar(LISTADO);
+
+        cache.alModificarStock(new StockModificadoEvent(1L, 3, false));
+
+        assertNull(cache.buscar(DETALLE));
+        assertNull(cache.buscar(DETALLE + "?fields=id,stock"));
+        assertNotNull(cache.buscar(OTRO_DETALLE));
+        assertNotNull(cache.buscar(LISTADO));
+    }
+
+    @Test
+    void cuandoCambiaElStockMientrasSeCalculanRespuestas_soloDebeDescartarLaDeEseProducto() {
+        long generacion = cache.generacion();
+
+        cache.alModificarStock(new StockModificadoEvent(1L, 3, false));
+        cache.guardar(DETALLE, JSON, null, generacion);
+        cache.guardar(OTRO_DETALLE, JSON, null, generacion);
+        cache.guardar(LISTADO, JSON, null, generacion);
+
+        assertNull(cache.buscar(DETALLE));
+        assertNotNull(cache.buscar(OTRO_DETALLE));
+        assertNotNull(cache.buscar(LISTADO));
+    }
+
+    @Test
+    void cuandoHayUnCambioMientrasSeCalculaLaRespuesta_noDebeGuardarla() {
+        long generacion = cache.generacion();
+
+        cache.alModificarProducto(new ProductoModificadoEvent(1L, null, TipoCambio.ACTUALIZADO));
+        cache.guardar(DETALLE, JSON, null, generacion);
+
+        assertNull(cache.buscar(DETALLE));
+    }
+
+    @Test
+    void cuandoSeRenombraUnaCategoria_debeInvalidarTodo() {
+        guardar(OTRO_DETALLE);
+
+        cache.alModificarCategoria(new CategoriaModificadaEvent(1L, TipoCambio.CREADO));
+        assertNotNull(cache.buscar(OTRO_DETALLE));
+
+        cache.alModificarCategoria(new CategoriaModificadaEvent(1L, TipoCambio.ACTUALIZADO));
+        assertNull(cache.buscar(OTRO_DETALLE));
+    }
+}
@@ -0,0 +1,117 @@
+package com.alexr.ecommerce.service;
+
+import com.alexr.ecommerce.config.UsuarioPrincipal;
+import com.alexr.ecommerce.exception.UsuarioNotFoundException;
+import com.alexr.ecommerce.model.Rol;
+import com.alexr.ecommerce.model.TokenRevocado;
+import com.alexr.ecommerce.model.Usuario;
+import com.alexr.ecommerce.repository.TokenRevocadoRepository;
+import com.alexr.ecommerce.repository.UsuarioRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RevocacionTokenServiceTest {
+
+    private static final String SECRET = "dGVzdC1zZWNyZXQtcGFyYS1qd3QtZGUtMzItYnl0ZXMtbWluaW1v";
+
+    @Mock
+    private TokenRevocadoRepository tokenRepo;
+
+    @Mock
+    private UsuarioRepository usuarioRepo;
+
+    private JwtService jwtService;
+    private RevocacionTokenService revocacion;
+    private Usuario usuario;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService(SECRET, 60_000, 100, new SimpleMeterRegistry());
+        revocacion = new RevocacionTokenService(tokenRepo, usuarioRepo, jwtService, 60_000);
+        usuario = new Usuario("usuario1", "hash", Rol.ROLE_USUARIO);
+        usuario.setId(1L);
+    }
+
+    @Test
+    void cuandoSeHaceLogout_debeRevocarSoloEseToken() {
+        String token = jwtService.generateToken(usuario);
+        String otro = jwtService.generateToken(usuario);
+
+        revocacion.revocarToken(token);
+
+        assertTrue(revocacion.estaRevocado(jwtService.validarToken(token)));
+        assertFalse(revocacion.estaRevocado(jwtService.validarToken(otro)));
+        verify(tokenRepo).save(any(TokenRevocado.class));
+    }
+
+    @Test
+    void cuandoSeRevocanLosTokensDeUnUsuario_debeRevocarLosEmitidosAntes() {
+        String token = jwtService.generateToken(usuario);
+        when(usuarioRepo.revocarTokens(eq(1L), any(Instant.class))).thenReturn(1);
+
+        revocacion.revocarTokensUsuario(1L);
+
+        assertTrue(revocacion.estaRevocado(jwtService.validarToken(token)));
+    }
+
+    @Test
+    void cuandoSeEmiteUnTokenEnElMismoSegundoDespuesDeRevocar_noDebeEstarRevocado() {
+        ArgumentCaptor<Instant> hasta = ArgumentCaptor.forClass(Instant.class);
+        when(usuarioRepo.revocarTokens(eq(1L), hasta.capture())).thenReturn(1);
+
+        revocacion.revocarTokensUsuario(1L);
+
+        long corte = hasta.getValue().toEpochMilli();
+        Date segundo = new Date(corte / 1000 * 1000);
+        assertTrue(revocacion.estaRevocado(emitido(segundo, corte)));
+        assertFalse(revocacion.estaRevocado(emitido(segundo, corte + 1)));
+        // Sin iatMs no se sabe si es anterior dentro del segundo: se revoca
+        assertTrue(revocacion.estaRevocado(emitido(segundo, null)));
+    }
+
+    @Test
+    void cuandoSeRevocanLosTokensDeUnUsuarioQueNoExiste_debeLanzarUsuarioNotFoundException() {
+        when(usuarioRepo.revocarTokens(eq(99L), any(Instant.class))).thenReturn(0);
+
+        assertThrows(UsuarioNotFoundException.class, () -> revocacion.revocarTokensUsuario(99L));
+    }
+
+    @Test
+    void alArrancar_debeCargarLosTokensRevocadosPersistidos() {
+        String token = jwtService.generateToken(usuario);
+        var claims = jwtService.validarToken(token);
+        TokenRevocado persistido = new TokenRevocado(RevocacionTokenService.huella(claims.getId()),
+                claims.getExpiration().toInstant());
+        when(tokenRepo.findByExpiracionAfter(any(Instant.class))).thenReturn(List.of(persistido));
+        when(usuarioRepo.findByTokensRevocadosHastaAfter(any(Instant.class))).thenReturn(List.of());
+
+        revocacion.cargar();
+
+        assertTrue(revocacion.estaRevocado(claims));
+    }
+
+    private static Claims emitido(Date iat, Long iatMs) {
+        return Jwts.claims()
+                .add(UsuarioPrincipal.CLAIM_ID, 1L)
+                .add(JwtService.CLAIM_EMITIDO_MS, iatMs)
+                .issuedAt(iat)
+                .build();
+    }
+}
@@ -0,0 +1,174 @@
+package com.alexr.ecommerce.service;
+
+import com.alexr.ecommerce.dto.MovimientoStockDTO;
+import com.alexr.ecommerce.exception.ServicioSaturadoException;
+import com.alexr.ecommerce.model.ArrendamientoStock;
+import com.alexr.ecommerce.repository.ArrendamientoStockRepository;
+import com.alexr.ecommerce.repository.EstadoStock;
+import com.alexr.ecommerce.repository.ProductoRepository;
+import com.alexr.ecommerce.repository.ProductoStockRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StockCalienteServiceTest {
+
+    @Mock
+    ProductoRepository repoP;
+
+    @Mock
+    ProductoStockRepository repoStock;
+
+    @Mock
+    ArrendamientoStockRepository repoA;
+
+    @Mock
+    ApplicationEventPublisher eventos;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    StockCalienteService service;
+
+    @BeforeEach
+    void setUp() {
+        // Sin iniciar(): las confirmaciones las lanza cada test. Una compra espera como mucho 50 ms a la suya
+        service = new StockCalienteService(repoP, repoStock, repoA, eventos, transactionManager,
+                new ReintentoOptimista(meterRegistry, 3, 0), 200, 5, 50);
+    }
+
+    @Test
+    void cuandoSeCompraUnProductoCaliente_debeArrendarStockYConfirmarLaVentaEnElArrendamiento() throws Exception {
+        when(repoP.findEstadoStock(1L)).thenReturn(Optional.of(estadoStock(10)));
+        when(repoA.save(any())).thenAnswer(i -> i.getArgument(0));
+        when(repoStock.arrendar(1L, 1L, 10)).thenReturn(1);
+        when(repoA.ampliar(any(), eq(10L))).thenReturn(1);
+        service.activar(1L);
+
+        // La compra espera a la siguiente confirmacion
+        CompletableFuture<Optional<MovimientoStockDTO>> compra = CompletableFuture.supplyAsync(() -> service.decrementar(1L, 3));
+        while (!compra.isDone()) {
+            service.confirmarVentas();
+            Thread.sleep(1);
+        }
+
+        MovimientoStockDTO m = compra.get().orElseThrow();
+        assertTrue(m.isRealizado());
+        assertEquals(7, m.getStock());
+        verify(repoA).confirmarVentas(any(), eq(3L));
+        verify(repoStock, never()).decrementar(any(), anyInt());
+    }
+
+    @Test
+    void cuandoLaVentaNoSeConfirmaATiempo_debeLanzarServicioSaturadoExceptionYDevolverLasUnidades() throws Exception {
+        when(repoP.findEstadoStock(1L)).thenReturn(Optional.of(estadoStock(3)));
+        when(repoA.save(any())).thenAnswer(i -> i.getArgument(0));
+        when(repoStock.arrendar(1L, 1L, 3)).thenReturn(1);
+        when(repoA.ampliar(any(), eq(3L))).thenReturn(1);
+        service.activar(1L);
+
+        // Nadie confirma: la compra no se queda esperando para siempre
+        assertThrows(ServicioSaturadoException.class, () -> service.decrementar(1L, 3));
+
+        // La venta se ha retirado de la cola: no se apunta y sus unidades se vuelven a vender sin arrendar otra tanda
+        service.confirmarVentas();
+        verify(repoA, never()).confirmarVentas(any(), anyLong());
+        CompletableFuture<Optional<MovimientoStockDTO>> compra = CompletableFuture.supplyAsync(() -> service.decrementar(1L, 3));
+        while (!compra.isDone()) {
+            service.confirmarVentas();
+            Thread.sleep(1);
+        }
+        assertTrue(compra.get().orElseThrow().isRealizado());
+        verify(repoStock, times(1)).arrendar(1L, 3);
+    }
+
+    @Test
+    void cuandoOtraCompraCambiaLaFilaAlArrendar_debeVolverALeerlaYArrendarConLaVersionNueva() {
+        // Entre la lectura y el update del arrendamiento un pedido resta 4 unidades de la fila
+        when(repoP.findEstadoStock(1L))
+                .thenReturn(Optional.of(estadoStock(10)), Optional.of(estadoStock(10)), Optional.of(estadoStock(6, 2)));
+        when(repoA.save(any())).thenAnswer(i -> i.getArgument(0));
+        when(repoStock.arrendar(1L, 1L, 10)).thenReturn(0);
+        when(repoStock.arrendar(1L, 2L, 6)).thenReturn(1);
+        when(repoA.ampliar(any(), eq(6L))).thenReturn(1);
+        service.activar(1L);
+
+        MovimientoStockDTO m = service.decrementar(1L, 7).orElseThrow();
+
+        assertFalse(m.isRealizado());
+        assertEquals(6, m.getStock());
+        assertEquals(1.0, meterRegistry.counter("optimista.reintentos", "operacion", "stock.arrendar").count());
+    }
+
+    @Test
+    void cuandoNoQuedaBastante_debeRechazarLaCompraSinVenderNada() {
+        when(repoP.findEstadoStock(1L)).thenReturn(Optional.of(estadoStock(2)));
+        when(repoA.save(any())).thenAnswer(i -> i.getArgument(0));
+        when(repoStock.arrendar(1L, 1L, 2)).thenReturn(1);
+        when(repoA.ampliar(any(), eq(2L))).thenReturn(1);
+        service.activar(1L);
+
+        MovimientoStockDTO m = service.decrementar(1L, 5).orElseThrow();
+
+        assertFalse(m.isRealizado());
+        assertEquals(2, m.getStock());
+        service.confirmarVentas();
+        verify(repoA, never()).confirmarVentas(any(), anyLong());
+    }
+
+    @Test
+    void cuandoSeArrancaConArrendamientosAbiertos_debeDevolverLoQueNoSeConfirmoComoVendido() {
+        ArrendamientoStock a = mock(ArrendamientoStock.class);
+        when(a.getId()).thenReturn(5L);
+        when(a.getProductoId()).thenReturn(7L);
+        when(a.getConcedidas()).thenReturn(10L);
+        when(a.getVendidas()).thenReturn(4L);
+        when(repoA.findByAbiertoTrue()).thenReturn(List.of(a));
+        when(repoA.findById(5L)).thenReturn(Optional.of(a));
+        when(repoA.cerrar(5L)).thenReturn(1);
+
+        service.reconciliar();
+
+        verify(repoStock).incrementar(7L, 6);
+    }
+
+    @Test
+    void cuandoElProductoNoEstaEnModoCaliente_debeDevolverVacio() {
+        assertTrue(service.decrementar(1L, 1).isEmpty());
+        assertFalse(service.esCaliente(1L));
+    }
+
+    private static EstadoStock estadoStock(int stock) {
+        return estadoStock(stock, 1);
+    }
+
+    private static EstadoStock estadoStock(int stock, long version) {
+        return new EstadoStock() {
+            public int getStock() { return stock; }
+            public boolean isDisponible() { return stock > 0; }
+            public long getVersion() { return version; }
+        };
+    }
+}